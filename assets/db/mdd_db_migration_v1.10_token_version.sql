@@ -0,0 +1,12 @@
+-- Migration from version 1.9 of the database, before users had a token version
+-- Adds the version stamp carried by rich JWT tokens. The column is mapped on every user,
+-- so it is needed even when rich tokens are disabled. Existing users start at version 0.
+-- Run it once; running it again only fails on the existing column.
+
+USE `mdd_db`;
+
+-- -----------------------------------------------------
+-- Add the token version of users
+-- -----------------------------------------------------
+
+ALTER TABLE `users` ADD COLUMN `token_version` BIGINT NOT NULL DEFAULT 0 AFTER `password`;
@@ -0,0 +1,19 @@
+-- Migration from version 1.10 of the database, before articles held their comment count
+-- Adds the denormalized comment count read by the feed and the article endpoints, then counts the
+-- comments of the existing articles. Run it while the back-end is stopped: a comment posted between
+-- the two statements would otherwise be missed until the comment count reconciler repairs it.
+-- Run it once; running it again only fails on the existing column, and the count can be run again.
+
+USE `mdd_db`;
+
+-- -----------------------------------------------------
+-- Add the comment count of articles
+-- -----------------------------------------------------
+
+ALTER TABLE `articles` ADD COLUMN `comment_count` INT NOT NULL DEFAULT 0 AFTER `theme_id`;
+
+-- -----------------------------------------------------
+-- Count the comments of existing articles
+-- -----------------------------------------------------
+
+UPDATE `articles` a SET a.`comment_count` = (SELECT COUNT(*) FROM `comments` c WHERE c.`article_id` = a.`id`);
@@ -0,0 +1,30 @@
+-- Migration from version 1.7 of the database created before the subscriptions primary key
+-- Adds the (user_id, theme_id) primary key the idempotent subscription endpoints rely on
+-- (INSERT IGNORE skips a subscription that already exists instead of duplicating it).
+-- Run it once; if the key already exists, only the final ALTER fails and nothing is lost.
+
+USE `mdd_db`;
+
+-- -----------------------------------------------------
+-- Remove duplicate subscriptions, keeping one row per user and theme
+-- -----------------------------------------------------
+
+START TRANSACTION;
+
+CREATE TEMPORARY TABLE `subscriptions_distinct` AS
+  SELECT DISTINCT `user_id`, `theme_id` FROM `subscriptions`;
+
+DELETE FROM `subscriptions`;
+
+INSERT INTO `subscriptions` (`user_id`, `theme_id`)
+  SELECT `user_id`, `theme_id` FROM `subscriptions_distinct`;
+
+COMMIT;
+
+DROP TEMPORARY TABLE `subscriptions_distinct`;
+
+-- -----------------------------------------------------
+-- Add the primary key
+-- -----------------------------------------------------
+
+ALTER TABLE `subscriptions` ADD PRIMARY KEY (`user_id`, `theme_id`);
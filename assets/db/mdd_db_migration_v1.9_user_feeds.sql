@@ -0,0 +1,48 @@
+-- Migration from version 1.8 of the database, before the feed was materialized per user
+-- Adds the index the keyset-paginated feed reads articles with, and the user_feeds table filled when
+-- articles are written, then materializes the feeds of the existing subscriptions.
+-- Run it once after the v1.8 migration; if the index already exists, only its CREATE fails and the
+-- rest can be run again, since the table is only created if missing and existing feed rows are skipped.
+
+USE `mdd_db`;
+
+-- -----------------------------------------------------
+-- Index of the feed on articles
+-- -----------------------------------------------------
+
+CREATE INDEX `idx_articles_feed` ON `articles` (`theme_id` ASC, `created_at` DESC, `id` DESC);
+
+-- -----------------------------------------------------
+-- Table `mdd_db`.`user_feeds`
+-- Materialized per-user feed, filled when articles are written
+-- -----------------------------------------------------
+
+CREATE TABLE IF NOT EXISTS `user_feeds` (
+  `user_id` BIGINT NOT NULL,
+  `article_id` BIGINT NOT NULL,
+  `theme_id` BIGINT NOT NULL,
+  `created_at` TIMESTAMP NOT NULL,
+  PRIMARY KEY (`user_id`, `article_id`),
+  INDEX `idx_user_feeds_scan` (`user_id` ASC, `created_at` DESC, `article_id` DESC),
+  INDEX `idx_user_feeds_theme` (`user_id` ASC, `theme_id` ASC),
+  CONSTRAINT `fk_user_feeds_1`
+    FOREIGN KEY (`user_id`)
+    REFERENCES `users` (`id`)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE,
+  CONSTRAINT `fk_user_feeds_2`
+    FOREIGN KEY (`article_id`)
+    REFERENCES `articles` (`id`)
+    ON DELETE CASCADE
+    ON UPDATE CASCADE)
+ENGINE = InnoDB
+DEFAULT CHARACTER SET = utf8mb4
+COLLATE = utf8mb4_unicode_ci;
+
+-- -----------------------------------------------------
+-- Materialize the feeds of existing subscriptions
+-- -----------------------------------------------------
+
+INSERT IGNORE INTO `user_feeds` (`user_id`, `article_id`, `theme_id`, `created_at`)
+  SELECT s.`user_id`, a.`id`, a.`theme_id`, a.`created_at`
+  FROM `subscriptions` s JOIN `articles` a ON a.`theme_id` = s.`theme_id`;
@@ -0,0 +1,114 @@
+package com.openclassrooms.mddapi.audit;
+
+import java.time.Instant;
+
+/**
+ * An action recorded in the audit log.
+ *
+ * <p>Events are stored as one line each, with tab-separated fields in this order: the epoch
+ * milliseconds, the type, the username, the ID of the created resource and the client address.
+ * Missing values are written as {@code -}. The timestamp comes first so that a segment can be
+ * searched by time without parsing whole lines.
+ */
+public final class AuditEvent {
+
+    private static final String MISSING = "-";
+
+    private final long timestamp;
+    private final AuditEventType type;
+    private final String username;
+    private final Long resourceId;
+    private final String remoteAddress;
+
+    /**
+     * Constructs a new AuditEvent.
+     *
+     * @param timestamp the time of the action, in epoch milliseconds
+     * @param type the kind of action
+     * @param username the name or email of the user, or null
+     * @param resourceId the ID of the article, comment or user created, or null
+     * @param remoteAddress the address of the client, or null
+     */
+    public AuditEvent(long timestamp, AuditEventType type, String username, Long resourceId, String remoteAddress) {
+        this.timestamp = timestamp;
+        this.type = type;
+        this.username = username;
+        this.resourceId = resourceId;
+        this.remoteAddress = remoteAddress;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(timestamp);
+    }
+
+    public AuditEventType getType() {
+        return type;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public Long getResourceId() {
+        return resourceId;
+    }
+
+    public String getRemoteAddress() {
+        return remoteAddress;
+    }
+
+    /**
+     * Appends the stored form of the event, without the line separator.
+     *
+     * @param line the builder the event is appended to
+     */
+    void appendTo(StringBuilder line) {
+        line.append(timestamp).append('\t')
+                .append(type.name()).append('\t');
+        appendText(line, username);
+        line.append('\t').append(resourceId == null ? MISSING : resourceId.toString()).append('\t');
+        appendText(line, remoteAddress);
+    }
+
+    /**
+     * Reads an event from its stored form.
+     *
+     * @param line a line of a segment, without the line separator
+     * @return the event
+     * @throws IllegalArgumentException if the line is not a complete event
+     */
+    static AuditEvent parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 5) {
+            throw new IllegalArgumentException("Not an audit event: " + line);
+        }
+        return new AuditEvent(Long.parseLong(fields[0]), AuditEventType.valueOf(fields[1]), text(fields[2]),
+                MISSING.equals(fields[3]) ? null : Long.valueOf(fields[3]), text(fields[4]));
+    }
+
+    private static void appendText(StringBuilder line, String value) {
+        if (value == null || value.isEmpty()) {
+            line.append(MISSING);
+            return;
+        }
+        // Tabs and line breaks would split the record, usernames are not trusted to be free of them
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            line.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+        }
+    }
+
+    private static String text(String field) {
+        return MISSING.equals(field) ? null : field;
+    }
+
+    @Override
+    public String toString() {
+        return getInstant() + " " + type + " " + (username == null ? MISSING : username)
+                + " " + (resourceId == null ? MISSING : resourceId) + " " + (remoteAddress == null ? MISSING : remoteAddress);
+    }
+}
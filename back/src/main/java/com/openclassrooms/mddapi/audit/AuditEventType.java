@@ -0,0 +1,12 @@
+package com.openclassrooms.mddapi.audit;
+
+/**
+ * The kinds of actions recorded in the audit log.
+ */
+public enum AuditEventType {
+    LOGIN_SUCCEEDED,
+    LOGIN_FAILED,
+    REGISTRATION,
+    ARTICLE_POSTED,
+    COMMENT_POSTED
+}
@@ -0,0 +1,167 @@
+package com.openclassrooms.mddapi.audit;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Audit trail of logins, registrations and posts, written to local segment files in the background.
+ *
+ * <p>Recording an event only adds it to a bounded lock-free ring buffer, so request threads never wait
+ * on the disk or on a lock. A single writer thread drains the buffer in batches, appends them to the
+ * current segment and syncs it periodically. When the buffer is full the event is dropped and counted
+ * in the {@code audit.events.dropped} metric. {@link AuditLogReader} reads the segments back by time range.
+ */
+@Component
+public class AuditLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuditLog.class);
+
+    private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final AuditRingBuffer buffer;
+    private final AuditSegmentWriter segmentWriter;
+    private final int batchSize;
+    private final Thread writer;
+    private final AtomicLong droppedSinceLastLog = new AtomicLong();
+    private final Counter droppedCounter;
+    private final Counter writtenCounter;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a new AuditLog and starts its writer thread.
+     *
+     * @param directory the directory of the segment files
+     * @param bufferSize the number of events the ring buffer holds, rounded up to a power of two
+     * @param batchSize the maximum number of events appended by a single write
+     * @param syncInterval the maximum time written events stay unsynced to disk
+     * @param segmentSize the size from which a new segment file is started
+     * @param maxSegments the number of segment files kept, or 0 to keep them all
+     * @param meterRegistry the registry the audit metrics are bound to, if any
+     */
+    public AuditLog(@Value("${audit.directory:data/audit}") Path directory,
+            @Value("${audit.buffer-size:8192}") int bufferSize,
+            @Value("${audit.batch-size:512}") int batchSize,
+            @Value("${audit.sync-interval:1s}") Duration syncInterval,
+            @Value("${audit.segment-size:64MB}") DataSize segmentSize,
+            @Value("${audit.max-segments:0}") int maxSegments,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.buffer = new AuditRingBuffer(bufferSize);
+        this.batchSize = batchSize;
+        try {
+            this.segmentWriter = new AuditSegmentWriter(directory, segmentSize.toBytes(), maxSegments, syncInterval.toNanos());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to create the audit directory " + directory, e);
+        }
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.droppedCounter = registry == null ? null : Counter.builder("audit.events.dropped")
+                .description("Audit events lost because the audit buffer was full")
+                .register(registry);
+        this.writtenCounter = registry == null ? null : Counter.builder("audit.events.written")
+                .description("Audit events appended to the audit log")
+                .register(registry);
+        if (registry != null) {
+            Gauge.builder("audit.buffer.size", buffer, AuditRingBuffer::size)
+                    .description("Audit events waiting to be written")
+                    .register(registry);
+        }
+        this.writer = new Thread(this::write, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Records an action of the current request without blocking.
+     *
+     * @param type the kind of action
+     * @param username the name or email of the user, or null
+     * @param resourceId the ID of the article, comment or user created, or null
+     */
+    public void record(AuditEventType type, String username, Long resourceId) {
+        AuditEvent event = new AuditEvent(System.currentTimeMillis(), type, username, resourceId, remoteAddress());
+        if (!buffer.offer(event)) {
+            droppedSinceLastLog.incrementAndGet();
+            if (droppedCounter != null) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Stops the writer once the buffered events have been written and synced.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Appends the buffered events batch by batch until the application shuts down.
+     */
+    private void write() {
+        List<AuditEvent> batch = new ArrayList<>(batchSize);
+        while (true) {
+            // Read before draining, so that the events recorded before the shutdown are still written
+            boolean stopping = !running;
+            int drained = buffer.drainTo(batch, batchSize);
+            try {
+                segmentWriter.append(batch);
+                if (writtenCounter != null) {
+                    writtenCounter.increment(drained);
+                }
+                segmentWriter.syncIfDue();
+            } catch (IOException e) {
+                logger.error("Unable to write {} audit events", drained, e);
+            } finally {
+                batch.clear();
+            }
+            long dropped = droppedSinceLastLog.getAndSet(0);
+            if (dropped > 0) {
+                logger.warn("{} audit events were dropped because the audit buffer was full", dropped);
+            }
+            if (stopping && buffer.isEmpty()) {
+                break;
+            }
+            if (drained == 0) {
+                LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+            }
+        }
+        try {
+            segmentWriter.close();
+        } catch (IOException e) {
+            logger.error("Unable to sync the audit log", e);
+        }
+    }
+
+    private static String remoteAddress() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servletAttributes
+                ? servletAttributes.getRequest().getRemoteAddr()
+                : null;
+    }
+}
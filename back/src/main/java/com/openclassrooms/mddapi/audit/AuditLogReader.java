@@ -0,0 +1,192 @@
+package com.openclassrooms.mddapi.audit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Reads the audit events of a time range from the segments written by the {@link AuditLog}.
+ *
+ * <p>Segments are picked from their names, which hold the time of their first event. Within a segment,
+ * the first event of the range is found by a binary search on the byte offsets, reading only the
+ * timestamps of a few lines, and the events are then streamed until the end of the range.
+ * Events are written in the order they were recorded, which can differ from the order of their
+ * timestamps by a few milliseconds, so the search starts and stops {@value #CLOCK_SKEW_MILLIS} ms
+ * outside of the range.
+ *
+ * <p>Also a command-line tool, run from the back-end jar with
+ * {@code java -cp mdd-api-0.0.1-SNAPSHOT-exec.jar -Dloader.main=com.openclassrooms.mddapi.audit.AuditLogReader
+ * org.springframework.boot.loader.launch.PropertiesLauncher --from=2026-10-18T08:00:00Z}. Options, given as
+ * {@code --name=value}: {@code directory} (default {@code data/audit}), {@code from} and {@code to} as ISO-8601
+ * instants (default the last hour), {@code type} and {@code user} to filter the events.
+ */
+public final class AuditLogReader {
+
+    static final long CLOCK_SKEW_MILLIS = 1000;
+
+    private static final int TIMESTAMP_PROBE_SIZE = 32;
+
+    private AuditLogReader() {
+    }
+
+    /**
+     * Reads the events recorded between two instants.
+     *
+     * @param directory the directory of the segments
+     * @param from the start of the range, inclusive
+     * @param to the end of the range, inclusive
+     * @param consumer the consumer receiving the events of the range, oldest segment first
+     * @return the number of events read
+     * @throws IOException if a segment cannot be read
+     */
+    public static long read(Path directory, Instant from, Instant to, Consumer<AuditEvent> consumer) throws IOException {
+        long fromMillis = from.toEpochMilli();
+        long toMillis = to.toEpochMilli();
+        List<Path> segments = AuditSegmentWriter.segments(directory);
+        long count = 0;
+        for (int i = 0; i < segments.size(); i++) {
+            if (AuditSegmentWriter.startOf(segments.get(i)) > toMillis + CLOCK_SKEW_MILLIS) {
+                break;
+            }
+            // A segment ends where the next one starts
+            if (i + 1 < segments.size() && AuditSegmentWriter.startOf(segments.get(i + 1)) < fromMillis - CLOCK_SKEW_MILLIS) {
+                continue;
+            }
+            count += readSegment(segments.get(i), fromMillis, toMillis, consumer);
+        }
+        return count;
+    }
+
+    /**
+     * Streams the events of the range from one segment, starting at the offset found by binary search.
+     */
+    private static long readSegment(Path segment, long fromMillis, long toMillis, Consumer<AuditEvent> consumer) throws IOException {
+        long count = 0;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            channel.position(firstLineFrom(channel, fromMillis - CLOCK_SKEW_MILLIS));
+            BufferedReader reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                AuditEvent event;
+                try {
+                    event = AuditEvent.parse(line);
+                } catch (IllegalArgumentException e) {
+                    // A line cut short by a crash
+                    continue;
+                }
+                if (event.getTimestamp() > toMillis + CLOCK_SKEW_MILLIS) {
+                    break;
+                }
+                if (event.getTimestamp() >= fromMillis && event.getTimestamp() <= toMillis) {
+                    consumer.accept(event);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the offset of the first line whose timestamp is at least the given time.
+     * The predicate "the first line starting at or after this offset is at or after the time"
+     * only turns from false to true once along the file, so it is searched by bisection.
+     */
+    private static long firstLineFrom(FileChannel channel, long millis) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(TIMESTAMP_PROBE_SIZE);
+        long low = 0;
+        long high = channel.size();
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            long lineStart = lineStartFrom(channel, middle, probe);
+            if (lineStart >= channel.size() || timestampAt(channel, lineStart, probe) >= millis) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return lineStartFrom(channel, low, probe);
+    }
+
+    /**
+     * Returns the offset of the first line starting at or after the given offset, or the size of the file.
+     */
+    private static long lineStartFrom(FileChannel channel, long offset, ByteBuffer probe) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        long position = offset - 1;
+        while (true) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Reads the timestamp at the start of a line, or {@code Long.MAX_VALUE} if the line is incomplete.
+     */
+    private static long timestampAt(FileChannel channel, long lineStart, ByteBuffer probe) throws IOException {
+        probe.clear();
+        int read = channel.read(probe, lineStart);
+        long timestamp = 0;
+        for (int i = 0; i < read; i++) {
+            byte b = probe.get(i);
+            if (b == '\t') {
+                return i == 0 ? Long.MAX_VALUE : timestamp;
+            }
+            if (b < '0' || b > '9') {
+                return Long.MAX_VALUE;
+            }
+            timestamp = timestamp * 10 + (b - '0');
+        }
+        return Long.MAX_VALUE;
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = parseOptions(args);
+        Path directory = Path.of(options.getOrDefault("directory", "data/audit"));
+        Instant to = options.containsKey("to") ? Instant.parse(options.get("to")) : Instant.now();
+        Instant from = options.containsKey("from") ? Instant.parse(options.get("from")) : to.minus(Duration.ofHours(1));
+        AuditEventType type = options.containsKey("type") ? AuditEventType.valueOf(options.get("type")) : null;
+        String user = options.get("user");
+
+        long[] matched = new long[1];
+        long read = read(directory, from, to, event -> {
+            if ((type == null || event.getType() == type) && (user == null || user.equals(event.getUsername()))) {
+                System.out.println(event);
+                matched[0]++;
+            }
+        });
+        System.err.printf("%d of %d events between %s and %s%n", matched[0], read, from, to);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+}
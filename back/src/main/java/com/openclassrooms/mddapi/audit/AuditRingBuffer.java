@@ -0,0 +1,123 @@
+package com.openclassrooms.mddapi.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded lock-free ring buffer of audit events, with many producers and a single consumer.
+ *
+ * <p>Each slot has a sequence number telling whether it is free for the producer of a given position
+ * or holds the event the consumer expects next. Producers claim a position with a compare-and-set on
+ * the tail, write their event, then publish it by advancing the slot's sequence; a producer finding
+ * the buffer full gives up instead of waiting. The consumer frees a slot by advancing its sequence
+ * by one lap. Neither side ever blocks.
+ */
+final class AuditRingBuffer {
+
+    private final AuditEvent[] slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    // Only read and written by the consumer
+    private long head;
+    // The head as seen by other threads, for the size gauge
+    private final AtomicLong consumed = new AtomicLong();
+
+    /**
+     * Constructs a new AuditRingBuffer.
+     *
+     * @param capacity the number of slots, rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AuditEvent[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an event without blocking.
+     *
+     * @param event the event
+     * @return false if the buffer is full and the event was not added
+     */
+    boolean offer(AuditEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long gap = sequences.get(index) - position;
+            if (gap == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = event;
+                    // The volatile write publishes the event to the consumer
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (gap < 0) {
+                // The slot still holds the event of the previous lap
+                return false;
+            } else {
+                // Another producer claimed the position
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Moves the published events to a list, in order. Must only be called by the consumer.
+     *
+     * @param events the list the events are added to
+     * @param maxEvents the maximum number of events moved
+     * @return the number of events moved
+     */
+    int drainTo(List<AuditEvent> events, int maxEvents) {
+        int count = 0;
+        while (count < maxEvents) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            events.add(slots[index]);
+            slots[index] = null;
+            sequences.set(index, head + slots.length);
+            head++;
+            count++;
+        }
+        if (count > 0) {
+            consumed.lazySet(head);
+        }
+        return count;
+    }
+
+    /**
+     * Tells whether every claimed position has been consumed. Must only be called by the consumer.
+     *
+     * @return true if no event is waiting or being written
+     */
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+
+    /**
+     * Returns the number of events waiting, which may already be stale.
+     *
+     * @return the approximate number of events in the buffer
+     */
+    int size() {
+        return (int) Math.max(0, tail.get() - consumed.get());
+    }
+
+    /**
+     * Returns the number of slots.
+     *
+     * @return the capacity
+     */
+    int capacity() {
+        return slots.length;
+    }
+}
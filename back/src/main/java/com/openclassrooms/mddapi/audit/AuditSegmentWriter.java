@@ -0,0 +1,202 @@
+package com.openclassrooms.mddapi.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Appends audit events to segment files named after the time of their first event, such as
+ * {@code audit-1760781600000.log}, so that a reader can tell from the names which segments cover a
+ * time range. A new segment is started at each start-up and once the current one reaches its size limit,
+ * and the oldest segments are deleted past the maximum count.
+ *
+ * <p>Writes go through the page cache; {@link #syncIfDue()} forces them to disk at most once per interval,
+ * so a crash loses at most the last interval of events. Not thread-safe: only the audit writer thread uses it.
+ */
+final class AuditSegmentWriter implements Closeable {
+
+    static final String SEGMENT_PREFIX = "audit-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final long segmentSize;
+    private final int maxSegments;
+    private final long syncIntervalNanos;
+    private final StringBuilder line = new StringBuilder(256);
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private FileChannel channel;
+    private long size;
+    private boolean unsynced;
+    private long lastSync = System.nanoTime();
+
+    /**
+     * Constructs a new AuditSegmentWriter.
+     *
+     * @param directory the directory of the segments, created if needed
+     * @param segmentSize the size from which a new segment is started, in bytes
+     * @param maxSegments the number of segments kept, or 0 to keep them all
+     * @param syncIntervalNanos the maximum time written events stay unsynced, in nanoseconds
+     * @throws IOException if the directory cannot be created
+     */
+    AuditSegmentWriter(Path directory, long segmentSize, int maxSegments, long syncIntervalNanos) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.syncIntervalNanos = syncIntervalNanos;
+        Files.createDirectories(directory);
+    }
+
+    /**
+     * Appends a batch of events to the current segment, starting a new one first if needed.
+     *
+     * @param events the events, in the order they were recorded
+     * @throws IOException if the events cannot be written
+     */
+    void append(List<AuditEvent> events) throws IOException {
+        if (events.isEmpty()) {
+            return;
+        }
+        if (channel == null || size >= segmentSize) {
+            roll(events.get(0).getTimestamp());
+        }
+        try {
+            buffer.clear();
+            for (AuditEvent event : events) {
+                line.setLength(0);
+                event.appendTo(line);
+                byte[] bytes = line.append('\n').toString().getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > buffer.remaining()) {
+                    flush();
+                    if (bytes.length > buffer.capacity()) {
+                        buffer = ByteBuffer.allocateDirect(bytes.length);
+                    }
+                }
+                buffer.put(bytes);
+            }
+            flush();
+            unsynced = true;
+        } catch (IOException e) {
+            // Start a new segment with the next batch rather than appending to a file in an unknown state
+            closeChannel();
+            throw e;
+        }
+    }
+
+    /**
+     * Forces the written events to disk if the sync interval has elapsed since the last sync.
+     *
+     * @throws IOException if the segment cannot be synced
+     */
+    void syncIfDue() throws IOException {
+        if (unsynced && System.nanoTime() - lastSync >= syncIntervalNanos) {
+            sync();
+        }
+    }
+
+    /**
+     * Syncs and closes the current segment.
+     *
+     * @throws IOException if the segment cannot be synced
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            try {
+                sync();
+            } finally {
+                closeChannel();
+            }
+        }
+    }
+
+    /**
+     * Lists the segments of a directory, oldest first.
+     *
+     * @param directory the directory of the segments
+     * @return the paths of the segments, empty if the directory does not exist
+     * @throws IOException if the directory cannot be listed
+     */
+    static List<Path> segments(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> startOf(file) >= 0)
+                    .sorted((a, b) -> Long.compare(startOf(a), startOf(b)))
+                    .toList();
+        }
+    }
+
+    /**
+     * Returns the time of the first event of a segment, read from its name.
+     *
+     * @param segment the path of the segment
+     * @return the time in epoch milliseconds, or -1 if the file is not a segment
+     */
+    static long startOf(Path segment) {
+        String name = segment.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void sync() throws IOException {
+        if (unsynced) {
+            channel.force(false);
+            unsynced = false;
+        }
+        lastSync = System.nanoTime();
+    }
+
+    /**
+     * Closes the current segment and starts a new one, then deletes the oldest segments past the maximum.
+     *
+     * @param start the time of the first event of the new segment, in epoch milliseconds
+     */
+    private void roll(long start) throws IOException {
+        close();
+        List<Path> existing = segments(directory);
+        // Names must stay unique and in time order, even when the clock goes back
+        if (!existing.isEmpty()) {
+            start = Math.max(start, startOf(existing.get(existing.size() - 1)) + 1);
+        }
+        Path segment = directory.resolve(SEGMENT_PREFIX + start + SEGMENT_SUFFIX);
+        channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        size = 0;
+        lastSync = System.nanoTime();
+        if (maxSegments > 0) {
+            for (int i = 0; i < existing.size() + 1 - maxSegments; i++) {
+                Files.deleteIfExists(existing.get(i));
+            }
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        FileChannel current = channel;
+        channel = null;
+        unsynced = false;
+        if (current != null) {
+            current.close();
+        }
+    }
+}
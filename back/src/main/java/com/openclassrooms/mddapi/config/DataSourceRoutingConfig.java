@@ -0,0 +1,118 @@
+package com.openclassrooms.mddapi.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Configuration splitting database traffic between the primary and a read replica,
+ * enabled with {@code datasource.routing.enabled=true}.
+ * The primary is configured by the usual {@code spring.datasource.*} properties and the replica
+ * by {@code datasource.replica.*}; service methods annotated with {@code @Transactional(readOnly = true)}
+ * read from the replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.routing.enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    private final DataSourceProperties dataSourceProperties;
+    private final Environment environment;
+
+    /**
+     * Constructs a new DataSourceRoutingConfig.
+     *
+     * @param dataSourceProperties The properties of the primary database.
+     * @param environment The environment holding the replica properties.
+     */
+    public DataSourceRoutingConfig(DataSourceProperties dataSourceProperties, Environment environment) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.environment = environment;
+    }
+
+    /**
+     * Creates the connection pool of the primary database.
+     *
+     * @return The primary HikariDataSource.
+     */
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource() {
+        HikariDataSource dataSource = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    /**
+     * Creates the connection pool of the replica. Its connections are read-only.
+     *
+     * @return The replica HikariDataSource.
+     */
+    @Bean(autowireCandidate = false)
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(environment.getRequiredProperty("datasource.replica.url"))
+                .username(environment.getProperty("datasource.replica.username"))
+                .password(environment.getProperty("datasource.replica.password"))
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    /**
+     * Creates the tracker of users who wrote recently.
+     *
+     * @param window How long after a write the user's reads stay on the primary.
+     * @return The ReadYourWritesTracker.
+     */
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker(@Value("${datasource.routing.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWritesTracker(window, 100_000);
+    }
+
+    /**
+     * Creates the DataSource used by JPA, routing each transaction once its read-only flag is known.
+     *
+     * @param readYourWritesTracker The tracker of users who wrote recently.
+     * @return The routing DataSource.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadYourWritesTracker readYourWritesTracker) {
+        return new LazyConnectionDataSourceProxy(
+                new ReplicaRoutingDataSource(primaryDataSource(), replicaDataSource(), readYourWritesTracker));
+    }
+
+    /**
+     * Releases JDBC connections at the end of each transaction.
+     * With open-in-view the session spans the whole request; holding its first connection would
+     * send every later transaction of the request to the database of the first one.
+     *
+     * @return The HibernatePropertiesCustomizer.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionsAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
@@ -0,0 +1,185 @@
+package com.openclassrooms.mddapi.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * DataSource timing the execution of each JDBC statement. Every execution is reported to the
+ * {@link SlowQueryLog}, along with the bind values of prepared statements, and, when tracing is on,
+ * observed as a {@value #OBSERVATION} span tagged with the shape of its SQL, so that a trace shows
+ * which statements a request ran and how long each took.
+ * Statements are only traced inside an existing observation, such as an HTTP request, so that
+ * background work does not start traces of its own. The rows read from the result sets of the thread's
+ * {@link QueryStats}, if any, are counted for the query budget.
+ */
+public class InstrumentedDataSource extends DelegatingDataSource {
+
+    /**
+     * The name of the observation of JDBC statements.
+     */
+    public static final String OBSERVATION = "jdbc.statement";
+
+    private final SlowQueryLog slowQueryLog;
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Constructs a new InstrumentedDataSource.
+     *
+     * @param targetDataSource the DataSource providing the connections
+     * @param slowQueryLog the log the statement timings are reported to
+     * @param observationRegistry the registry the statements are traced in, or null when tracing is off
+     */
+    public InstrumentedDataSource(DataSource targetDataSource, SlowQueryLog slowQueryLog,
+            ObservationRegistry observationRegistry) {
+        super(targetDataSource);
+        this.slowQueryLog = slowQueryLog;
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    /**
+     * Wraps a connection so that the statements it creates are timed.
+     */
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                        String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                        return Proxy.newProxyInstance(method.getReturnType().getClassLoader(),
+                                new Class<?>[] {method.getReturnType()}, new StatementHandler(statement, sql));
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    /**
+     * Times the executions of a statement, keeping the values bound to a prepared statement
+     * so that slow executions can be logged with them.
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final String preparedSql;
+        private Object[] parameters;
+        private int parameterCount;
+
+        /**
+         * @param statement the statement
+         * @param preparedSql the SQL of a prepared statement, or null for a plain statement
+         */
+        private StatementHandler(Statement statement, String preparedSql) {
+            this.statement = statement;
+            this.preparedSql = preparedSql;
+            this.parameters = preparedSql != null && slowQueryLog.isLoggingParameters() ? new Object[8] : null;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (!name.startsWith("execute")) {
+                if (parameters != null) {
+                    recordParameter(method, args);
+                }
+                return countRows(InstrumentedDataSource.invoke(statement, method, args));
+            }
+            String sql = preparedSql != null ? preparedSql
+                    : args != null && args.length > 0 && args[0] instanceof String text ? text : "batch";
+            Observation observation = observationRegistry == null || observationRegistry.getCurrentObservation() == null
+                    ? null
+                    : Observation.createNotStarted(OBSERVATION, observationRegistry)
+                            .contextualName(name)
+                            .highCardinalityKeyValue("db.statement", QueryCounter.shape(sql))
+                            .start();
+            Observation.Scope scope = observation == null ? null : observation.openScope();
+            long start = System.nanoTime();
+            try {
+                return countRows(InstrumentedDataSource.invoke(statement, method, args));
+            } catch (Throwable e) {
+                if (observation != null) {
+                    observation.error(e);
+                }
+                throw e;
+            } finally {
+                slowQueryLog.record(sql, System.nanoTime() - start, parameters, parameterCount);
+                if (observation != null) {
+                    scope.close();
+                    observation.stop();
+                }
+            }
+        }
+
+        /**
+         * Wraps a result set so that each row it moves to is added to the stats open on the current thread.
+         * Other results, and result sets read while no stats are open, are returned as they are.
+         */
+        private Object countRows(Object result) {
+            QueryStats stats = QueryCounter.current();
+            if (!(result instanceof ResultSet resultSet) || stats == null) {
+                return result;
+            }
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+                    (proxy, method, args) -> {
+                        Object moved = InstrumentedDataSource.invoke(resultSet, method, args);
+                        if (method.getName().equals("next") && Boolean.TRUE.equals(moved)) {
+                            stats.recordRows(1);
+                        }
+                        return moved;
+                    });
+        }
+
+        /**
+         * Keeps the value bound by a {@code PreparedStatement.setXxx(index, value, ...)} call.
+         * For a batch, the values of the last row are kept.
+         */
+        private void recordParameter(Method method, Object[] args) {
+            String name = method.getName();
+            if (name.equals("clearParameters")) {
+                Arrays.fill(parameters, 0, parameterCount, null);
+                parameterCount = 0;
+                return;
+            }
+            // Plain Statement setters, such as setFetchSize, take a single argument
+            if (!name.startsWith("set") || args == null || args.length < 2
+                    || !(args[0] instanceof Integer index) || index < 1) {
+                return;
+            }
+            if (index > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(index, parameters.length * 2));
+            }
+            parameters[index - 1] = name.equals("setNull") ? null : args[1];
+            parameterCount = Math.max(parameterCount, index);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+
+/**
+ * Jackson configuration shared by all JSON responses.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JacksonConfig {
+
+    /**
+     * Registers Blackbird, which replaces the reflective getter calls of the serializers with generated
+     * lambdas. Spring Boot adds every Module bean to the application ObjectMapper.
+     *
+     * @return the Blackbird module
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,78 @@
+package com.openclassrooms.mddapi.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Configuration of the JDBC instrumentation: the DataSource used by JPA is wrapped in an
+ * {@link InstrumentedDataSource}, which times every statement for the {@link SlowQueryLog} and,
+ * when tracing is on, traces it. The statistics per statement shape are served by the
+ * {@code sqlstats} actuator endpoint.
+ */
+@Configuration(proxyBeanMethods = false)
+public class JdbcInstrumentationConfig {
+
+    /**
+     * Creates the log of the slow statements.
+     *
+     * @param threshold The execution time from which a statement is logged.
+     * @param logParameters Whether the bind values of slow statements are logged.
+     * @param queueCapacity The maximum number of slow statements waiting to be logged.
+     * @param maxShapes The maximum number of statement shapes aggregated separately.
+     * @param meterRegistry The registry the slow statement metrics are bound to, if any.
+     * @return The SlowQueryLog.
+     */
+    @Bean
+    public SlowQueryLog slowQueryLog(@Value("${slow-query.threshold:200ms}") Duration threshold,
+            @Value("${slow-query.log-parameters:false}") boolean logParameters,
+            @Value("${slow-query.queue-capacity:1000}") int queueCapacity,
+            @Value("${slow-query.max-shapes:1000}") int maxShapes,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SlowQueryLog(threshold, logParameters, queueCapacity, maxShapes, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Creates the actuator endpoint serving the statement statistics.
+     *
+     * @param slowQueryLog The log aggregating the statements.
+     * @return The SqlStatsEndpoint.
+     */
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(SlowQueryLog slowQueryLog) {
+        return new SqlStatsEndpoint(slowQueryLog);
+    }
+
+    /**
+     * Wraps the DataSource used by JPA so that JDBC statements are timed, and traced when tracing is on.
+     *
+     * @param slowQueryLog The log the statement timings are reported to.
+     * @param observationRegistry The registry the statements are traced in.
+     * @param tracingEnabled Whether request tracing is on.
+     * @return The BeanPostProcessor wrapping the DataSource.
+     */
+    @Bean
+    static BeanPostProcessor instrumentedDataSourceWrapper(ObjectProvider<SlowQueryLog> slowQueryLog,
+            ObjectProvider<ObservationRegistry> observationRegistry,
+            @Value("${management.tracing.enabled:true}") boolean tracingEnabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!"dataSource".equals(beanName) || !(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                return new InstrumentedDataSource(dataSource, slowQueryLog.getObject(),
+                        tracingEnabled ? observationRegistry.getIfAvailable() : null);
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package com.openclassrooms.mddapi.config;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.aop.ObservedAspect;
+
+/**
+ * Configuration of the performance metrics scraped from {@code /actuator/prometheus}:
+ * <ul>
+ * <li>{@code http.server.requests}, tagged with the controller method serving the request</li>
+ * <li>{@value #SERVICE_OBSERVATION}, timing the public methods of the services annotated with {@code @Observed}</li>
+ * <li>{@code spring.data.repository.invocations}, timing each repository call, recorded by Spring Boot</li>
+ * <li>{@code hikaricp.connections.*}, the gauges and timers of every connection pool, tagged by pool</li>
+ * </ul>
+ * The histograms of the timers and the JVM GC and allocation metrics are set up in {@code application.properties}.
+ *
+ * <p>Controllers, mapped pages and JDBC statements are observed as well, but only for tracing: their timers
+ * would duplicate the request and repository timers, and are dropped.
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+    /**
+     * The name of the observation of service methods, recorded as a timer tagged by class and method.
+     */
+    public static final String SERVICE_OBSERVATION = "service.method";
+
+    /**
+     * The name of the observation of controller methods, only traced.
+     */
+    public static final String CONTROLLER_OBSERVATION = "controller.method";
+
+    /**
+     * The name of the observation of mapper calls, one per mapped page or entity, only traced.
+     */
+    public static final String MAPPER_OBSERVATION = "mapper.method";
+
+    private static final Set<String> OBJECT_METHODS = Set.of("equals", "hashCode", "toString", "canEqual");
+
+    /**
+     * Observes the methods of the beans annotated with {@code @Observed}, as a timer and a span.
+     * Object methods and field accessors, which Lombok generates on some services, are skipped.
+     *
+     * @param observationRegistry The registry the observations are reported to.
+     * @return The ObservedAspect.
+     */
+    @Bean
+    public ObservedAspect observedAspect(ObservationRegistry observationRegistry) {
+        return new ObservedAspect(observationRegistry, MetricsConfig::isAccessor);
+    }
+
+    /**
+     * Drops the timers of the observations that are only traced.
+     *
+     * @return The MeterFilter.
+     */
+    @Bean
+    public MeterFilter tracedOnlyObservationsFilter() {
+        return MeterFilter.deny(id -> id.getName().startsWith(CONTROLLER_OBSERVATION)
+                || id.getName().startsWith(MAPPER_OBSERVATION)
+                || id.getName().startsWith(InstrumentedDataSource.OBSERVATION));
+    }
+
+    /**
+     * Adds the controller method serving each request as the {@code handler} tag of {@code http.server.requests},
+     * so that endpoints sharing a path, such as the paged and streamed feeds, are told apart.
+     *
+     * @return The ServerRequestObservationConvention used by Spring MVC.
+     */
+    @Bean
+    public ServerRequestObservationConvention handlerTaggingObservationConvention() {
+        return new DefaultServerRequestObservationConvention() {
+            @Override
+            public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+                Object handler = context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE);
+                String name = handler instanceof HandlerMethod method
+                        ? method.getBeanType().getSimpleName() + "." + method.getMethod().getName()
+                        : "none";
+                return super.getLowCardinalityKeyValues(context).and(KeyValue.of("handler", name));
+            }
+        };
+    }
+
+    /**
+     * Binds the connection pools to the meter registry before they start, including the primary and
+     * replica pools of the routing DataSource, which Spring Boot does not see behind the routing proxy.
+     * This happens before initialization, while the pool is not yet wrapped by the InstrumentedDataSource.
+     *
+     * @param meterRegistry The registry the pool metrics are recorded in, if any.
+     * @return The BeanPostProcessor binding the pools.
+     */
+    @Bean
+    static BeanPostProcessor hikariMetricsBinder(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource
+                        && dataSource.getMetricRegistry() == null && dataSource.getMetricsTrackerFactory() == null) {
+                    meterRegistry.ifAvailable(registry ->
+                            dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Tells whether an observed method is an Object method or the getter or setter of a field.
+     *
+     * @param joinPoint the intercepted call
+     * @return true if the call is not observed
+     */
+    private static boolean isAccessor(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        String name = method.getName();
+        if (OBJECT_METHODS.contains(name)) {
+            return true;
+        }
+        if ((name.startsWith("get") || name.startsWith("set")) && name.length() > 3) {
+            String field = StringUtils.uncapitalize(name.substring(3));
+            return ReflectionUtils.findField(method.getDeclaringClass(), field) != null;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package com.openclassrooms.mddapi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Keeps a persistence context open for the whole web request, as {@code spring.jpa.open-in-view} would,
+ * except on the article stream.
+ *
+ * <p>An open persistence context holds on to the connection it first used until the request ends, which
+ * for the server-sent events of {@code /articles/stream} is the lifetime of the stream. The stream
+ * endpoint therefore runs without one, and each of its lookups returns its connection to the pool
+ * as soon as it completes. Spring Boot's own interceptor is disabled with {@code spring.jpa.open-in-view=false}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class OpenEntityManagerInViewConfig {
+
+    /**
+     * The paths served without an open persistence context.
+     */
+    static final String[] EXCLUDED_PATHS = { "/articles/stream" };
+
+    /**
+     * Creates the interceptor binding an EntityManager to the request thread; it looks up the
+     * application EntityManagerFactory in the bean factory.
+     *
+     * @return the interceptor
+     */
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        return new OpenEntityManagerInViewInterceptor();
+    }
+
+    /**
+     * Registers the interceptor on every path except the excluded ones.
+     *
+     * @param interceptor the interceptor binding an EntityManager to the request thread
+     * @return the MVC configurer registering the interceptor
+     */
+    @Bean
+    public WebMvcConfigurer openEntityManagerInViewConfigurer(OpenEntityManagerInViewInterceptor interceptor) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addWebRequestInterceptor(interceptor).excludePathPatterns(EXCLUDED_PATHS);
+            }
+        };
+    }
+}
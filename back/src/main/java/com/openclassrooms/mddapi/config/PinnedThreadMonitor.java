@@ -0,0 +1,89 @@
+package com.openclassrooms.mddapi.config;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+/**
+ * Reports virtual threads that stay pinned to their carrier thread, typically because they block
+ * inside a {@code synchronized} block or a native frame.
+ * It listens to the JFR {@code jdk.VirtualThreadPinned} event in-process, logs the offending stack
+ * and counts the occurrences in the {@code virtual.threads.pinned} metric.
+ */
+public class PinnedThreadMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int REPORTED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final Counter pinnedCounter;
+    private RecordingStream recordingStream;
+
+    /**
+     * Constructs a new PinnedThreadMonitor.
+     *
+     * @param threshold the minimum pinning duration reported
+     * @param meterRegistry the registry the pinning counter is bound to, or null
+     */
+    public PinnedThreadMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.threshold = threshold;
+        this.pinnedCounter = meterRegistry == null ? null : Counter.builder("virtual.threads.pinned")
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts listening to pinning events.
+     */
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::report);
+        recordingStream.startAsync();
+        logger.info("Reporting virtual threads pinned for more than {} ms", threshold.toMillis());
+    }
+
+    /**
+     * Stops listening to pinning events.
+     */
+    public void stop() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+
+    /**
+     * Logs a pinning event with the top of its stack.
+     *
+     * @param event the pinning event
+     */
+    private void report(RecordedEvent event) {
+        if (pinnedCounter != null) {
+            pinnedCounter.increment();
+        }
+        String stack = event.getStackTrace() == null ? "unknown" : event.getStackTrace().getFrames().stream()
+                .limit(REPORTED_FRAMES)
+                .map(PinnedThreadMonitor::describe)
+                .collect(Collectors.joining("\n\tat ", "\n\tat ", ""));
+        logger.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), stack);
+    }
+
+    /**
+     * Formats a stack frame like a regular stack trace element.
+     *
+     * @param frame the recorded frame
+     * @return the formatted frame
+     */
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+    }
+}
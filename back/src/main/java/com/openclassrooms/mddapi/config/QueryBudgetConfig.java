@@ -0,0 +1,69 @@
+package com.openclassrooms.mddapi.config;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration of the per-request SQL budget: Hibernate reports the statements and statement time of each
+ * request, and the {@link InstrumentedDataSource} the rows they read, to {@link QueryBudgetFilter}, which
+ * records them as metrics and warns about the requests running more statements than their endpoint's budget,
+ * typically because of an N+1 pattern. Hibernate statistics are left to {@code second-level-cache.statistics.enabled}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "query-budget.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryBudgetConfig {
+
+    /**
+     * Plugs the statement counter and the statement timer into Hibernate.
+     *
+     * @return The HibernatePropertiesCustomizer.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer queryCounting() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, new QueryCounter());
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, QueryTimingListener.class.getName());
+        };
+    }
+
+    /**
+     * Registers the filter in front of Spring Security, so that the statements run to authenticate
+     * the request are counted too.
+     *
+     * @param defaultBudget The maximum number of statements of a request.
+     * @param endpointBudgets The budgets of specific endpoints, as {@code METHOD /path/{pattern}=max} entries.
+     * @param meterRegistry The registry the metrics are recorded in, if any.
+     * @return The FilterRegistrationBean of the QueryBudgetFilter.
+     */
+    @Bean
+    public FilterRegistrationBean<QueryBudgetFilter> queryBudgetFilter(
+            @Value("${query-budget.max-statements:10}") int defaultBudget,
+            @Value("${query-budget.endpoints:}") List<String> endpointBudgets,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        Map<String, Integer> budgets = new HashMap<>();
+        for (String entry : endpointBudgets) {
+            int separator = entry.lastIndexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid query budget '" + entry + "', expected METHOD /path=max");
+            }
+            budgets.put(entry.substring(0, separator).trim(), Integer.parseInt(entry.substring(separator + 1).trim()));
+        }
+        FilterRegistrationBean<QueryBudgetFilter> registration = new FilterRegistrationBean<>(
+                new QueryBudgetFilter(defaultBudget, budgets, meterRegistry.getIfAvailable()));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,108 @@
+package com.openclassrooms.mddapi.config;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Counts the SQL statements, rows and statement time of each request, records them as metrics tagged
+ * by endpoint and logs a warning with the most repeated statement shape when a request runs more
+ * statements than the budget of its endpoint.
+ *
+ * <p>The stats of the request are left in the {@value #STATS_ATTRIBUTE} request attribute, where tests read them.
+ */
+public class QueryBudgetFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBudgetFilter.class);
+
+    /**
+     * The request attribute holding the {@link QueryStats} of the request once it has been served.
+     */
+    public static final String STATS_ATTRIBUTE = QueryBudgetFilter.class.getName() + ".STATS";
+
+    private static final String UNKNOWN_ENDPOINT = "UNKNOWN";
+
+    private final int defaultBudget;
+    private final Map<String, Integer> endpointBudgets;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs a new QueryBudgetFilter.
+     *
+     * @param defaultBudget the maximum number of statements of a request
+     * @param endpointBudgets the maximum number of statements of the endpoints with their own budget,
+     *        keyed by method and path pattern, such as {@code GET /articles/{id}}
+     * @param meterRegistry the registry the metrics are recorded in, or null
+     */
+    public QueryBudgetFilter(int defaultBudget, Map<String, Integer> endpointBudgets, MeterRegistry meterRegistry) {
+        this.defaultBudget = defaultBudget;
+        this.endpointBudgets = Map.copyOf(endpointBudgets);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryStats previous = QueryCounter.current();
+        QueryStats stats = QueryCounter.begin();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.end(previous);
+            request.setAttribute(STATS_ATTRIBUTE, stats);
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern == null ? UNKNOWN_ENDPOINT : pattern.toString();
+            record(request.getMethod(), uri, stats);
+        }
+    }
+
+    /**
+     * Records the stats of a request and checks them against the budget of its endpoint.
+     *
+     * @param method the HTTP method of the request
+     * @param uri the path pattern of the endpoint
+     * @param stats the stats of the request
+     */
+    private void record(String method, String uri, QueryStats stats) {
+        if (meterRegistry != null) {
+            DistributionSummary.builder("http.server.requests.queries")
+                    .description("SQL statements run per request")
+                    .baseUnit("statements")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(stats.getQueries());
+            DistributionSummary.builder("http.server.requests.query.rows")
+                    .description("Rows returned by the queries of a request")
+                    .baseUnit("rows")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(stats.getRows());
+            Timer.builder("http.server.requests.query.time")
+                    .description("Time spent executing the SQL statements of a request")
+                    .tags("method", method, "uri", uri)
+                    .register(meterRegistry)
+                    .record(stats.getTimeNanos(), TimeUnit.NANOSECONDS);
+        }
+        String endpoint = method + " " + uri;
+        int budget = endpointBudgets.getOrDefault(endpoint, defaultBudget);
+        if (stats.getQueries() > budget) {
+            Map.Entry<String, Integer> repeated = stats.getMostRepeatedShape();
+            logger.warn("{} ran {} SQL statements, over its budget of {} ({} rows, {} ms); most repeated, {} times: {}",
+                    endpoint, stats.getQueries(), budget, stats.getRows(), TimeUnit.NANOSECONDS.toMillis(stats.getTimeNanos()),
+                    repeated.getValue(), repeated.getKey());
+        }
+    }
+}
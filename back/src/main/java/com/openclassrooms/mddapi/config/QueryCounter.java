@@ -0,0 +1,87 @@
+package com.openclassrooms.mddapi.config;
+
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread while a {@link QueryStats} is open,
+ * grouping them by shape: the statement with its literals and {@code IN} lists collapsed, so that the
+ * same query run for different IDs is counted as one shape.
+ *
+ * <p>Statements run by other threads, such as the ones writing streamed responses, are not counted.
+ */
+public class QueryCounter implements StatementInspector {
+
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Hibernate prepares the same few hundred SQL strings over and over, so their shapes are computed once
+    private static final Cache<String, String> SHAPES = Caffeine.newBuilder().maximumSize(10_000).build();
+
+    /**
+     * Starts counting the statements of the current thread.
+     *
+     * @return the stats of the current thread, replacing any open ones
+     */
+    public static QueryStats begin() {
+        QueryStats stats = new QueryStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    /**
+     * Stops counting the statements of the current thread.
+     *
+     * @param previous the stats to restore, or null
+     */
+    public static void end(QueryStats previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Returns the stats open on the current thread.
+     *
+     * @return the current stats, or null when statements are not being counted
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Reduces a statement to its shape.
+     *
+     * @param sql the SQL statement
+     * @return the statement with its literals replaced by {@code ?} and its {@code IN} lists by {@code in (...)}
+     */
+    public static String shape(String sql) {
+        return SHAPES.get(sql, QueryCounter::normalize);
+    }
+
+    private static String normalize(String sql) {
+        String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+        shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+        shape = IN_LIST.matcher(shape).replaceAll("in (...)");
+        return WHITESPACE.matcher(shape).replaceAll(" ").trim();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        QueryStats stats = CURRENT.get();
+        if (stats != null) {
+            stats.recordStatement(shape(sql));
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,82 @@
+package com.openclassrooms.mddapi.config;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The SQL statements run while serving one request: how many, the rows read from their results, the time
+ * spent executing them and how many times each statement shape was run.
+ * It is only ever updated by the thread serving the request.
+ */
+public class QueryStats {
+
+    private static final int MAX_SHAPES = 100;
+
+    private final Map<String, Integer> shapes = new LinkedHashMap<>();
+    private int queries;
+    private long rows;
+    private long timeNanos;
+
+    void recordStatement(String shape) {
+        queries++;
+        if (shapes.size() < MAX_SHAPES || shapes.containsKey(shape)) {
+            shapes.merge(shape, 1, Integer::sum);
+        }
+    }
+
+    void recordRows(long count) {
+        rows += count;
+    }
+
+    void recordTime(long nanos) {
+        timeNanos += nanos;
+    }
+
+    /**
+     * Returns the number of statements run.
+     *
+     * @return the statement count
+     */
+    public int getQueries() {
+        return queries;
+    }
+
+    /**
+     * Returns the number of rows returned by queries.
+     *
+     * @return the row count
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns the time spent executing statements.
+     *
+     * @return the time in nanoseconds
+     */
+    public long getTimeNanos() {
+        return timeNanos;
+    }
+
+    /**
+     * Returns how many times each statement shape was run, in order of first execution.
+     *
+     * @return the execution count of each shape
+     */
+    public Map<String, Integer> getShapes() {
+        return Collections.unmodifiableMap(shapes);
+    }
+
+    /**
+     * Returns the shape run the most times, the signature of an N+1 pattern when it ran many times.
+     *
+     * @return the most repeated shape and its count, or null if no statement ran
+     */
+    public Map.Entry<String, Integer> getMostRepeatedShape() {
+        return shapes.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+}
@@ -0,0 +1,40 @@
+package com.openclassrooms.mddapi.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Adds the time each JDBC statement or batch takes to execute to the {@link QueryStats} open on the
+ * current thread. Hibernate creates one listener per session, from the {@code hibernate.session.events.auto} setting.
+ */
+public class QueryTimingListener implements SessionEventListener {
+
+    private long statementStart;
+    private long batchStart;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        statementStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        record(statementStart);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        batchStart = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        record(batchStart);
+    }
+
+    private static void record(long start) {
+        QueryStats stats = QueryCounter.current();
+        if (stats != null && start != 0) {
+            stats.recordTime(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.openclassrooms.mddapi.config;
+
+import java.time.Duration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers which users committed a write recently, so that their reads keep going to the primary
+ * database until the replica has had time to catch up.
+ * Entries expire on their own once the read-your-writes window has elapsed.
+ */
+public class ReadYourWritesTracker {
+
+    private final Cache<String, Boolean> recentWriters;
+
+    /**
+     * Constructs a new ReadYourWritesTracker.
+     *
+     * @param window how long after a write the user's reads stay on the primary
+     * @param maxUsers the maximum number of users tracked at once
+     */
+    public ReadYourWritesTracker(Duration window, long maxUsers) {
+        this.recentWriters = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(maxUsers)
+                .build();
+    }
+
+    /**
+     * Records that a user has just committed a write, restarting their window.
+     *
+     * @param subject the name of the authenticated user
+     */
+    public void recordWrite(String subject) {
+        recentWriters.put(subject, Boolean.TRUE);
+    }
+
+    /**
+     * Checks whether a user committed a write within the window.
+     *
+     * @param subject the name of the authenticated user
+     * @return true if the user's reads must go to the primary
+     */
+    public boolean hasRecentWrite(String subject) {
+        return recentWriters.getIfPresent(subject) != null;
+    }
+}
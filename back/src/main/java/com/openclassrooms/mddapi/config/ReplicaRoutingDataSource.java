@@ -0,0 +1,106 @@
+package com.openclassrooms.mddapi.config;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * DataSource sending read-only transactions to the replica and everything else to the primary.
+ * A user who committed a write within the read-your-writes window keeps reading from the primary,
+ * so their own changes are visible right away despite replication lag. A read-only transaction can also
+ * ask for the primary with {@link #readFromPrimary()}, when the content it reads must be up to date.
+ *
+ * <p>It must be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * the read-only flag of a transaction is only known once it has begun, after Hibernate asked for a connection.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * The databases a connection can be routed to.
+     */
+    public enum Target {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final ReadYourWritesTracker readYourWritesTracker;
+
+    /**
+     * Constructs a new ReplicaRoutingDataSource.
+     *
+     * @param primary the DataSource of the primary database, receiving writes
+     * @param replica the DataSource of the replica, receiving read-only transactions
+     * @param readYourWritesTracker the tracker of users who wrote recently
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReadYourWritesTracker readYourWritesTracker) {
+        this.readYourWritesTracker = readYourWritesTracker;
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Chooses the database of the connection being opened.
+     * Connections of read-write transactions go to the primary and open a read-your-writes window
+     * for the current user once the transaction commits.
+     *
+     * @return the target of the connection
+     */
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String subject = currentSubject();
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (Boolean.TRUE.equals(PRIMARY_READS.get())) {
+                return Target.PRIMARY;
+            }
+            if (subject != null && readYourWritesTracker.hasRecentWrite(subject)) {
+                return Target.PRIMARY;
+            }
+            return Target.REPLICA;
+        }
+        if (subject != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    readYourWritesTracker.recordWrite(subject);
+                }
+            });
+        }
+        return Target.PRIMARY;
+    }
+
+    /**
+     * Sends the reads of the current read-only transaction to the primary, until the transaction completes.
+     * Must be called before the transaction's first statement; has no effect outside a transaction.
+     */
+    public static void readFromPrimary() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        PRIMARY_READS.set(Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                PRIMARY_READS.remove();
+            }
+        });
+    }
+
+    /**
+     * Retrieves the name of the authenticated user of the current request, if any.
+     *
+     * @return the user name, or null outside an authenticated request
+     */
+    private static String currentSubject() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
+    }
+}
@@ -0,0 +1,188 @@
+package com.openclassrooms.mddapi.config;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.opentelemetry.exporter.logging.otlp.OtlpJsonLoggingSpanExporter;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Writes the finished spans to a local file in the OTLP-JSON file format: one
+ * {@code ExportTraceServiceRequest} per line, as the OpenTelemetry Collector's file receiver and
+ * {@code otel-cli} read them.
+ *
+ * <p>The spans are serialized by the SDK's {@link OtlpJsonLoggingSpanExporter}, which logs one
+ * {@code ResourceSpans} object per record to its {@code java.util.logging} logger. A handler on that logger,
+ * cut off from the application logs, wraps each object into a request and appends it to the file.
+ * When the file reaches its maximum size it is renamed {@code <name>.1}, the previous ones shifting
+ * to {@code <name>.2} and so on, and the oldest beyond the maximum count is deleted.
+ *
+ * <p>That logger is global to the JVM, so only the latest exporter writes from it: creating one detaches
+ * the handler of any previous exporter, which would otherwise write every span a second time.
+ */
+public class RollingOtlpJsonSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollingOtlpJsonSpanExporter.class);
+
+    private static final Object HANDLER_LOCK = new Object();
+
+    // Held so that the handler is not lost if java.util.logging drops the logger while no exporter refers to it
+    private final java.util.logging.Logger exportLogger = java.util.logging.Logger.getLogger(OtlpJsonLoggingSpanExporter.class.getName());
+    private final RollingFileHandler handler;
+    private final SpanExporter delegate;
+
+    /**
+     * Constructs a new RollingOtlpJsonSpanExporter.
+     *
+     * @param file the file the spans are appended to
+     * @param maxFileSize the size in bytes after which the file is rolled
+     * @param maxFiles the number of rolled files kept next to the current one
+     */
+    public RollingOtlpJsonSpanExporter(Path file, long maxFileSize, int maxFiles) {
+        this.handler = new RollingFileHandler(file, maxFileSize, maxFiles);
+        synchronized (HANDLER_LOCK) {
+            for (Handler previous : exportLogger.getHandlers()) {
+                if (previous instanceof RollingFileHandler) {
+                    exportLogger.removeHandler(previous);
+                    previous.close();
+                }
+            }
+            exportLogger.setUseParentHandlers(false);
+            exportLogger.setLevel(Level.INFO);
+            exportLogger.addHandler(handler);
+        }
+        this.delegate = OtlpJsonLoggingSpanExporter.create();
+    }
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> spans) {
+        return delegate.export(spans);
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        handler.flush();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        delegate.shutdown();
+        synchronized (HANDLER_LOCK) {
+            exportLogger.removeHandler(handler);
+        }
+        handler.close();
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Appends each logged {@code ResourceSpans} object to the trace file as a one-line request, rolling the file by size.
+     */
+    private static final class RollingFileHandler extends Handler {
+        private static final byte[] PREFIX = "{\"resourceSpans\":[".getBytes(StandardCharsets.UTF_8);
+        private static final byte[] SUFFIX = "]}\n".getBytes(StandardCharsets.UTF_8);
+
+        private final Path file;
+        private final long maxFileSize;
+        private final int maxFiles;
+        private OutputStream output;
+        private long size;
+
+        private RollingFileHandler(Path file, long maxFileSize, int maxFiles) {
+            this.file = file;
+            this.maxFileSize = maxFileSize;
+            this.maxFiles = maxFiles;
+        }
+
+        @Override
+        public synchronized void publish(LogRecord record) {
+            if (!isLoggable(record)) {
+                return;
+            }
+            byte[] resourceSpans = record.getMessage().getBytes(StandardCharsets.UTF_8);
+            try {
+                if (output == null) {
+                    open();
+                }
+                output.write(PREFIX);
+                output.write(resourceSpans);
+                output.write(SUFFIX);
+                size += PREFIX.length + resourceSpans.length + SUFFIX.length;
+                if (size >= maxFileSize) {
+                    roll();
+                }
+            } catch (IOException e) {
+                logger.warn("Could not write spans to {}: {}", file, e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            try {
+                if (output != null) {
+                    output.flush();
+                }
+            } catch (IOException e) {
+                logger.warn("Could not flush the spans to {}: {}", file, e.getMessage());
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            try {
+                if (output != null) {
+                    output.close();
+                    output = null;
+                }
+            } catch (IOException e) {
+                logger.warn("Could not close {}: {}", file, e.getMessage());
+            }
+        }
+
+        private void open() throws IOException {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            output = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            size = Files.size(file);
+        }
+
+        /**
+         * Closes the current file, shifts the rolled ones and starts a new file.
+         */
+        private void roll() throws IOException {
+            output.close();
+            output = null;
+            Files.deleteIfExists(rolled(maxFiles));
+            for (int index = maxFiles - 1; index >= 1; index--) {
+                if (Files.exists(rolled(index))) {
+                    Files.move(rolled(index), rolled(index + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            if (maxFiles > 0) {
+                Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+            } else {
+                Files.delete(file);
+            }
+            open();
+        }
+
+        private Path rolled(int index) {
+            return file.resolveSibling(file.getFileName() + "." + index);
+        }
+    }
+}
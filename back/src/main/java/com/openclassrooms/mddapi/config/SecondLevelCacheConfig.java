@@ -0,0 +1,110 @@
+package com.openclassrooms.mddapi.config;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Configuration of the Hibernate second-level cache, backed by in-process Caffeine caches through JCache.
+ * Each region is bounded by {@code second-level-cache.<region>.max-size} and {@code second-level-cache.<region>.ttl};
+ * a region used by an entity but missing here makes the startup fail rather than fall back to an unbounded cache.
+ *
+ * <p>The cache is local to each instance: writes made through Hibernate update it, bulk and native statements
+ * invalidate the regions of the tables they declare, and changes made by other instances are only seen once
+ * the entries expire, hence the short TTLs of the user regions.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "second-level-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class SecondLevelCacheConfig {
+
+    /**
+     * The region caching Theme entities.
+     */
+    public static final String THEMES_REGION = "themes";
+
+    /**
+     * The region caching User entities.
+     */
+    public static final String USERS_REGION = "users";
+
+    /**
+     * The region caching the subscribed themes of each user.
+     */
+    public static final String SUBSCRIPTIONS_REGION = "subscriptions";
+
+    private static final String[] REGIONS = {THEMES_REGION, USERS_REGION, SUBSCRIPTIONS_REGION};
+
+    /**
+     * Creates the JCache manager holding one Caffeine cache per region.
+     *
+     * @param environment The environment holding the size and TTL of each region.
+     * @return The CacheManager used by Hibernate.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(Environment environment) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        for (String region : REGIONS) {
+            long maxSize = environment.getProperty("second-level-cache." + region + ".max-size", Long.class, 10_000L);
+            Duration ttl = environment.getProperty("second-level-cache." + region + ".ttl", Duration.class, Duration.ofMinutes(10));
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            if (cacheManager.getCache(region) == null) {
+                cacheManager.createCache(region, configuration);
+            }
+        }
+        return cacheManager;
+    }
+
+    /**
+     * Plugs the cache manager into Hibernate and turns statistics on if requested.
+     *
+     * @param secondLevelCacheManager The JCache manager holding the regions.
+     * @param statisticsEnabled Whether Hibernate collects the statistics exposed as metrics.
+     * @return The HibernatePropertiesCustomizer.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager secondLevelCacheManager,
+            @Value("${second-level-cache.statistics.enabled:true}") boolean statisticsEnabled) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statisticsEnabled);
+        };
+    }
+
+    /**
+     * Exposes the Hibernate statistics and the hit ratio of each region as metrics.
+     *
+     * @param entityManagerFactory The entity manager factory whose statistics are read.
+     * @param meterRegistry The registry the metrics are bound to, if any.
+     * @return The SecondLevelCacheMetrics bean.
+     */
+    @Bean
+    public SecondLevelCacheMetrics secondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new SecondLevelCacheMetrics(entityManagerFactory, meterRegistry.getIfAvailable(), REGIONS);
+    }
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.mddapi.config;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.HibernateMetrics;
+import org.hibernate.stat.Statistics;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Binds the Hibernate statistics to Micrometer, with a {@code hibernate.second.level.cache.hit.ratio}
+ * gauge per region on top of the standard {@code hibernate.*} meters.
+ * The values stay at zero unless {@code second-level-cache.statistics.enabled} is true.
+ */
+public class SecondLevelCacheMetrics {
+
+    private final Statistics statistics;
+
+    /**
+     * Constructs a new SecondLevelCacheMetrics and registers its meters.
+     *
+     * @param entityManagerFactory the entity manager factory whose statistics are read
+     * @param meterRegistry the registry the metrics are bound to, or null
+     * @param regions the names of the second-level cache regions
+     */
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry, String... regions) {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.statistics = sessionFactory.getStatistics();
+        if (meterRegistry == null) {
+            return;
+        }
+        new HibernateMetrics(sessionFactory, "entityManagerFactory", Tags.empty()).bindTo(meterRegistry);
+        for (String region : regions) {
+            Gauge.builder("hibernate.second.level.cache.hit.ratio", this, metrics -> metrics.getHitRatio(region))
+                    .description("Share of the second-level cache lookups of the region answered from the cache")
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Computes the hit ratio of a region since the startup.
+     *
+     * @param region the name of the region
+     * @return the ratio of hits to lookups, 0 when the region was never read
+     */
+    public double getHitRatio(String region) {
+        CacheRegionStatistics regionStatistics = statistics.getDomainDataRegionStatistics(region);
+        if (regionStatistics == null) {
+            return 0;
+        }
+        long lookups = regionStatistics.getHitCount() + regionStatistics.getMissCount();
+        return lookups == 0 ? 0 : (double) regionStatistics.getHitCount() / lookups;
+    }
+}
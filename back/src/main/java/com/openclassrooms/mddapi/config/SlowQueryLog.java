@@ -0,0 +1,302 @@
+package com.openclassrooms.mddapi.config;
+
+import java.lang.StackWalker.StackFrame;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.openclassrooms.mddapi.dtos.SqlShapeStatsDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Aggregates the timings of the JDBC statements reported by the {@link InstrumentedDataSource} per shape,
+ * and logs the statements slower than a threshold with the application method that ran them, preferably
+ * a service method. Their bind values are only logged when enabled, since they may hold personal data.
+ *
+ * <p>Request threads only update counters and, for slow statements, find the calling method and queue
+ * an entry; a single writer thread formats and logs the entries. When the queue is full the entry is
+ * dropped and counted in the {@code sql.slow.dropped} metric.
+ */
+public class SlowQueryLog {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    /**
+     * The shape under which statements are aggregated once the maximum number of shapes is reached.
+     */
+    public static final String OTHER_SHAPES = "(other)";
+
+    private static final String APPLICATION_PACKAGE = "com.openclassrooms.mddapi.";
+    private static final String SERVICES_PACKAGE = APPLICATION_PACKAGE + "services.";
+    private static final String CONFIG_PACKAGE = APPLICATION_PACKAGE + "config.";
+    private static final int MAX_CALLER_DEPTH = 200;
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private final long thresholdNanos;
+    private final boolean logParameters;
+    private final int maxShapes;
+    private final ConcurrentHashMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final BlockingQueue<SlowStatement> queue;
+    private final AtomicLong droppedSinceLastLog = new AtomicLong();
+    private final Thread writer;
+    private final Counter slowCounter;
+    private final Counter droppedCounter;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a new SlowQueryLog and starts its writer thread.
+     *
+     * @param threshold the execution time from which a statement is logged
+     * @param logParameters whether the bind values of slow statements are logged
+     * @param queueCapacity the maximum number of slow statements waiting to be logged
+     * @param maxShapes the maximum number of shapes aggregated separately
+     * @param registry the registry the slow statement metrics are bound to, or null
+     */
+    public SlowQueryLog(Duration threshold, boolean logParameters, int queueCapacity, int maxShapes,
+            MeterRegistry registry) {
+        this.thresholdNanos = threshold.toNanos();
+        this.logParameters = logParameters;
+        this.maxShapes = maxShapes;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.slowCounter = registry == null ? null : Counter.builder("sql.slow")
+                .description("JDBC statements slower than the slow query threshold")
+                .register(registry);
+        this.droppedCounter = registry == null ? null : Counter.builder("sql.slow.dropped")
+                .description("Slow JDBC statements left out of the log because its queue was full")
+                .register(registry);
+        if (registry != null) {
+            Gauge.builder("sql.slow.queue.size", queue, BlockingQueue::size)
+                    .description("Slow JDBC statements waiting to be logged")
+                    .register(registry);
+        }
+        this.writer = new Thread(this::write, "slow-query-log");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Tells whether the bind values of slow statements are logged, and so must be kept by the statements.
+     *
+     * @return true if the bind values are logged
+     */
+    public boolean isLoggingParameters() {
+        return logParameters;
+    }
+
+    /**
+     * Records the execution of a statement, queueing it for the log when it is slow.
+     *
+     * @param sql the SQL of the statement
+     * @param nanos the execution time, in nanoseconds
+     * @param parameters the values bound to the statement by index, from 1, or null
+     * @param parameterCount the number of bound values
+     */
+    public void record(String sql, long nanos, Object[] parameters, int parameterCount) {
+        String shape = QueryCounter.shape(sql);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            stats = shapes.computeIfAbsent(shapes.size() < maxShapes ? shape : OTHER_SHAPES, ShapeStats::new);
+        }
+        boolean slow = nanos >= thresholdNanos;
+        stats.record(nanos, slow);
+        if (!slow) {
+            return;
+        }
+        if (slowCounter != null) {
+            slowCounter.increment();
+        }
+        SlowStatement statement = new SlowStatement(sql, nanos,
+                parameters == null ? null : Arrays.copyOf(parameters, parameterCount),
+                caller(), Thread.currentThread().getName());
+        if (!queue.offer(statement)) {
+            droppedSinceLastLog.incrementAndGet();
+            if (droppedCounter != null) {
+                droppedCounter.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the statement shapes, the ones taking the most time in total first.
+     *
+     * @return the statistics of each shape
+     */
+    public List<SqlShapeStatsDTO> getStatistics() {
+        return shapes.values().stream()
+                .map(ShapeStats::toDTO)
+                .sorted(Comparator.comparingDouble(SqlShapeStatsDTO::getTotalMillis).reversed())
+                .toList();
+    }
+
+    /**
+     * Clears the statistics of the statement shapes.
+     */
+    public void reset() {
+        shapes.clear();
+    }
+
+    /**
+     * Stops the writer once the queued statements have been logged.
+     *
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    /**
+     * Logs the queued slow statements until the application shuts down.
+     */
+    private void write() {
+        while (running || !queue.isEmpty()) {
+            try {
+                SlowStatement statement = queue.poll(1, TimeUnit.SECONDS);
+                long dropped = droppedSinceLastLog.getAndSet(0);
+                if (dropped > 0) {
+                    logger.warn("{} slow SQL statements were not logged because the queue was full", dropped);
+                }
+                if (statement == null) {
+                    continue;
+                }
+                if (statement.parameters == null) {
+                    logger.warn("Slow SQL statement took {} ms in {} on {}: {}",
+                            statement.nanos / 1_000_000, statement.caller, statement.thread, statement.sql);
+                } else {
+                    logger.warn("Slow SQL statement took {} ms in {} on {}: {} with parameters {}",
+                            statement.nanos / 1_000_000, statement.caller, statement.thread, statement.sql,
+                            format(statement.parameters));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unable to log a slow SQL statement", e);
+            }
+        }
+    }
+
+    /**
+     * Finds the application method running the current statement: the innermost service method,
+     * otherwise the innermost application method outside of this package.
+     */
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> {
+            String application = null;
+            for (Iterator<StackFrame> iterator = frames.limit(MAX_CALLER_DEPTH).iterator(); iterator.hasNext();) {
+                StackFrame frame = iterator.next();
+                String className = frame.getClassName();
+                if (!className.startsWith(APPLICATION_PACKAGE) || className.startsWith(CONFIG_PACKAGE)
+                        || className.contains("$$")) {
+                    continue;
+                }
+                String location = className.substring(APPLICATION_PACKAGE.length()) + "." + frame.getMethodName()
+                        + ":" + frame.getLineNumber();
+                if (className.startsWith(SERVICES_PACKAGE)) {
+                    return location;
+                }
+                if (application == null) {
+                    application = location;
+                }
+            }
+            return application != null ? application : "unknown";
+        });
+    }
+
+    /**
+     * Formats bind values, shortening long texts and leaving binary values out.
+     */
+    private static String format(Object[] parameters) {
+        StringBuilder text = new StringBuilder("[");
+        for (int i = 0; i < parameters.length; i++) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            Object value = parameters[i];
+            if (value instanceof byte[] bytes) {
+                text.append('<').append(bytes.length).append(" bytes>");
+            } else if (value instanceof CharSequence sequence) {
+                String string = sequence.toString();
+                text.append('\'')
+                        .append(string.length() > MAX_PARAMETER_LENGTH ? string.substring(0, MAX_PARAMETER_LENGTH) + "..." : string)
+                        .append('\'');
+            } else {
+                text.append(value);
+            }
+        }
+        return text.append(']').toString();
+    }
+
+    /**
+     * A slow statement waiting to be logged.
+     */
+    private static final class SlowStatement {
+        private final String sql;
+        private final long nanos;
+        private final Object[] parameters;
+        private final String caller;
+        private final String thread;
+
+        private SlowStatement(String sql, long nanos, Object[] parameters, String caller, String thread) {
+            this.sql = sql;
+            this.nanos = nanos;
+            this.parameters = parameters;
+            this.caller = caller;
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * The execution counters of one statement shape, updated without locking.
+     */
+    private static final class ShapeStats {
+        private final String shape;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder slowCount = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private ShapeStats(String shape) {
+            this.shape = shape;
+        }
+
+        private void record(long nanos, boolean slow) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            if (slow) {
+                slowCount.increment();
+            }
+        }
+
+        private SqlShapeStatsDTO toDTO() {
+            long executions = count.sum();
+            double totalMillis = totalNanos.sum() / 1_000_000.0;
+            return SqlShapeStatsDTO.builder()
+                    .shape(shape)
+                    .count(executions)
+                    .slowCount(slowCount.sum())
+                    .totalMillis(totalMillis)
+                    .meanMillis(executions == 0 ? 0 : totalMillis / executions)
+                    .maxMillis(maxNanos.get() / 1_000_000.0)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.mddapi.config;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import com.openclassrooms.mddapi.dtos.SqlShapeStatsDTO;
+
+/**
+ * Actuator endpoint exposing the statement statistics of the {@link SlowQueryLog} at
+ * {@code /actuator/sqlstats}. A {@code DELETE} on the endpoint resets them, for instance before a load test.
+ */
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+
+    /**
+     * Constructs a new SqlStatsEndpoint.
+     *
+     * @param slowQueryLog the log aggregating the statements
+     */
+    public SqlStatsEndpoint(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    /**
+     * Returns the statistics of each statement shape, the ones taking the most time in total first.
+     *
+     * @return the statistics of the statement shapes
+     */
+    @ReadOperation
+    public List<SqlShapeStatsDTO> statistics() {
+        return slowQueryLog.getStatistics();
+    }
+
+    /**
+     * Clears the statistics of the statement shapes.
+     */
+    @DeleteOperation
+    public void reset() {
+        slowQueryLog.reset();
+    }
+}
@@ -0,0 +1,50 @@
+package com.openclassrooms.mddapi.config;
+
+import java.nio.file.Path;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.util.unit.DataSize;
+
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/**
+ * Configuration of request tracing. Spring Boot creates the OpenTelemetry tracer and a span for each
+ * HTTP request; the {@code @Observed} controllers and services add a span per method call, the MappingObserver
+ * a span per mapped page or entity, and the InstrumentedDataSource a span per JDBC statement. Traces are written to a rolling local file in
+ * the OTLP-JSON format, and sampled with {@code management.tracing.sampling.probability}.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "management.tracing.enabled", havingValue = "true", matchIfMissing = true)
+public class TracingConfig {
+
+    /**
+     * Creates the exporter writing the sampled spans to the local trace file.
+     *
+     * @param path The file the spans are appended to.
+     * @param maxFileSize The size after which the file is rolled.
+     * @param maxFiles The number of rolled files kept.
+     * @return The SpanExporter picked up by Spring Boot.
+     */
+    @Bean
+    public SpanExporter otlpJsonFileSpanExporter(@Value("${tracing.export.path:data/traces/traces.jsonl}") Path path,
+            @Value("${tracing.export.max-file-size:20MB}") DataSize maxFileSize,
+            @Value("${tracing.export.max-files:5}") int maxFiles) {
+        return new RollingOtlpJsonSpanExporter(path, maxFileSize.toBytes(), maxFiles);
+    }
+
+    /**
+     * Carries the trace context of the caller into {@code @Async} methods and other tasks of the
+     * application executor, which Spring Boot decorates with this bean.
+     *
+     * @return The TaskDecorator.
+     */
+    @Bean
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.mddapi.config;
+
+import java.time.Duration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Configuration applied when virtual threads are enabled with {@code spring.threads.virtual.enabled=true}.
+ * Spring Boot then runs Tomcat requests, {@code @Async} methods and scheduled tasks on virtual threads.
+ * As request concurrency is no longer capped by the Tomcat pool, the JDBC pool becomes the real limit
+ * and is sized here, and carrier threads pinned by {@code synchronized} blocks are reported.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadsConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadsConfig.class);
+
+    /**
+     * Sizes the Hikari pool for virtual threads before it starts.
+     * Requests beyond the pool size wait at most the connection timeout, then fail instead of piling up.
+     *
+     * @param environment The environment holding the virtual-thread pool settings.
+     * @return The BeanPostProcessor sizing the pool.
+     */
+    @Bean
+    static BeanPostProcessor virtualThreadsDataSourceSizer(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    int poolSize = environment.getProperty("virtual-threads.jdbc.maximum-pool-size", Integer.class, 50);
+                    Duration timeout = environment.getProperty("virtual-threads.jdbc.connection-timeout", Duration.class, Duration.ofSeconds(2));
+                    dataSource.setMaximumPoolSize(poolSize);
+                    dataSource.setConnectionTimeout(timeout.toMillis());
+                    logger.info("Virtual threads enabled, sizing JDBC pool '{}' to {} connections", beanName, poolSize);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Starts the monitor reporting virtual threads pinned to their carrier.
+     *
+     * @param environment The environment holding the pinning threshold.
+     * @param meterRegistry The registry the pinning counter is bound to, if any.
+     * @return The PinnedThreadMonitor bean.
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    PinnedThreadMonitor pinnedThreadMonitor(Environment environment, ObjectProvider<MeterRegistry> meterRegistry) {
+        Duration threshold = environment.getProperty("virtual-threads.pinned.threshold", Duration.class, Duration.ofMillis(20));
+        return new PinnedThreadMonitor(threshold, meterRegistry.getIfAvailable());
+    }
+}
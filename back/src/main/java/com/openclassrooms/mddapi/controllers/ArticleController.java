@@ -2,66 +2,208 @@ package com.openclassrooms.mddapi.controllers;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.mddapi.audit.AuditEventType;
+import com.openclassrooms.mddapi.audit.AuditLog;
+import com.openclassrooms.mddapi.config.MetricsConfig;
 import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleFeedPageDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSearchPageDTO;
 import com.openclassrooms.mddapi.dtos.UserDTO;
+import com.openclassrooms.mddapi.services.ArticleBroadcaster;
+import com.openclassrooms.mddapi.services.ArticleSearchService;
 import com.openclassrooms.mddapi.services.ArticleService;
 import com.openclassrooms.mddapi.services.UserService;
 
+import io.micrometer.observation.annotation.Observed;
+
 /**
  * The controller class for managing articles.
  */
 @RestController
+@Observed(name = MetricsConfig.CONTROLLER_OBSERVATION)
 public class ArticleController {
 
+    /**
+     * The response header carrying the cursor of the next feed page.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * The response header carrying the total number of search hits.
+     */
+    public static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final ArticleService articleService;
     private final UserService userService;
+    private final ArticleSearchService articleSearchService;
+    private final ArticleBroadcaster articleBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final AuditLog auditLog;
 
     /**
-     * Constructs a new ArticleController with the specified ArticleService and UserService.
+     * Constructs a new ArticleController with the specified services.
      *
      * @param articleService the ArticleService to use
      * @param userService the UserService to use
+     * @param articleSearchService the ArticleSearchService to use
+     * @param articleBroadcaster the broadcaster of new articles to streaming clients
+     * @param objectMapper the ObjectMapper used to write streamed responses
+     * @param auditLog the audit log recording new articles
      */
-    public ArticleController(ArticleService articleService, UserService userService) {
+    public ArticleController(ArticleService articleService, UserService userService, ArticleSearchService articleSearchService, ArticleBroadcaster articleBroadcaster, ObjectMapper objectMapper, AuditLog auditLog) {
         this.articleService = articleService;
         this.userService = userService;
+        this.articleSearchService = articleSearchService;
+        this.articleBroadcaster = articleBroadcaster;
+        this.objectMapper = objectMapper;
+        this.auditLog = auditLog;
     }
 
     /**
-     * Retrieves a list of articles for the themes subscribed by the current user.
+     * Retrieves one page of articles for the themes subscribed by the current user, newest first.
+     * The cursor of the next page, if any, is returned in the {@value #NEXT_CURSOR_HEADER} header.
+     * The ETag and Last-Modified headers are derived from the versions of the subscribed themes, so a
+     * conditional request for an unchanged feed is answered with 304 Not Modified before any article is read.
      *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit the maximum number of articles to return
+     * @param includeCommentIds whether the comment IDs of each article are returned next to the comment count
      * @param authentication the authentication object representing the current user
-     * @return a list of ArticleDTO objects
+     * @param webRequest the current request, checked against its conditional headers
+     * @return a ResponseEntity containing a list of ArticleDTO objects, or null when not modified
      */
     @GetMapping("/articles")
-    public List<ArticleDTO> getArticlesForSubscribedThemes(Authentication authentication) {
+    public ResponseEntity<List<ArticleDTO>> getArticlesForSubscribedThemes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + ArticleService.DEFAULT_FEED_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean includeCommentIds,
+            Authentication authentication,
+            WebRequest webRequest) {
         UserDTO userDTO = userService.getCurrentUser(authentication);
         List<Long> themeIds = userDTO.getSubscribedThemeIds();
-        return articleService.getArticlesForSubscribedThemes(themeIds);
+        String etag = articleService.getFeedEtag(themeIds, cursor, limit, includeCommentIds);
+        if (webRequest.checkNotModified(etag, articleService.getFeedLastModified(themeIds))) {
+            return null;
+        }
+        ArticleFeedPageDTO page = articleService.getArticlesForSubscribedThemes(userDTO.getId(), themeIds, cursor, limit, includeCommentIds);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate());
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getArticles());
+    }
+
+    /**
+     * Retrieves the whole feed of the current user in a single response, newest first.
+     * The articles are streamed from a database cursor to the response as they are serialized, so the
+     * response is never held in memory whatever the size of the feed. Comment IDs are not included.
+     *
+     * @param authentication the authentication object representing the current user
+     * @param webRequest the current request, checked against its conditional headers
+     * @return a ResponseEntity streaming a JSON array of ArticleDTO objects, or null when not modified
+     */
+    @GetMapping(path = "/articles", params = "all=true")
+    public ResponseEntity<StreamingResponseBody> streamAllArticlesForSubscribedThemes(Authentication authentication, WebRequest webRequest) {
+        List<Long> themeIds = userService.getCurrentUser(authentication).getSubscribedThemeIds();
+        String etag = articleService.getFeedEtag(themeIds, null, -1, false);
+        if (webRequest.checkNotModified(etag, articleService.getFeedLastModified(themeIds))) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(JsonArrayStreams.of(objectMapper, ArticleDTO.class,
+                        consumer -> articleService.streamArticlesForSubscribedThemes(themeIds, consumer)));
+    }
+
+    /**
+     * Opens a Server-Sent Events stream of the articles created in the themes subscribed by the current user.
+     * Each {@value ArticleBroadcaster#ARTICLE_EVENT} event carries an ArticleDTO and an ID; a client reconnecting
+     * with {@code Last-Event-ID} receives the events it missed, or a {@value ArticleBroadcaster#RESYNC_EVENT}
+     * event telling it to reload its feed.
+     *
+     * @param lastEventId the ID of the last event received before reconnecting, if any
+     * @param authentication the authentication object representing the current user
+     * @return the SseEmitter of the stream
+     */
+    @GetMapping(path = "/articles/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamArticles(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId,
+            Authentication authentication) {
+        UserDTO userDTO = userService.getCurrentUser(authentication);
+        return articleBroadcaster.subscribe(authentication.getName(), userDTO.getSubscribedThemeIds(), lastEventId);
+    }
+
+    /**
+     * Searches the articles whose title or content match a query, best matches first.
+     * The total number of hits is returned in the {@value #TOTAL_COUNT_HEADER} header.
+     *
+     * @param q the query, supporting quoted phrases, {@code +}/{@code -} operators and {@code *} prefixes
+     * @param themeId the theme the results must belong to, if any
+     * @param userId the author the results must be written by, if any
+     * @param page the zero-based index of the page
+     * @param limit the maximum number of articles to return
+     * @return a ResponseEntity containing a list of ArticleDTO objects
+     */
+    @GetMapping("/articles/search")
+    public ResponseEntity<List<ArticleDTO>> searchArticles(@RequestParam String q,
+            @RequestParam(required = false) Long themeId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + ArticleSearchService.DEFAULT_SEARCH_PAGE_SIZE) int limit) {
+        ArticleSearchPageDTO result = articleSearchService.search(q, themeId, userId, page, limit);
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, String.valueOf(result.getTotalHits()))
+                .body(result.getArticles());
     }
 
     /**
      * Retrieves an article by its ID.
+     * The ETag is derived from the versions of the article's theme and of the authors, so a conditional
+     * request for an unchanged article is answered with 304 Not Modified without any query.
      *
      * @param id the ID of the article to retrieve
-     * @return the ArticleDTO object representing the article
+     * @param includeCommentIds whether the comment IDs are returned next to the comment count
+     * @param webRequest the current request, checked against its conditional headers
+     * @return a ResponseEntity containing the ArticleDTO object representing the article, or null when not modified
      */
     @GetMapping("/articles/{id}")
-    public ArticleDTO getArticleById(@PathVariable Long id) {
-        return articleService.getArticleById(id);
+    public ResponseEntity<ArticleDTO> getArticleById(@PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean includeCommentIds,
+            WebRequest webRequest) {
+        String etag = articleService.getArticleEtag(id, includeCommentIds);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(articleService.getArticleById(id, includeCommentIds));
     }
 
     /**
      * Creates a new article.
+     * The author is the current authenticated user, whatever user ID the request body carries.
      *
      * @param articleDTO the ArticleDTO object representing the article to create
+     * @param authentication the authentication object representing the current user
      * @return the ArticleDTO object representing the created article
      */
     @PostMapping("/articles")
-    public ArticleDTO createArticle(@RequestBody ArticleDTO articleDTO) {
-        return articleService.createArticle(articleDTO);
+    public ArticleDTO createArticle(@RequestBody ArticleDTO articleDTO, Authentication authentication) {
+        articleDTO.setUserId(userService.getCurrentUserId(authentication));
+        ArticleDTO createdArticle = articleService.createArticle(articleDTO);
+        auditLog.record(AuditEventType.ARTICLE_POSTED, authentication.getName(), createdArticle.getId());
+        return createdArticle;
     }
 }
\ No newline at end of file
@@ -10,6 +10,9 @@ import org.springframework.web.bind.annotation.ResponseBody;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.openclassrooms.mddapi.audit.AuditEventType;
+import com.openclassrooms.mddapi.audit.AuditLog;
+import com.openclassrooms.mddapi.config.MetricsConfig;
 import com.openclassrooms.mddapi.dtos.LoginDTO;
 import com.openclassrooms.mddapi.dtos.TokenResponseDTO;
 import com.openclassrooms.mddapi.dtos.UserRegistrationDTO;
@@ -20,22 +23,27 @@ import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.security.JWTService;
 import com.openclassrooms.mddapi.services.UserService;
 
+import io.micrometer.observation.annotation.Observed;
+
 /**
  * The AuthController class handles authentication-related operations.
  */
 @RestController
+@Observed(name = MetricsConfig.CONTROLLER_OBSERVATION)
 public class AuthController {
 
     private final UserService userService;
     private final JWTService jwtService;
     private final UserMapper userMapper;
     private final TokenMapper tokenMapper;
+    private final AuditLog auditLog;
 
-    public AuthController(UserService userService, JWTService jwtService, UserMapper userMapper, TokenMapper tokenMapper) {
+    public AuthController(UserService userService, JWTService jwtService, UserMapper userMapper, TokenMapper tokenMapper, AuditLog auditLog) {
         this.userService = userService;
         this.jwtService = jwtService;
         this.userMapper = userMapper;
         this.tokenMapper = tokenMapper;
+        this.auditLog = auditLog;
     }
 
     /**
@@ -50,6 +58,7 @@ public class AuthController {
     public ResponseEntity<UserRegistrationResponseDTO> registerUser(@RequestBody UserRegistrationDTO userRegistrationDTO) {        
         User user = userMapper.userDtoToUser(userRegistrationDTO); 
         User savedUser = userService.saveUser(user);
+        auditLog.record(AuditEventType.REGISTRATION, savedUser.getUsername(), savedUser.getId());
         UserRegistrationResponseDTO responseDTO = userMapper.userToUserRegistrationResponseDTO(savedUser);
         return ResponseEntity.ok(responseDTO);
     }
@@ -64,8 +73,17 @@ public class AuthController {
     @ResponseStatus(HttpStatus.OK)
     @ResponseBody
     public ResponseEntity<TokenResponseDTO> login(@RequestBody LoginDTO loginDTO) throws AuthenticationException {
-        Authentication authentication = userService.authenticate(loginDTO);
-        String token = jwtService.generateToken(authentication);
+        Authentication authentication;
+        try {
+            authentication = userService.authenticate(loginDTO);
+        } catch (AuthenticationException e) {
+            auditLog.record(AuditEventType.LOGIN_FAILED, loginDTO.getUsernameOrEmail(), null);
+            throw e;
+        }
+        auditLog.record(AuditEventType.LOGIN_SUCCEEDED, authentication.getName(), null);
+        String token = jwtService.isRichClaimsEnabled()
+                ? jwtService.generateToken(authentication.getName(), userService.getCurrentUser(authentication).getId())
+                : jwtService.generateToken(authentication);
         TokenResponseDTO tokenResponseDTO = tokenMapper.tokenToTokenResponseDTO(token);
         return ResponseEntity.ok(tokenResponseDTO);
     }
@@ -2,11 +2,25 @@ package com.openclassrooms.mddapi.controllers;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import com.openclassrooms.mddapi.audit.AuditEventType;
+import com.openclassrooms.mddapi.audit.AuditLog;
+import com.openclassrooms.mddapi.config.MetricsConfig;
 import com.openclassrooms.mddapi.dtos.CommentDTO;
+import com.openclassrooms.mddapi.dtos.CommentPageDTO;
 import com.openclassrooms.mddapi.services.CommentService;
+import com.openclassrooms.mddapi.services.UserService;
+
+import io.micrometer.observation.annotation.Observed;
 
 
 /**
@@ -14,40 +28,94 @@ import com.openclassrooms.mddapi.services.CommentService;
  */
 @RestController
 @RequestMapping("/articles/{articleId}/comments")
+@Observed(name = MetricsConfig.CONTROLLER_OBSERVATION)
 public class CommentController {
 
     private final CommentService commentService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final AuditLog auditLog;
 
     /**
      * Constructs a new CommentController with the specified CommentService.
      *
      * @param commentService the CommentService to be used by the controller
+     * @param userService the UserService used to resolve the author of new comments
+     * @param objectMapper the ObjectMapper used to write streamed responses
+     * @param auditLog the audit log recording new comments
      */
-    public CommentController(CommentService commentService) {
+    public CommentController(CommentService commentService, UserService userService, ObjectMapper objectMapper, AuditLog auditLog) {
         this.commentService = commentService;
+        this.userService = userService;
+        this.objectMapper = objectMapper;
+        this.auditLog = auditLog;
     }
 
     /**
-     * Retrieves the comments for a specific article.
+     * Retrieves one page of comments for a specific article, oldest first.
+     * The value to pass as {@code after} for the next page, if any, is returned in the
+     * {@value ArticleController#NEXT_CURSOR_HEADER} header.
+     * The ETag is derived from the versions of the article's theme and of the authors, so a conditional
+     * request for an unchanged page is answered with 304 Not Modified without any query.
      *
      * @param articleId the ID of the article
-     * @return a ResponseEntity containing a list of CommentDTO objects
+     * @param after the ID of the last comment already read, or null for the first page
+     * @param limit the maximum number of comments to return
+     * @param webRequest the current request, checked against its conditional headers
+     * @return a ResponseEntity containing a list of CommentDTO objects, or null when not modified
      */
     @GetMapping
-    public ResponseEntity<List<CommentDTO>> getCommentsByArticleId(@PathVariable Long articleId) {
-        List<CommentDTO> comments = commentService.getCommentsByArticleId(articleId);
-        return ResponseEntity.ok(comments);
+    public ResponseEntity<List<CommentDTO>> getCommentsByArticleId(@PathVariable Long articleId,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "" + CommentService.DEFAULT_COMMENT_PAGE_SIZE) int limit,
+            WebRequest webRequest) {
+        String etag = commentService.getCommentsEtag(articleId, after, limit);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        CommentPageDTO page = commentService.getCommentsByArticleId(articleId, after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache());
+        if (page.getNextCursor() != null) {
+            response.header(ArticleController.NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getComments());
+    }
+
+    /**
+     * Retrieves all the comments of an article in a single response, oldest first.
+     * The comments are streamed from a database cursor to the response as they are serialized.
+     *
+     * @param articleId the ID of the article
+     * @param webRequest the current request, checked against its conditional headers
+     * @return a ResponseEntity streaming a JSON array of CommentDTO objects, or null when not modified
+     */
+    @GetMapping(params = "all=true")
+    public ResponseEntity<StreamingResponseBody> streamAllCommentsByArticleId(@PathVariable Long articleId, WebRequest webRequest) {
+        String etag = commentService.getCommentsEtag(articleId, null, -1);
+        if (etag != null && webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .cacheControl(CacheControl.noCache())
+                .body(JsonArrayStreams.of(objectMapper, CommentDTO.class,
+                        consumer -> commentService.streamCommentsByArticleId(articleId, consumer)));
     }
 
     /**
      * Creates a new comment for an article.
+     * The author is the current authenticated user, whatever user ID the request body carries.
      *
      * @param commentDTO the CommentDTO object representing the comment to be created
+     * @param authentication the authentication object representing the current user
      * @return a ResponseEntity containing the created CommentDTO object
      */
     @PostMapping
-    public ResponseEntity<CommentDTO> createComment(@RequestBody CommentDTO commentDTO) {
+    public ResponseEntity<CommentDTO> createComment(@RequestBody CommentDTO commentDTO, Authentication authentication) {
+        commentDTO.setUserId(userService.getCurrentUserId(authentication));
         CommentDTO createdComment = commentService.createComment(commentDTO);
+        auditLog.record(AuditEventType.COMMENT_POSTED, authentication.getName(), createdComment.getId());
         return ResponseEntity.ok(createdComment);
     }
 }
\ No newline at end of file
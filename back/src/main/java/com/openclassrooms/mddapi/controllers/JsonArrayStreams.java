@@ -0,0 +1,80 @@
+package com.openclassrooms.mddapi.controllers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Writes JSON arrays item by item, straight from a producer to the response.
+ * Only the item being serialized is held in memory, instead of the whole list and its serialized form.
+ */
+public final class JsonArrayStreams {
+
+    /**
+     * The number of items written between two flushes of the response.
+     */
+    static final int FLUSH_INTERVAL = 100;
+
+    private JsonArrayStreams() {
+    }
+
+    /**
+     * Creates a response body writing the items handed by the producer as a JSON array.
+     * The producer runs on the asynchronous request thread, after the controller method returned.
+     *
+     * @param objectMapper the ObjectMapper used to serialize the items
+     * @param type the type of the items
+     * @param producer the producer handing each item to the given consumer
+     * @param <T> the type of the items
+     * @return the StreamingResponseBody writing the array
+     */
+    public static <T> StreamingResponseBody of(ObjectMapper objectMapper, Class<T> type, Consumer<Consumer<T>> producer) {
+        return outputStream -> write(objectMapper, type, producer, outputStream);
+    }
+
+    /**
+     * Writes the items handed by the producer as a JSON array to the given stream.
+     * A failure midway leaves the array unterminated, so that clients cannot mistake a truncated
+     * response for a complete one.
+     *
+     * @param objectMapper the ObjectMapper used to serialize the items
+     * @param type the type of the items
+     * @param producer the producer handing each item to the given consumer
+     * @param outputStream the stream to write to, left open
+     * @param <T> the type of the items
+     * @throws IOException if writing to the stream fails
+     */
+    public static <T> void write(ObjectMapper objectMapper, Class<T> type, Consumer<Consumer<T>> producer, OutputStream outputStream) throws IOException {
+        // ObjectMapper flushes after every value by default, which would send one chunk per item
+        ObjectWriter writer = objectMapper.writerFor(type).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartArray();
+            int[] written = {0};
+            try {
+                producer.accept(item -> {
+                    try {
+                        writer.writeValue(generator, item);
+                        if (++written[0] % FLUSH_INTERVAL == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            generator.writeEndArray();
+        }
+    }
+}
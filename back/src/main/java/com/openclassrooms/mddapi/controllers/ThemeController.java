@@ -2,18 +2,25 @@ package com.openclassrooms.mddapi.controllers;
 
 import java.util.List;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.openclassrooms.mddapi.config.MetricsConfig;
 import com.openclassrooms.mddapi.dtos.ThemeDTO;
+import com.openclassrooms.mddapi.services.ThemeCatalog;
 import com.openclassrooms.mddapi.services.ThemeService;
 
+import io.micrometer.observation.annotation.Observed;
+
 /**
  * The ThemeController class handles HTTP requests related to themes.
  */
 @RestController
 @RequestMapping("/themes")
+@Observed(name = MetricsConfig.CONTROLLER_OBSERVATION)
 public class ThemeController {
     
     private final ThemeService themeService;
@@ -29,11 +36,17 @@ public class ThemeController {
 
     /**
      * Retrieves a list of ThemeDTO objects representing all themes.
+     * The response carries a strong ETag of the catalog snapshot; a request whose
+     * If-None-Match header matches it is answered with 304 Not Modified and no body.
      * 
-     * @return a list of ThemeDTO objects
+     * @return a ResponseEntity containing a list of ThemeDTO objects
      */
     @GetMapping
-    public List<ThemeDTO> getThemes() {
-        return themeService.getThemes();
+    public ResponseEntity<List<ThemeDTO>> getThemes() {
+        ThemeCatalog catalog = themeService.getCatalog();
+        return ResponseEntity.ok()
+                .eTag(catalog.getEtag())
+                .cacheControl(CacheControl.noCache())
+                .body(catalog.getThemes());
     }
 }
@@ -5,6 +5,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -13,30 +14,48 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.openclassrooms.mddapi.config.MetricsConfig;
+import com.openclassrooms.mddapi.dtos.SubscriptionChangeDTO;
+import com.openclassrooms.mddapi.dtos.SubscriptionsDTO;
 import com.openclassrooms.mddapi.dtos.UserDTO;
 import com.openclassrooms.mddapi.dtos.UserResponseDTO;
 import com.openclassrooms.mddapi.dtos.UserUpdatedResponseDTO;
 import com.openclassrooms.mddapi.mappers.UserMapper;
+import com.openclassrooms.mddapi.security.JWTService;
 import com.openclassrooms.mddapi.services.UserService;
 
+import io.micrometer.observation.annotation.Observed;
+
 /**
  * This class represents the UserController which handles user-related operations.
  */
 @RestController
 @RequestMapping("/me")
+@Observed(name = MetricsConfig.CONTROLLER_OBSERVATION)
 public class UserController {
+
+    /**
+     * The response header carrying a re-issued token after the user's profile changed.
+     * It is only sent when rich JWT claims are enabled, since the previous token is then stale.
+     * Subscription changes keep the token valid: subscriptions are never part of it and are read on the server.
+     */
+    public static final String REFRESHED_TOKEN_HEADER = "X-Refreshed-Token";
+
     private final UserService userService;
     private final UserMapper userMapper;
+    private final JWTService jwtService;
 
     /**
      * Constructs a new UserController with the specified UserService and UserMapper.
      *
      * @param userService the UserService to be used
      * @param userMapper the UserMapper to be used
+     * @param jwtService the JWTService used to re-issue tokens after a profile change
      */
-    public UserController(UserService userService, UserMapper userMapper) {
+    public UserController(UserService userService, UserMapper userMapper, JWTService jwtService) {
         this.userService = userService;
         this.userMapper = userMapper;
+        this.jwtService = jwtService;
     }
 
     /**
@@ -65,7 +84,7 @@ public class UserController {
     @ResponseStatus(HttpStatus.OK)
     public ResponseEntity<UserUpdatedResponseDTO> updateUser(@RequestBody UserDTO userDTO, Authentication authentication) {
         UserUpdatedResponseDTO updatedUser = userService.updateUser(userDTO, authentication);
-        return ResponseEntity.ok(updatedUser);
+        return withRefreshedToken(ResponseEntity.ok(), updatedUser.getUsername(), updatedUser.getId()).body(updatedUser);
     }
 
     /**
@@ -95,4 +114,34 @@ public class UserController {
         UserDTO updatedUser = userService.unsubscribeFromTheme(themeId, authentication);
         return ResponseEntity.ok(updatedUser);
     }
+
+    /**
+     * Subscribes the current user to a batch of themes and unsubscribes them from another.
+     * The changes are idempotent, so a retried request has the same outcome.
+     *
+     * @param subscriptionChangeDTO the IDs of the themes to subscribe to and to unsubscribe from
+     * @param authentication the authentication object representing the current user
+     * @return a ResponseEntity containing the IDs of the themes the user is now subscribed to
+     */
+    @PatchMapping("/themes")
+    @ResponseStatus(HttpStatus.OK)
+    public ResponseEntity<SubscriptionsDTO> updateSubscriptions(@RequestBody SubscriptionChangeDTO subscriptionChangeDTO, Authentication authentication) {
+        SubscriptionsDTO subscriptions = userService.updateSubscriptions(subscriptionChangeDTO, authentication);
+        return ResponseEntity.ok(subscriptions);
+    }
+
+    /**
+     * Adds a re-issued token to the response when rich JWT claims are enabled.
+     *
+     * @param response the response being built
+     * @param subject the subject of the new token
+     * @param userId the ID of the user
+     * @return the response builder
+     */
+    private ResponseEntity.BodyBuilder withRefreshedToken(ResponseEntity.BodyBuilder response, String subject, Long userId) {
+        if (jwtService.isRichClaimsEnabled()) {
+            response.header(REFRESHED_TOKEN_HEADER, jwtService.generateToken(subject, userId));
+        }
+        return response;
+    }
 }
\ No newline at end of file
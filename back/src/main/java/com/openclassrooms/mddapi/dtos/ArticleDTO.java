@@ -4,9 +4,10 @@ import lombok.Builder;
 import lombok.Data;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 /**
  * Represents an article data transfer object (DTO).
  * This class is used to transfer article data between different layers of the application.
@@ -21,13 +22,9 @@ public class ArticleDTO {
     private Long userId;
     private String themeTitle;
     private Long themeId;
+    private Integer commentCount;
+    // Only filled for clients asking for it with includeCommentIds=true
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<Long> commentIds;
     private LocalDateTime created_at;
-
-    public List<Long> getCommentIds() {
-        if (commentIds == null) {
-            commentIds = new ArrayList<>();
-        }
-        return commentIds;
-    }
-}
\ No newline at end of file
+}
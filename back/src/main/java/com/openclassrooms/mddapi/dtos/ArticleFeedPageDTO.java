@@ -0,0 +1,19 @@
+package com.openclassrooms.mddapi.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents one page of the subscribed-themes feed.
+ * The next cursor is null when there are no more articles to read.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ArticleFeedPageDTO {
+    @Builder.Default
+    private List<ArticleDTO> articles = new ArrayList<>();
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.openclassrooms.mddapi.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents one page of article search results, best matches first.
+ */
+@Data
+@Builder(toBuilder = true)
+public class ArticleSearchPageDTO {
+    @Builder.Default
+    private List<ArticleDTO> articles = new ArrayList<>();
+    private long totalHits;
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.mddapi.dtos;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a flat projection of an article joined with its author and theme.
+ * This class is filled directly by the feed query so that no entity graph has to be loaded.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ArticleSummaryDTO {
+    private Long id;
+    private String title;
+    private String content;
+    private LocalDateTime created_at;
+    private Long userId;
+    private String username;
+    private Long themeId;
+    private String themeTitle;
+    // Only filled by the streaming query; paged feeds read the counts separately
+    private Integer commentCount;
+
+    /**
+     * Constructs a projection without its comment count, as filled by the paged feed queries.
+     *
+     * @param id the ID of the article
+     * @param title the title of the article
+     * @param content the content of the article
+     * @param created_at the creation date of the article
+     * @param userId the ID of the author
+     * @param username the username of the author
+     * @param themeId the ID of the theme
+     * @param themeTitle the title of the theme
+     */
+    public ArticleSummaryDTO(Long id, String title, String content, LocalDateTime created_at, Long userId, String username, Long themeId, String themeTitle) {
+        this(id, title, content, created_at, userId, username, themeId, themeTitle, null);
+    }
+}
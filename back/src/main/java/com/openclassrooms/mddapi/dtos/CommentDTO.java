@@ -1,13 +1,17 @@
 package com.openclassrooms.mddapi.dtos;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 /**
  * Represents a comment data transfer object.
  */
 @Data
 @Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
 public class CommentDTO {
     private Long id;
     private String content;
@@ -0,0 +1,19 @@
+package com.openclassrooms.mddapi.dtos;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents one page of the comments of an article.
+ * The next cursor is the ID to pass as {@code after} for the following page, or null when there are no more comments.
+ */
+@Data
+@Builder(toBuilder = true)
+public class CommentPageDTO {
+    @Builder.Default
+    private List<CommentDTO> comments = new ArrayList<>();
+    private String nextCursor;
+}
@@ -0,0 +1,19 @@
+package com.openclassrooms.mddapi.dtos;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Data Transfer Object for the execution statistics of one SQL statement shape.
+ * This class is used by the {@code sqlstats} actuator endpoint.
+ */
+@Data
+@Builder(toBuilder = true)
+public class SqlShapeStatsDTO {
+    private String shape;
+    private long count;
+    private long slowCount;
+    private double totalMillis;
+    private double meanMillis;
+    private double maxMillis;
+}
@@ -0,0 +1,22 @@
+package com.openclassrooms.mddapi.dtos;
+
+import java.util.Set;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Represents a batch of subscription changes requested by the current user.
+ * Both sets are optional; subscribing to a theme twice or unsubscribing from a theme
+ * the user does not follow has no effect.
+ */
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class SubscriptionChangeDTO {
+    private Set<Long> subscribe;
+    private Set<Long> unsubscribe;
+}
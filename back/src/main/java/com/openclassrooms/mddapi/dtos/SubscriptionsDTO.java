@@ -0,0 +1,15 @@
+package com.openclassrooms.mddapi.dtos;
+
+import java.util.List;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Represents the themes the current user is subscribed to after a subscription change.
+ */
+@Data
+@Builder(toBuilder = true)
+public class SubscriptionsDTO {
+    private List<Long> subscribedThemeIds;
+}
@@ -1,5 +1,6 @@
 package com.openclassrooms.mddapi.exceptions;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
@@ -97,4 +98,32 @@ public class GlobalExceptionHandler {
     public ResponseEntity<String> handleAuthenticationException(AuthenticationException e) {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(e.getMessage());
     }
+
+    /**
+     * Handles the LoginOverloadedException and returns a ResponseEntity with the error message.
+     * The client is asked to retry after one second.
+     *
+     * @param e The LoginOverloadedException to handle.
+     * @return A ResponseEntity with the error message and HTTP status code 503 (SERVICE_UNAVAILABLE).
+     */
+    @ExceptionHandler(LoginOverloadedException.class)
+    public ResponseEntity<String> handleLoginOverloadedException(LoginOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "1")
+            .body(e.getMessage());
+    }
+
+    /**
+     * Handles the StreamOverloadedException and returns a ResponseEntity with the error message.
+     * The client is asked to retry after five seconds.
+     *
+     * @param e The StreamOverloadedException to handle.
+     * @return A ResponseEntity with the error message and HTTP status code 503 (SERVICE_UNAVAILABLE).
+     */
+    @ExceptionHandler(StreamOverloadedException.class)
+    public ResponseEntity<String> handleStreamOverloadedException(StreamOverloadedException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "5")
+            .body(e.getMessage());
+    }
 }
@@ -0,0 +1,10 @@
+package com.openclassrooms.mddapi.exceptions;
+
+/**
+ * Exception thrown when too many logins are waiting for a password check.
+ */
+public class LoginOverloadedException extends RuntimeException {
+    public LoginOverloadedException(String message) {
+        super(message);
+    }
+}
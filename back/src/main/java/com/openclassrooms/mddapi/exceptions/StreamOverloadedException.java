@@ -0,0 +1,10 @@
+package com.openclassrooms.mddapi.exceptions;
+
+/**
+ * Exception thrown when the maximum number of open article streams is reached.
+ */
+public class StreamOverloadedException extends RuntimeException {
+    public StreamOverloadedException(String message) {
+        super(message);
+    }
+}
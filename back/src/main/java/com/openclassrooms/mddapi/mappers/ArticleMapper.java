@@ -1,11 +1,13 @@
 package com.openclassrooms.mddapi.mappers;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.stereotype.Component;
 
 import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
 import com.openclassrooms.mddapi.models.Article;
 import com.openclassrooms.mddapi.models.Comment;
 import com.openclassrooms.mddapi.models.Theme;
@@ -44,7 +46,31 @@ public class ArticleMapper {
                 .created_at(article.getCreated_at())
                 .userId(article.getUser().getId())
                 .themeId(article.getTheme().getId())
-                .commentIds(article.getComments().stream().map(Comment::getId).collect(Collectors.toList()))
+                .commentCount(article.getCommentCount())
+                .build();
+    }
+
+    /**
+     * Converts an ArticleSummaryDTO projection to an ArticleDTO object.
+     * The author and theme are already part of the projection, so no repository is queried.
+     *
+     * @param summary the ArticleSummaryDTO projection to convert
+     * @return the converted ArticleDTO object
+     */
+    public ArticleDTO toDTO(ArticleSummaryDTO summary) {
+        if (summary == null) {
+            return null;
+        }
+        return ArticleDTO.builder()
+                .id(summary.getId())
+                .title(summary.getTitle())
+                .content(summary.getContent())
+                .created_at(summary.getCreated_at())
+                .userId(summary.getUserId())
+                .username(summary.getUsername())
+                .themeId(summary.getThemeId())
+                .themeTitle(summary.getThemeTitle())
+                .commentCount(summary.getCommentCount())
                 .build();
     }
 
@@ -65,7 +91,8 @@ public class ArticleMapper {
         Theme theme = themeRepository.findById(articleDTO.getThemeId())
             .orElseThrow(() -> new RuntimeException("Theme not found with id " + articleDTO.getThemeId()));
     
-        List<Comment> comments = articleDTO.getCommentIds().stream()
+        List<Long> commentIds = articleDTO.getCommentIds() == null ? new ArrayList<>() : articleDTO.getCommentIds();
+        List<Comment> comments = commentIds.stream()
             .map(id -> commentRepository.findById(id).orElseThrow(() -> new RuntimeException("Comment not found with id " + id)))
             .collect(Collectors.toList());
     
@@ -0,0 +1,48 @@
+package com.openclassrooms.mddapi.mappers;
+
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.config.MetricsConfig;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+
+/**
+ * Traces the mapping of entities and projections to DTOs as {@value MetricsConfig#MAPPER_OBSERVATION} spans.
+ * A page is mapped under a single span carrying its number of rows, rather than one span per row,
+ * so that tracing a feed page does not cost as much as mapping it.
+ */
+@Component
+public class MappingObserver {
+
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Constructs a new MappingObserver.
+     *
+     * @param observationRegistry The registry the mapping spans are reported to, if any.
+     */
+    public MappingObserver(ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.observationRegistry = observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Runs a mapping inside a span named after the mapper method, such as {@code ArticleMapper#toDTO}.
+     *
+     * @param <T> The type of the mapped result.
+     * @param mapperMethod The mapper class and method, used as the span name.
+     * @param rows The number of rows mapped.
+     * @param mapping The mapping to run.
+     * @return The result of the mapping.
+     */
+    public <T> T observe(String mapperMethod, int rows, Supplier<T> mapping) {
+        return Observation.createNotStarted(MetricsConfig.MAPPER_OBSERVATION, observationRegistry)
+                .contextualName(mapperMethod)
+                .lowCardinalityKeyValue("mapper", mapperMethod)
+                .highCardinalityKeyValue("rows", String.valueOf(rows))
+                .observe(mapping);
+    }
+}
@@ -1,5 +1,7 @@
 package com.openclassrooms.mddapi.mappers;
 
+import java.util.List;
+
 import org.springframework.stereotype.Component;
 
 import com.openclassrooms.mddapi.dtos.UserDTO;
@@ -81,6 +83,26 @@ public class UserMapper {
                 .build();
     }
 
+    /**
+     * Converts a User entity to a UserDTO with subscriptions read separately, so that the lazy
+     * themes of the user are not loaded and no open persistence context is needed.
+     *
+     * @param user The User entity to convert.
+     * @param subscribedThemeIds The IDs of the themes the user is subscribed to.
+     * @return The converted UserDTO, or null if the input user is null.
+     */
+    public UserDTO toDTO(User user, List<Long> subscribedThemeIds) {
+        if (user == null) {
+            return null;
+        }
+        return UserDTO.builder()
+                .id(user.getId())
+                .username(user.getUsername())
+                .email(user.getEmail())
+                .subscribedThemeIds(subscribedThemeIds)
+                .build();
+    }
+
     /**
      * Converts a UserDTO to a User entity.
      *
@@ -37,6 +37,10 @@ public class Article {
     @CreationTimestamp
     private LocalDateTime created_at;
 
+    @Builder.Default
+    @Column(name = "comment_count", nullable = false)
+    private Integer commentCount = 0;
+
     @Getter
     @Setter
     @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
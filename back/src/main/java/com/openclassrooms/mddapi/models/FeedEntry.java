@@ -0,0 +1,35 @@
+package com.openclassrooms.mddapi.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Represents a reference to an article pushed into a user's materialized feed.
+ * The theme and creation date are copied from the article so that a user's feed
+ * can be read with a plain range scan on (user_id, created_at, article_id).
+ */
+@Entity
+@Table(name = "user_feeds")
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FeedEntry {
+    @EmbeddedId
+    private FeedEntryId id;
+
+    @Column(name = "theme_id", nullable = false)
+    private Long themeId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime created_at;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "article_id", insertable = false, updatable = false)
+    private Article article;
+}
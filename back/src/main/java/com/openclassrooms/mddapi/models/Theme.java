@@ -4,24 +4,36 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.experimental.Accessors;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
+import com.openclassrooms.mddapi.config.SecondLevelCacheConfig;
+
+import com.openclassrooms.mddapi.services.ThemeChangeListener;
+
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.THEMES_REGION)
 @Table(name = "themes")
 @Data
+// Themes live in the users' subscription sets: compare them by ID, without touching the lazy collections
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
 @Builder
 @Accessors(chain = true)
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, ThemeChangeListener.class})
 @AllArgsConstructor
 @NoArgsConstructor
 public class Theme {
     @Id
+    @EqualsAndHashCode.Include
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
@@ -1,9 +1,16 @@
 package com.openclassrooms.mddapi.models;
 
-import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import com.openclassrooms.mddapi.config.SecondLevelCacheConfig;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -27,6 +34,8 @@ import lombok.NoArgsConstructor;
  * Represents a user in the system.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS_REGION)
 @Data
 @Builder
 @AllArgsConstructor
@@ -53,6 +62,15 @@ public class User {
     @Column(nullable = false)
     private String password;
 
+    /**
+     * Version stamp of the user's profile, carried by rich JWT tokens.
+     * It is incremented whenever the profile changes so that older tokens can be rejected.
+     * Subscription changes leave it as is, since tokens do not carry subscriptions.
+     */
+    @Builder.Default
+    @Column(name = "token_version", nullable = false)
+    private Long tokenVersion = 0L;
+
     @OneToMany(mappedBy = "user", cascade = CascadeType.DETACH)
     private List<Article> articles;
 
@@ -60,23 +78,26 @@ public class User {
     private List<Comment> comments;
 
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.SUBSCRIPTIONS_REGION)
     @JoinTable(
         name = "subscriptions",
         joinColumns = @JoinColumn(name = "user_id"),
         inverseJoinColumns = @JoinColumn(name = "theme_id")
     )
     /**
-     * The list of themes that the user is subscribed to.
+     * The set of themes that the user is subscribed to.
+     * A set rather than a list, so that Hibernate inserts or deletes only the changed row
+     * instead of deleting and re-inserting the whole collection.
      */
     @Builder.Default
-    private List<Theme> themes = new ArrayList<>();
+    private Set<Theme> themes = new HashSet<>();
 
     /**
      * Returns a list of theme IDs that the user is subscribed to.
      *
-     * @return a list of theme IDs
+     * @return a list of theme IDs in ascending order
      */
     public List<Long> getThemeIds() {
-        return themes.stream().map(theme -> theme.getId()).collect(Collectors.toList());
+        return themes.stream().map(theme -> theme.getId()).sorted().collect(Collectors.toList());
     }
 }
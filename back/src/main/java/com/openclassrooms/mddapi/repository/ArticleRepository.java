@@ -1,13 +1,177 @@
 package com.openclassrooms.mddapi.repository;
 
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
 import com.openclassrooms.mddapi.models.Article;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface ArticleRepository extends JpaRepository<Article, Long> {
+
+    /**
+     * The number of rows the JDBC driver fetches at a time when a query result is streamed.
+     */
+    String STREAM_FETCH_SIZE = "500";
+
     List<Article> findByTheme_Id(Long themeId);
+
+    /**
+     * Retrieves the first page of the feed for the given themes, newest first.
+     *
+     * @param themeIds the IDs of the themes to read
+     * @param limit the maximum number of rows to return
+     * @return the article summaries joined with their author and theme
+     */
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.ArticleSummaryDTO(a.id, a.title, a.content, a.created_at, u.id, u.username, t.id, t.title) "
+            + "FROM Article a JOIN a.user u JOIN a.theme t "
+            + "WHERE t.id IN :themeIds "
+            + "ORDER BY a.created_at DESC, a.id DESC")
+    List<ArticleSummaryDTO> findFeedPage(@Param("themeIds") Collection<Long> themeIds, Limit limit);
+
+    /**
+     * Retrieves the page of the feed that follows the given keyset position, newest first.
+     *
+     * @param themeIds the IDs of the themes to read
+     * @param createdAt the creation date of the last article already read
+     * @param id the ID of the last article already read
+     * @param limit the maximum number of rows to return
+     * @return the article summaries joined with their author and theme
+     */
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.ArticleSummaryDTO(a.id, a.title, a.content, a.created_at, u.id, u.username, t.id, t.title) "
+            + "FROM Article a JOIN a.user u JOIN a.theme t "
+            + "WHERE t.id IN :themeIds "
+            + "AND (a.created_at < :createdAt OR (a.created_at = :createdAt AND a.id < :id)) "
+            + "ORDER BY a.created_at DESC, a.id DESC")
+    List<ArticleSummaryDTO> findFeedPageAfter(@Param("themeIds") Collection<Long> themeIds,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    /**
+     * Streams the whole feed for the given themes, newest first, with the comment counts.
+     * Rows are fetched from a server-side cursor, so the result is never held in memory; the stream
+     * must be consumed and closed within a transaction.
+     *
+     * @param themeIds the IDs of the themes to read
+     * @return the article summaries joined with their author and theme
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.ArticleSummaryDTO(a.id, a.title, a.content, a.created_at, u.id, u.username, t.id, t.title, a.commentCount) "
+            + "FROM Article a JOIN a.user u JOIN a.theme t "
+            + "WHERE t.id IN :themeIds "
+            + "ORDER BY a.created_at DESC, a.id DESC")
+    Stream<ArticleSummaryDTO> streamFeed(@Param("themeIds") Collection<Long> themeIds);
+
+    /**
+     * Retrieves the articles that follow the given ID, in ID order, to walk the whole table in batches.
+     *
+     * @param afterId the ID of the last article already read, 0 for the first batch
+     * @param limit the maximum number of rows to return
+     * @return the article summaries joined with their author and theme
+     */
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.ArticleSummaryDTO(a.id, a.title, a.content, a.created_at, u.id, u.username, t.id, t.title) "
+            + "FROM Article a JOIN a.user u JOIN a.theme t "
+            + "WHERE a.id > :afterId "
+            + "ORDER BY a.id")
+    List<ArticleSummaryDTO> findSummariesAfter(@Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Retrieves the (articleId, commentCount) pairs for a batch of articles in a single query.
+     *
+     * @param articleIds the IDs of the articles
+     * @return a list of two-element arrays holding the article ID and its comment count
+     */
+    @Query("SELECT a.id, a.commentCount FROM Article a WHERE a.id IN :articleIds")
+    List<Object[]> findCommentCounts(@Param("articleIds") Collection<Long> articleIds);
+
+    /**
+     * Retrieves the theme of an article without loading it.
+     *
+     * @param id the ID of the article
+     * @return the ID of the theme, or null if the article does not exist
+     */
+    @Query("SELECT a.theme.id FROM Article a WHERE a.id = :id")
+    Long findThemeIdById(@Param("id") Long id);
+
+    /**
+     * Retrieves the IDs of the newest articles of a theme, to copy them into feeds batch by batch.
+     *
+     * @param themeId the ID of the theme
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of the articles, highest first
+     */
+    @Query("SELECT a.id FROM Article a WHERE a.theme.id = :themeId ORDER BY a.id DESC")
+    List<Long> findIdsByThemeId(@Param("themeId") Long themeId, Limit limit);
+
+    /**
+     * Retrieves the IDs of the articles of a theme that follow the given ID, to copy them into feeds batch by batch.
+     *
+     * @param themeId the ID of the theme
+     * @param id the last ID of the previous batch
+     * @param limit the maximum number of IDs to return
+     * @return the IDs of the articles below the given one, highest first
+     */
+    @Query("SELECT a.id FROM Article a WHERE a.theme.id = :themeId AND a.id < :id ORDER BY a.id DESC")
+    List<Long> findIdsByThemeIdBefore(@Param("themeId") Long themeId, @Param("id") Long id, Limit limit);
+
+    /**
+     * Increments the comment count of an article in the database, without reading it first.
+     *
+     * @param id the ID of the commented article
+     * @return the number of updated rows, 0 if the article does not exist
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Article a SET a.commentCount = a.commentCount + 1 WHERE a.id = :id")
+    int incrementCommentCount(@Param("id") Long id);
+
+    /**
+     * Retrieves the highest article ID, the upper bound of the reconciliation batches.
+     *
+     * @return the highest article ID, or null if there is no article
+     */
+    @Query("SELECT MAX(a.id) FROM Article a")
+    Long findMaxId();
+
+    /**
+     * Recomputes the comment count of the articles in an ID range whose count has drifted.
+     *
+     * @param fromId the lowest article ID of the batch, inclusive
+     * @param toId the highest article ID of the batch, inclusive
+     * @return the number of repaired articles
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "articles"))
+    @Query(value = "UPDATE articles a "
+            + "SET a.comment_count = (SELECT COUNT(*) FROM comments c WHERE c.article_id = a.id) "
+            + "WHERE a.id BETWEEN :fromId AND :toId "
+            + "AND a.comment_count <> (SELECT COUNT(*) FROM comments c WHERE c.article_id = a.id)", nativeQuery = true)
+    int reconcileCommentCounts(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Retrieves the themes of the articles in an ID range, whose versions are bumped once counts of the range are repaired.
+     *
+     * @param fromId the lowest article ID of the batch, inclusive
+     * @param toId the highest article ID of the batch, inclusive
+     * @return the distinct theme IDs of the articles of the batch
+     */
+    @Query("SELECT DISTINCT a.theme.id FROM Article a WHERE a.id BETWEEN :fromId AND :toId")
+    List<Long> findThemeIdsByIdBetween(@Param("fromId") Long fromId, @Param("toId") Long toId);
 }
@@ -1,13 +1,63 @@
 package com.openclassrooms.mddapi.repository;
 
+import com.openclassrooms.mddapi.dtos.CommentDTO;
 import com.openclassrooms.mddapi.models.Comment;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
     List<Comment> findByArticle_Id(Long articleId);
+
+    /**
+     * Retrieves the comments of an article that follow the given comment ID, oldest first.
+     * The author's username is joined in the same statement and no entity is loaded.
+     *
+     * @param articleId the ID of the article
+     * @param afterId the ID of the last comment already read, 0 for the first page
+     * @param limit the maximum number of rows to return
+     * @return the comments as CommentDTO projections
+     */
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.CommentDTO(c.id, c.content, u.id, u.username, c.article.id) "
+            + "FROM Comment c JOIN c.user u "
+            + "WHERE c.article.id = :articleId AND c.id > :afterId "
+            + "ORDER BY c.id")
+    List<CommentDTO> findPageByArticleId(@Param("articleId") Long articleId, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Streams all the comments of an article, oldest first, from a server-side cursor.
+     * The stream must be consumed and closed within a transaction.
+     *
+     * @param articleId the ID of the article
+     * @return the comments as CommentDTO projections
+     */
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = ArticleRepository.STREAM_FETCH_SIZE), @QueryHint(name = HINT_READ_ONLY, value = "true")})
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.CommentDTO(c.id, c.content, u.id, u.username, c.article.id) "
+            + "FROM Comment c JOIN c.user u "
+            + "WHERE c.article.id = :articleId "
+            + "ORDER BY c.id")
+    Stream<CommentDTO> streamByArticleId(@Param("articleId") Long articleId);
+
+    /**
+     * Retrieves the (articleId, commentId) pairs for a batch of articles in a single query.
+     *
+     * @param articleIds the IDs of the articles
+     * @return a list of two-element arrays holding the article ID and the comment ID
+     */
+    @Query("SELECT c.article.id, c.id FROM Comment c WHERE c.article.id IN :articleIds ORDER BY c.id")
+    List<Object[]> findIdsByArticleIds(@Param("articleIds") Collection<Long> articleIds);
 }
@@ -0,0 +1,132 @@
+package com.openclassrooms.mddapi.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.models.FeedEntry;
+import com.openclassrooms.mddapi.models.FeedEntryId;
+
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
+@Repository
+// The native writes declare the table they touch, so that Hibernate does not clear the whole second-level cache
+public interface FeedEntryRepository extends JpaRepository<FeedEntry, FeedEntryId> {
+
+    /**
+     * Retrieves the first page of a user's materialized feed, newest first.
+     *
+     * @param userId the ID of the user
+     * @param limit the maximum number of rows to return
+     * @return the article summaries joined with their author and theme
+     */
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.ArticleSummaryDTO(a.id, a.title, a.content, a.created_at, u.id, u.username, t.id, t.title) "
+            + "FROM FeedEntry f JOIN f.article a JOIN a.user u JOIN a.theme t "
+            + "WHERE f.id.userId = :userId "
+            + "ORDER BY f.created_at DESC, f.id.articleId DESC")
+    List<ArticleSummaryDTO> findFeedPage(@Param("userId") Long userId, Limit limit);
+
+    /**
+     * Retrieves the page of a user's materialized feed that follows the given keyset position.
+     *
+     * @param userId the ID of the user
+     * @param createdAt the creation date of the last article already read
+     * @param id the ID of the last article already read
+     * @param limit the maximum number of rows to return
+     * @return the article summaries joined with their author and theme
+     */
+    @Query("SELECT new com.openclassrooms.mddapi.dtos.ArticleSummaryDTO(a.id, a.title, a.content, a.created_at, u.id, u.username, t.id, t.title) "
+            + "FROM FeedEntry f JOIN f.article a JOIN a.user u JOIN a.theme t "
+            + "WHERE f.id.userId = :userId "
+            + "AND (f.created_at < :createdAt OR (f.created_at = :createdAt AND f.id.articleId < :id)) "
+            + "ORDER BY f.created_at DESC, f.id.articleId DESC")
+    List<ArticleSummaryDTO> findFeedPageAfter(@Param("userId") Long userId,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Limit limit);
+
+    /**
+     * Pushes an article into the feed of every subscriber of its theme in a single statement.
+     *
+     * @param articleId the ID of the article
+     * @param themeId the ID of the article's theme
+     * @param createdAt the creation date of the article
+     * @return the number of feed rows inserted
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_feeds"))
+    @Query(value = "INSERT IGNORE INTO user_feeds (user_id, article_id, theme_id, created_at) "
+            + "SELECT s.user_id, :articleId, :themeId, :createdAt FROM subscriptions s WHERE s.theme_id = :themeId",
+            nativeQuery = true)
+    int fanOut(@Param("articleId") Long articleId, @Param("themeId") Long themeId, @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * Copies a batch of articles into a user's feed, if the user is still subscribed to their theme,
+     * so that a backfill running after the unsubscription has committed does not undo its prune.
+     *
+     * @param userId the ID of the user
+     * @param articleIds the IDs of the articles to copy
+     * @return the number of feed rows inserted
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_feeds"))
+    @Query(value = "INSERT IGNORE INTO user_feeds (user_id, article_id, theme_id, created_at) "
+            + "SELECT s.user_id, a.id, a.theme_id, a.created_at FROM articles a "
+            + "JOIN subscriptions s ON s.theme_id = a.theme_id AND s.user_id = :userId "
+            + "WHERE a.id IN (:articleIds)",
+            nativeQuery = true)
+    int backfill(@Param("userId") Long userId, @Param("articleIds") Collection<Long> articleIds);
+
+    /**
+     * Copies a batch of articles of a theme into the feed of every subscriber of the theme, once the theme
+     * is fanned out on write again; the articles written while it was read at query time are in no feed.
+     *
+     * @param themeId the ID of the theme
+     * @param articleIds the IDs of the articles of the theme to copy
+     * @return the number of feed rows inserted
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_feeds"))
+    @Query(value = "INSERT IGNORE INTO user_feeds (user_id, article_id, theme_id, created_at) "
+            + "SELECT s.user_id, a.id, a.theme_id, a.created_at FROM subscriptions s "
+            + "JOIN articles a ON a.theme_id = s.theme_id "
+            + "WHERE s.theme_id = :themeId AND a.id IN (:articleIds)",
+            nativeQuery = true)
+    int backfillSubscribers(@Param("themeId") Long themeId, @Param("articleIds") Collection<Long> articleIds);
+
+    /**
+     * Removes all the articles of a theme from a user's feed.
+     *
+     * @param userId the ID of the user
+     * @param themeId the ID of the theme
+     * @return the number of feed rows deleted
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "user_feeds"))
+    @Query(value = "DELETE FROM user_feeds WHERE user_id = :userId AND theme_id = :themeId", nativeQuery = true)
+    int prune(@Param("userId") Long userId, @Param("themeId") Long themeId);
+
+    /**
+     * Retrieves the themes whose subscriber count exceeds a threshold.
+     *
+     * @param threshold the subscriber count above which a theme is read at query time
+     * @return the IDs of the themes over the threshold
+     */
+    @Query(value = "SELECT theme_id FROM subscriptions GROUP BY theme_id HAVING COUNT(*) > :threshold",
+            nativeQuery = true)
+    List<Long> findThemesWithMoreSubscribersThan(@Param("threshold") long threshold);
+}
@@ -1,5 +1,6 @@
 package com.openclassrooms.mddapi.repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -10,5 +11,13 @@ import com.openclassrooms.mddapi.models.Theme;
 @Repository
 public interface ThemeRepository extends JpaRepository<Theme, Long> {
     Optional<Theme> findById(Long id);
+
+    /**
+     * Counts the themes among the given IDs that exist.
+     *
+     * @param ids the IDs of the themes
+     * @return the number of existing themes
+     */
+    long countByIdIn(Collection<Long> ids);
 }
 
@@ -1,12 +1,23 @@
 package com.openclassrooms.mddapi.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.openclassrooms.mddapi.models.User;
 
+import jakarta.persistence.QueryHint;
+
+import static org.hibernate.jpa.HibernateHints.HINT_NATIVE_SPACES;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
@@ -17,4 +28,63 @@ public interface UserRepository extends JpaRepository<User, Long> {
     User findByEmail(String email);
 
     User findByUsernameOrEmail(String username, String email);
+
+    /**
+     * Retrieves only the token version of a user, without loading the entity.
+     *
+     * @param id the ID of the user
+     * @return the token version, or null if the user does not exist
+     */
+    @Query("SELECT u.tokenVersion FROM User u WHERE u.id = :id")
+    Long findTokenVersionById(@Param("id") Long id);
+
+    /**
+     * Increments the token version of a user in a single statement.
+     *
+     * @param id the ID of the user
+     * @return the number of rows updated
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE User u SET u.tokenVersion = u.tokenVersion + 1 WHERE u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    /**
+     * Retrieves the IDs of the themes a user is subscribed to, read from the join table only.
+     *
+     * @param userId the ID of the user
+     * @return the theme IDs in ascending order
+     */
+    @Query(value = "SELECT theme_id FROM subscriptions WHERE user_id = :userId ORDER BY theme_id", nativeQuery = true)
+    List<Long> findSubscribedThemeIds(@Param("userId") Long userId);
+
+    /**
+     * Subscribes a user to a batch of themes in a single statement.
+     * Existing subscriptions are skipped thanks to the primary key of the join table, and unknown themes are ignored.
+     * Only the cached subscription sets are invalidated, the cached users and themes are kept.
+     *
+     * @param userId the ID of the user
+     * @param themeIds the IDs of the themes to subscribe to
+     * @return the number of subscriptions created
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "subscriptions"))
+    @Query(value = "INSERT IGNORE INTO subscriptions (user_id, theme_id) "
+            + "SELECT :userId, t.id FROM themes t WHERE t.id IN (:themeIds)",
+            nativeQuery = true)
+    int insertSubscriptions(@Param("userId") Long userId, @Param("themeIds") Collection<Long> themeIds);
+
+    /**
+     * Unsubscribes a user from a batch of themes in a single statement.
+     *
+     * @param userId the ID of the user
+     * @param themeIds the IDs of the themes to unsubscribe from
+     * @return the number of subscriptions deleted
+     */
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "subscriptions"))
+    @Query(value = "DELETE FROM subscriptions WHERE user_id = :userId AND theme_id IN (:themeIds)", nativeQuery = true)
+    int deleteSubscriptions(@Param("userId") Long userId, @Param("themeIds") Collection<Long> themeIds);
 }
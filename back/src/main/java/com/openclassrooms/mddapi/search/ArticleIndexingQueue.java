@@ -0,0 +1,123 @@
+package com.openclassrooms.mddapi.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Bounded queue feeding new articles to the search index in the background.
+ * A single indexer thread drains the queue in batches, so that article creation never waits for
+ * a Lucene commit and several articles created together share one commit.
+ * When the queue is full the article is dropped from the index and counted in the
+ * {@code search.indexing.dropped} metric; a bulk reindex repairs the index.
+ */
+@Component
+public class ArticleIndexingQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleIndexingQueue.class);
+
+    private final ArticleSearchIndex searchIndex;
+    private final BlockingQueue<ArticleSummaryDTO> queue;
+    private final int batchSize;
+    private final Thread indexer;
+    private final Counter droppedCounter;
+    private volatile boolean running = true;
+
+    /**
+     * Constructs a new ArticleIndexingQueue and starts its indexer thread.
+     *
+     * @param searchIndex the index the articles are written to
+     * @param capacity the maximum number of articles waiting to be indexed
+     * @param batchSize the maximum number of articles indexed by a single commit
+     * @param meterRegistry the registry the queue metrics are bound to, if any
+     */
+    public ArticleIndexingQueue(ArticleSearchIndex searchIndex,
+            @Value("${search.indexing.queue-capacity:10000}") int capacity,
+            @Value("${search.indexing.batch-size:500}") int batchSize,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.searchIndex = searchIndex;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.droppedCounter = registry == null ? null : Counter.builder("search.indexing.dropped")
+                .description("Articles left out of the search index because the indexing queue was full")
+                .register(registry);
+        if (registry != null) {
+            Gauge.builder("search.indexing.queue.size", queue, BlockingQueue::size)
+                    .description("Articles waiting to be indexed")
+                    .register(registry);
+        }
+        this.indexer = new Thread(this::drain, "article-indexer");
+        this.indexer.setDaemon(true);
+        this.indexer.start();
+    }
+
+    /**
+     * Queues an article for indexing without blocking.
+     *
+     * @param article the article to index
+     * @return false if the queue was full and the article was dropped
+     */
+    public boolean enqueue(ArticleSummaryDTO article) {
+        if (queue.offer(article)) {
+            return true;
+        }
+        if (droppedCounter != null) {
+            droppedCounter.increment();
+        }
+        logger.warn("Search indexing queue is full, article {} will only be searchable after a reindex", article.getId());
+        return false;
+    }
+
+    /**
+     * Indexes the queued articles batch by batch until the application shuts down.
+     */
+    private void drain() {
+        List<ArticleSummaryDTO> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                ArticleSummaryDTO first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                searchIndex.index(batch);
+                logger.debug("Indexed {} articles", batch.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("Unable to index {} articles, they will only be searchable after a reindex", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Stops the indexer once the queued articles have been indexed.
+     *
+     * @throws InterruptedException if interrupted while waiting for the indexer
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        indexer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+}
@@ -0,0 +1,293 @@
+package com.openclassrooms.mddapi.search;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Embedded on-disk Lucene index of articles.
+ * Title and content are analyzed for full-text search, the theme and author IDs are indexed as points
+ * for filtering, and the fields needed to render a result are stored so that a search never queries MySQL.
+ * All writes go through {@link #index} and {@link #rebuild}, which share a lock so that a rebuild
+ * is published to searchers in a single step. A failed rebuild is rolled back, which closes the writer,
+ * so the writer and its searchers are then reopened on the last commit.
+ */
+@Component
+public class ArticleSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleSearchIndex.class);
+
+    static final String ID = "id";
+    static final String TITLE = "title";
+    static final String CONTENT = "content";
+    static final String THEME_ID = "themeId";
+    static final String THEME_TITLE = "themeTitle";
+    static final String USER_ID = "userId";
+    static final String USERNAME = "username";
+    static final String CREATED_AT = "createdAt";
+
+    private final Directory directory;
+    private final Analyzer analyzer = new StandardAnalyzer();
+    private volatile IndexWriter writer;
+    private volatile SearcherManager searcherManager;
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * Opens the index, creating it if it does not exist yet.
+     *
+     * @param path the directory holding the index files
+     */
+    public ArticleSearchIndex(@Value("${search.index.path:data/search-index}") Path path) {
+        try {
+            this.directory = FSDirectory.open(path);
+            this.writer = openWriter();
+            this.searcherManager = new SearcherManager(writer, null);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the search index at " + path, e);
+        }
+        logger.info("Opened search index at {} with {} articles", path, writer.getDocStats().numDocs);
+    }
+
+    /**
+     * Checks whether the index holds no article, for instance on the first start.
+     *
+     * @return true if the index is empty
+     */
+    public boolean isEmpty() {
+        return writer.getDocStats().numDocs == 0;
+    }
+
+    /**
+     * Adds or replaces a batch of articles, then commits and makes them searchable.
+     *
+     * @param articles the articles to index
+     * @throws IOException if the index cannot be written
+     */
+    public void index(Collection<ArticleSummaryDTO> articles) throws IOException {
+        writeLock.lock();
+        try {
+            for (ArticleSummaryDTO article : articles) {
+                writer.updateDocument(new Term(ID, String.valueOf(article.getId())), toDocument(article));
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole content of the index with the articles read from the given source.
+     * Searchers keep seeing the previous content until the rebuild has been committed.
+     *
+     * @param source the source of the articles, read batch by batch until it returns an empty list
+     * @return the number of indexed articles
+     * @throws IOException if the index cannot be written
+     */
+    public long rebuild(BatchSource source) throws IOException {
+        writeLock.lock();
+        try {
+            writer.deleteAll();
+            long count = 0;
+            for (List<ArticleSummaryDTO> batch = source.next(); !batch.isEmpty(); batch = source.next()) {
+                for (ArticleSummaryDTO article : batch) {
+                    writer.addDocument(toDocument(article));
+                }
+                count += batch.size();
+            }
+            writer.commit();
+            searcherManager.maybeRefresh();
+            return count;
+        } catch (IOException | RuntimeException e) {
+            try {
+                writer.rollback();
+                reopen();
+            } catch (IOException reopenFailure) {
+                e.addSuppressed(reopenFailure);
+            }
+            throw e;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Searches the articles matching a query, best matches first.
+     * The query supports the simple syntax: quoted phrases, {@code +} and {@code -} operators and {@code *} prefixes;
+     * all terms are required by default and title matches weigh twice as much as content matches.
+     *
+     * @param text the query typed by the user
+     * @param themeId the theme the results must belong to, or null
+     * @param userId the author the results must be written by, or null
+     * @param offset the number of results to skip
+     * @param limit the maximum number of results to return
+     * @return the page of results with the total number of hits
+     * @throws IOException if the index cannot be read
+     */
+    public SearchResult search(String text, Long themeId, Long userId, int offset, int limit) throws IOException {
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, Map.of(TITLE, 2f, CONTENT, 1f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(parser.parse(text), BooleanClause.Occur.MUST);
+        if (themeId != null) {
+            query.add(LongPoint.newExactQuery(THEME_ID, themeId), BooleanClause.Occur.FILTER);
+        }
+        if (userId != null) {
+            query.add(LongPoint.newExactQuery(USER_ID, userId), BooleanClause.Occur.FILTER);
+        }
+        return search(query.build(), offset, limit);
+    }
+
+    /**
+     * Runs a query and reads the stored fields of the requested page of hits.
+     *
+     * @param query the Lucene query
+     * @param offset the number of results to skip
+     * @param limit the maximum number of results to return
+     * @return the page of results with the total number of hits
+     * @throws IOException if the index cannot be read
+     */
+    private SearchResult search(Query query, int offset, int limit) throws IOException {
+        // The manager is replaced after a failed rebuild, so the searcher is released to the one it came from
+        SearcherManager manager = searcherManager;
+        IndexSearcher searcher = manager.acquire();
+        try {
+            TopDocs topDocs = searcher.search(query, offset + limit);
+            StoredFields storedFields = searcher.storedFields();
+            List<ArticleSummaryDTO> articles = new ArrayList<>(limit);
+            ScoreDoc[] hits = topDocs.scoreDocs;
+            for (int i = offset; i < hits.length; i++) {
+                articles.add(toSummary(storedFields.document(hits[i].doc)));
+            }
+            return new SearchResult(articles, topDocs.totalHits.value);
+        } finally {
+            manager.release(searcher);
+        }
+    }
+
+    /**
+     * Closes the index when the application shuts down.
+     *
+     * @throws IOException if the index cannot be closed
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    private IndexWriter openWriter() throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+        return new IndexWriter(directory, config);
+    }
+
+    /**
+     * Opens a new writer and searcher manager on the last commit, after a rollback closed the writer.
+     * Searches running on the previous manager finish on the searcher they acquired.
+     *
+     * @throws IOException if the index cannot be opened
+     */
+    private void reopen() throws IOException {
+        SearcherManager previous = searcherManager;
+        writer = openWriter();
+        searcherManager = new SearcherManager(writer, null);
+        previous.close();
+        logger.warn("Reopened the search index on its last commit after a failed rebuild");
+    }
+
+    private static Document toDocument(ArticleSummaryDTO article) {
+        Document document = new Document();
+        document.add(new StringField(ID, String.valueOf(article.getId()), Field.Store.YES));
+        document.add(new TextField(TITLE, article.getTitle(), Field.Store.YES));
+        document.add(new TextField(CONTENT, article.getContent(), Field.Store.YES));
+        document.add(new LongPoint(THEME_ID, article.getThemeId()));
+        document.add(new StoredField(THEME_ID, article.getThemeId()));
+        document.add(new StoredField(THEME_TITLE, Objects.toString(article.getThemeTitle(), "")));
+        document.add(new LongPoint(USER_ID, article.getUserId()));
+        document.add(new StoredField(USER_ID, article.getUserId()));
+        document.add(new StoredField(USERNAME, Objects.toString(article.getUsername(), "")));
+        document.add(new StoredField(CREATED_AT, String.valueOf(article.getCreated_at())));
+        return document;
+    }
+
+    private static ArticleSummaryDTO toSummary(Document document) {
+        String createdAt = document.get(CREATED_AT);
+        return ArticleSummaryDTO.builder()
+                .id(Long.valueOf(document.get(ID)))
+                .title(document.get(TITLE))
+                .content(document.get(CONTENT))
+                .themeId(document.getField(THEME_ID).numericValue().longValue())
+                .themeTitle(document.get(THEME_TITLE))
+                .userId(document.getField(USER_ID).numericValue().longValue())
+                .username(document.get(USERNAME))
+                .created_at("null".equals(createdAt) ? null : LocalDateTime.parse(createdAt))
+                .build();
+    }
+
+    /**
+     * A source of articles read batch by batch during a rebuild.
+     */
+    @FunctionalInterface
+    public interface BatchSource {
+
+        /**
+         * Reads the next batch of articles.
+         *
+         * @return the next batch, empty once all articles have been read
+         */
+        List<ArticleSummaryDTO> next();
+    }
+
+    /**
+     * A page of search results with the total number of hits.
+     * The total is exact up to 1000 hits and a lower bound beyond.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class SearchResult {
+        private final List<ArticleSummaryDTO> articles;
+        private final long totalHits;
+    }
+}
@@ -0,0 +1,43 @@
+package com.openclassrooms.mddapi.search;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.services.ArticleSearchService;
+
+/**
+ * Rebuilds the search index from MySQL at startup when the application is started with
+ * {@code --reindex-search}, or when the index is empty, for instance on the first start.
+ */
+@Component
+public class SearchReindexRunner implements ApplicationRunner {
+
+    static final String REINDEX_OPTION = "reindex-search";
+
+    private final ArticleSearchService articleSearchService;
+    private final ArticleSearchIndex searchIndex;
+
+    /**
+     * Constructs a new SearchReindexRunner.
+     *
+     * @param articleSearchService the service rebuilding the index
+     * @param searchIndex the index to rebuild
+     */
+    public SearchReindexRunner(ArticleSearchService articleSearchService, ArticleSearchIndex searchIndex) {
+        this.articleSearchService = articleSearchService;
+        this.searchIndex = searchIndex;
+    }
+
+    /**
+     * Rebuilds the index if requested or needed.
+     *
+     * @param args the application arguments
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        if (args.containsOption(REINDEX_OPTION) || searchIndex.isEmpty()) {
+            articleSearchService.reindex();
+        }
+    }
+}
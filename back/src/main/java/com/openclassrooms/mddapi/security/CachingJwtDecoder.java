@@ -0,0 +1,155 @@
+package com.openclassrooms.mddapi.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * {@link JwtDecoder} keeping recently verified tokens in a bounded cache keyed by the SHA-256 hash of the token.
+ * A cache hit skips JSON parsing and signature verification; an entry never outlives the expiry of its token.
+ * Validators that depend on mutable state, such as the token version check, still run on every request.
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    // Cloned for each token, which skips the provider lookup of MessageDigest.getInstance
+    private static final MessageDigest DIGEST_PROTOTYPE = newDigest();
+
+    private final JwtDecoder delegate;
+    private final OAuth2TokenValidator<Jwt> perRequestValidator;
+    private final Cache<ByteBuffer, Jwt> verifiedTokens;
+
+    /**
+     * Constructs a new CachingJwtDecoder.
+     *
+     * @param delegate the decoder verifying the signature and timestamps of tokens that are not cached
+     * @param perRequestValidator the validator applied to every token, cached or not
+     * @param maxSize the maximum number of verified tokens kept in memory
+     * @param maxTtl the maximum time a verified token is kept, even if it expires later
+     */
+    public CachingJwtDecoder(JwtDecoder delegate, OAuth2TokenValidator<Jwt> perRequestValidator, long maxSize, Duration maxTtl) {
+        this.delegate = delegate;
+        this.perRequestValidator = perRequestValidator;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry(maxTtl))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the underlying cache, for instance to bind its statistics to a meter registry.
+     *
+     * @return the cache of verified tokens
+     */
+    public Cache<ByteBuffer, Jwt> getCache() {
+        return verifiedTokens;
+    }
+
+    /**
+     * Decodes the given token, reusing a previous verification when the token is cached.
+     *
+     * @param token the compact serialized token
+     * @return the decoded token
+     * @throws JwtException if the token is invalid, expired or rejected by a validator
+     */
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        ByteBuffer key = hash(token);
+        Jwt jwt = verifiedTokens.getIfPresent(key);
+        if (jwt == null || isExpired(jwt)) {
+            jwt = delegate.decode(token);
+            verifiedTokens.put(key, jwt);
+        }
+        OAuth2TokenValidatorResult result = perRequestValidator.validate(jwt);
+        if (result.hasErrors()) {
+            String description = result.getErrors().iterator().next().getDescription();
+            throw new JwtValidationException(description, result.getErrors());
+        }
+        return jwt;
+    }
+
+    /**
+     * Hashes a token into a cache key, so that raw tokens are never retained in memory.
+     *
+     * @param token the compact serialized token
+     * @return the SHA-256 hash of the token
+     */
+    private static ByteBuffer hash(String token) {
+        return ByteBuffer.wrap(copyDigest().digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Clones the SHA-256 prototype, or creates a new digest if the provider does not support cloning.
+     *
+     * @return a fresh SHA-256 digest
+     */
+    private static MessageDigest copyDigest() {
+        try {
+            return (MessageDigest) DIGEST_PROTOTYPE.clone();
+        } catch (CloneNotSupportedException e) {
+            return newDigest();
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Checks whether a cached token has expired since it was verified.
+     *
+     * @param jwt the cached token
+     * @return true if the token is expired
+     */
+    private static boolean isExpired(Jwt jwt) {
+        return jwt.getExpiresAt() != null && !Instant.now().isBefore(jwt.getExpiresAt());
+    }
+
+    /**
+     * Expires each cached token at its own expiry time, bounded by a maximum TTL.
+     */
+    private static final class TokenExpiry implements Expiry<ByteBuffer, Jwt> {
+        private final long maxTtlNanos;
+
+        TokenExpiry(Duration maxTtl) {
+            this.maxTtlNanos = maxTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, Jwt jwt, long currentTime) {
+            if (jwt.getExpiresAt() == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = Duration.between(Instant.now(), jwt.getExpiresAt()).toNanos();
+            return Math.max(0, Math.min(untilExpiry, maxTtlNanos));
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, jwt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, Jwt jwt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.openclassrooms.mddapi.security;
+
+import java.security.Key;
+import java.security.MessageDigest;
+import java.util.Set;
+
+import javax.crypto.SecretKey;
+
+import org.springframework.security.oauth2.jwt.JwtValidators;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSVerifier;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.proc.JWSVerifierFactory;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.nimbusds.jose.proc.SingleKeyJWSKeySelector;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.proc.DefaultJWTProcessor;
+
+/**
+ * Nimbus verifier factory for HS256 tokens backed by a {@link PooledHmac}.
+ * The default factory creates a new verifier, and with it a new Mac, for every token.
+ */
+public class HmacJwsVerifierFactory implements JWSVerifierFactory {
+
+    private static final Set<JWSAlgorithm> ALGORITHMS = Set.of(JWSAlgorithm.HS256);
+
+    private final JCAContext jcaContext = new JCAContext();
+    private final JWSVerifier verifier;
+
+    /**
+     * Constructs a new HmacJwsVerifierFactory.
+     *
+     * @param hmac the pooled HMAC used to verify signatures
+     */
+    public HmacJwsVerifierFactory(PooledHmac hmac) {
+        this.verifier = new JWSVerifier() {
+            @Override
+            public boolean verify(JWSHeader header, byte[] signingInput, Base64URL signature) {
+                // Constant-time comparison to avoid leaking how much of the signature matched
+                return MessageDigest.isEqual(hmac.compute(signingInput), signature.decode());
+            }
+
+            @Override
+            public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+                return ALGORITHMS;
+            }
+
+            @Override
+            public JCAContext getJCAContext() {
+                return jcaContext;
+            }
+        };
+    }
+
+    /**
+     * Creates a decoder verifying HS256 tokens with the given pooled HMAC.
+     * Claims are checked by Spring Security's default validators, as {@link NimbusJwtDecoder} does by default.
+     *
+     * @param hmac the pooled HMAC used to verify signatures
+     * @param secretKey the HMAC key, used by Nimbus to select the verifier
+     * @return the decoder
+     */
+    public static NimbusJwtDecoder createDecoder(PooledHmac hmac, SecretKey secretKey) {
+        DefaultJWTProcessor<SecurityContext> jwtProcessor = new DefaultJWTProcessor<>();
+        jwtProcessor.setJWSKeySelector(new SingleKeyJWSKeySelector<>(JWSAlgorithm.HS256, secretKey));
+        jwtProcessor.setJWSVerifierFactory(new HmacJwsVerifierFactory(hmac));
+        jwtProcessor.setJWTClaimsSetVerifier((claims, context) -> { });
+
+        NimbusJwtDecoder decoder = new NimbusJwtDecoder(jwtProcessor);
+        decoder.setJwtValidator(JwtValidators.createDefault());
+        return decoder;
+    }
+
+    /**
+     * Returns the shared verifier; the key is already bound to the pooled Mac instances.
+     *
+     * @param header the header of the token to verify
+     * @param key the key selected for the token, ignored
+     * @return the shared verifier
+     * @throws JOSEException if the token is not signed with HS256
+     */
+    @Override
+    public JWSVerifier createJWSVerifier(JWSHeader header, Key key) throws JOSEException {
+        if (!JWSAlgorithm.HS256.equals(header.getAlgorithm())) {
+            throw new JOSEException("Unsupported JWS algorithm " + header.getAlgorithm());
+        }
+        return verifier;
+    }
+
+    @Override
+    public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+        return ALGORITHMS;
+    }
+
+    @Override
+    public JCAContext getJCAContext() {
+        return jcaContext;
+    }
+}
@@ -0,0 +1,106 @@
+package com.openclassrooms.mddapi.security;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtEncodingException;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.JWSObject;
+import com.nimbusds.jose.JWSSigner;
+import com.nimbusds.jose.Payload;
+import com.nimbusds.jose.jca.JCAContext;
+import com.nimbusds.jose.util.Base64URL;
+import com.nimbusds.jwt.JWTClaimsSet;
+
+/**
+ * HS256 {@link JwtEncoder} signing tokens with a {@link PooledHmac}.
+ * It produces the same compact tokens as the Nimbus encoder for the claims issued by {@link JWTService},
+ * without creating a new signer and Mac for every token.
+ */
+public class HmacJwtEncoder implements JwtEncoder {
+
+    private static final String ENCODING_ERROR = "An error occurred while attempting to encode the Jwt: %s";
+
+    private static final Set<JWSAlgorithm> ALGORITHMS = Set.of(JWSAlgorithm.HS256);
+
+    private final JWSSigner signer;
+
+    /**
+     * Constructs a new HmacJwtEncoder.
+     *
+     * @param hmac the pooled HMAC used to sign tokens
+     */
+    public HmacJwtEncoder(PooledHmac hmac) {
+        JCAContext jcaContext = new JCAContext();
+        this.signer = new JWSSigner() {
+            @Override
+            public Base64URL sign(JWSHeader header, byte[] signingInput) {
+                return Base64URL.encode(hmac.compute(signingInput));
+            }
+
+            @Override
+            public Set<JWSAlgorithm> supportedJWSAlgorithms() {
+                return ALGORITHMS;
+            }
+
+            @Override
+            public JCAContext getJCAContext() {
+                return jcaContext;
+            }
+        };
+    }
+
+    /**
+     * Encodes and signs the given claims.
+     *
+     * @param parameters the header and claims of the token
+     * @return the signed token
+     * @throws JwtEncodingException if the header does not request HS256 or signing fails
+     */
+    @Override
+    public Jwt encode(JwtEncoderParameters parameters) throws JwtEncodingException {
+        JwsHeader headers = parameters.getJwsHeader();
+        if (headers != null && !MacAlgorithm.HS256.equals(headers.getAlgorithm())) {
+            throw new JwtEncodingException(String.format(ENCODING_ERROR, "Unsupported algorithm " + headers.getAlgorithm()));
+        }
+        JwtClaimsSet claims = parameters.getClaims();
+
+        JWSObject jwsObject = new JWSObject(new JWSHeader(JWSAlgorithm.HS256), new Payload(toNimbusClaims(claims).toJSONObject()));
+        try {
+            jwsObject.sign(signer);
+        } catch (JOSEException e) {
+            throw new JwtEncodingException(String.format(ENCODING_ERROR, e.getMessage()), e);
+        }
+
+        return Jwt.withTokenValue(jwsObject.serialize())
+                .header("alg", MacAlgorithm.HS256.getName())
+                .claims(claimMap -> claimMap.putAll(claims.getClaims()))
+                .build();
+    }
+
+    /**
+     * Converts Spring claims to Nimbus claims, turning instants into dates as Nimbus expects.
+     *
+     * @param claims the Spring claims
+     * @return the Nimbus claims
+     */
+    private static JWTClaimsSet toNimbusClaims(JwtClaimsSet claims) {
+        JWTClaimsSet.Builder builder = new JWTClaimsSet.Builder();
+        for (Map.Entry<String, Object> claim : claims.getClaims().entrySet()) {
+            Object value = claim.getValue();
+            builder.claim(claim.getKey(), value instanceof Instant instant ? Date.from(instant) : value);
+        }
+        return builder.build();
+    }
+}
@@ -14,18 +14,43 @@ import java.time.temporal.ChronoUnit;
 
 /**
  * This class provides functionality for generating JWT tokens.
+ * When {@code jwt.rich-claims.enabled} is set, tokens also carry the user ID and the
+ * user's token version so that the caller can be resolved without a user lookup.
  */
 @Service
 public class JWTService {
+
+    /**
+     * The claim holding the ID of the user in rich tokens.
+     */
+    public static final String CLAIM_USER_ID = "uid";
+
+    /**
+     * The claim holding the token version of the user in rich tokens.
+     */
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+
     private final JwtEncoder jwtEncoder;
+    private final TokenVersionService tokenVersionService;
 
     /**
      * Constructs a new JWTService with the specified JwtEncoder.
      *
      * @param jwtEncoder the JwtEncoder to use for encoding JWT tokens
+     * @param tokenVersionService the service providing the token versions of rich tokens
      */
-    public JWTService(JwtEncoder jwtEncoder) {
+    public JWTService(JwtEncoder jwtEncoder, TokenVersionService tokenVersionService) {
         this.jwtEncoder = jwtEncoder;
+        this.tokenVersionService = tokenVersionService;
+    }
+
+    /**
+     * Checks whether rich tokens are issued.
+     *
+     * @return true if tokens carry the user ID and token version
+     */
+    public boolean isRichClaimsEnabled() {
+        return tokenVersionService.isEnabled();
     }
 
     /**
@@ -35,14 +60,48 @@ public class JWTService {
      * @return the generated JWT token
      */
     public String generateToken(Authentication authentication) {
+        return encode(baseClaims(authentication.getName()).build());
+    }
+
+    /**
+     * Generates a JWT token for the given subject, adding the rich claims when they are enabled.
+     *
+     * @param subject the subject of the token, usually the username
+     * @param userId the ID of the user
+     * @return the generated JWT token
+     */
+    public String generateToken(String subject, Long userId) {
+        JwtClaimsSet.Builder claims = baseClaims(subject);
+        if (isRichClaimsEnabled()) {
+            claims.claim(CLAIM_USER_ID, userId)
+                    .claim(CLAIM_TOKEN_VERSION, tokenVersionService.currentVersion(userId));
+        }
+        return encode(claims.build());
+    }
+
+    /**
+     * Builds the claims shared by every token.
+     *
+     * @param subject the subject of the token
+     * @return the claims builder
+     */
+    private JwtClaimsSet.Builder baseClaims(String subject) {
         Instant now = Instant.now();
-        JwtClaimsSet claims = JwtClaimsSet.builder()
+        return JwtClaimsSet.builder()
                 .issuer("self")
                 .issuedAt(now)
                 .expiresAt(now.plus(1, ChronoUnit.DAYS))
-                .subject(authentication.getName())
-                .build();
+                .subject(subject);
+    }
+
+    /**
+     * Signs the given claims.
+     *
+     * @param claims the claims of the token
+     * @return the encoded token
+     */
+    private String encode(JwtClaimsSet claims) {
         JwtEncoderParameters jwtEncoderParameters = JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims);
         return this.jwtEncoder.encode(jwtEncoderParameters).getTokenValue();
     }
-}
\ No newline at end of file
+}
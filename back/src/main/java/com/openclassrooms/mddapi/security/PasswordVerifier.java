@@ -0,0 +1,107 @@
+package com.openclassrooms.mddapi.security;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.exceptions.LoginOverloadedException;
+
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Runs BCrypt password checks on a dedicated, bounded executor.
+ * A login storm can then only use {@code login.bcrypt.threads} cores, and once
+ * {@code login.bcrypt.queue-capacity} checks are waiting, further logins fail fast
+ * with a {@link LoginOverloadedException} instead of holding request threads.
+ */
+@Component
+public class PasswordVerifier {
+
+    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+    private final ContextSnapshotFactory contextSnapshots = ContextSnapshotFactory.builder().build();
+
+    /**
+     * Constructs a new PasswordVerifier.
+     *
+     * @param bCryptPasswordEncoder the encoder checking the passwords
+     * @param threads the number of threads running BCrypt checks, 0 for one per available processor
+     * @param queueCapacity the maximum number of checks waiting for a thread
+     * @param timeout the maximum time a login waits for its check
+     */
+    public PasswordVerifier(BCryptPasswordEncoder bCryptPasswordEncoder,
+            @Value("${login.bcrypt.threads:0}") int threads,
+            @Value("${login.bcrypt.queue-capacity:64}") int queueCapacity,
+            @Value("${login.bcrypt.timeout:5s}") Duration timeout) {
+        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.timeout = timeout;
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "bcrypt-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Checks a raw password against its BCrypt hash on the dedicated executor.
+     *
+     * @param rawPassword the password submitted by the user
+     * @param encodedPassword the stored BCrypt hash
+     * @return true if the password matches
+     * @throws LoginOverloadedException if the queue is full or the check does not complete in time
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        Future<Boolean> check;
+        try {
+            // The check runs in the trace of the login request
+            check = executor.submit(contextSnapshots.captureAll().wrap(() -> bCryptPasswordEncoder.matches(rawPassword, encodedPassword)));
+        } catch (RejectedExecutionException e) {
+            throw new LoginOverloadedException("Too many login attempts in progress, please retry later.");
+        }
+        try {
+            return check.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            check.cancel(true);
+            throw new LoginOverloadedException("Too many login attempts in progress, please retry later.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LoginOverloadedException("The login was interrupted.");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("The password check failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Returns the number of password checks waiting for a thread.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Stops the executor when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
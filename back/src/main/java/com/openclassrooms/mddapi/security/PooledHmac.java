@@ -0,0 +1,95 @@
+package com.openclassrooms.mddapi.security;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+
+/**
+ * HMAC-SHA256 helper reusing initialised {@link Mac} instances from a small shared pool.
+ * Looking up and initialising a Mac is a large part of the cost of signing or verifying a short token,
+ * so a prototype is initialised once and cloned when the pool is empty. The pool is not tied to threads,
+ * so virtual threads, which are never reused, share the same few instances.
+ */
+public class PooledHmac {
+
+    /**
+     * The JCA name of the HMAC algorithm used for HS256 tokens.
+     */
+    public static final String ALGORITHM = "HmacSHA256";
+
+    private final SecretKey secretKey;
+    private final Mac prototype;
+    private final BlockingQueue<Mac> idle;
+
+    /**
+     * Constructs a new PooledHmac for the given key, keeping up to two idle instances per processor.
+     *
+     * @param secretKey the HMAC key
+     */
+    public PooledHmac(SecretKey secretKey) {
+        this(secretKey, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a new PooledHmac for the given key.
+     *
+     * @param secretKey the HMAC key
+     * @param maxIdle the maximum number of idle instances kept for reuse
+     */
+    public PooledHmac(SecretKey secretKey, int maxIdle) {
+        this.secretKey = secretKey;
+        this.prototype = newMac(secretKey);
+        this.idle = new ArrayBlockingQueue<>(maxIdle);
+    }
+
+    /**
+     * Computes the HMAC of the given input.
+     *
+     * @param input the bytes to authenticate
+     * @return the HMAC of the input
+     */
+    public byte[] compute(byte[] input) {
+        Mac mac = idle.poll();
+        if (mac == null) {
+            mac = copyPrototype();
+        }
+        // doFinal resets the Mac, so the instance is ready for the next caller; it is dropped if the pool is full
+        byte[] result = mac.doFinal(input);
+        idle.offer(mac);
+        return result;
+    }
+
+    /**
+     * Clones the initialised prototype, or initialises a new Mac if the provider does not support cloning.
+     *
+     * @return a Mac ready to use
+     */
+    private Mac copyPrototype() {
+        try {
+            // The prototype is never used after its initialisation, so concurrent clones only read it
+            return (Mac) prototype.clone();
+        } catch (CloneNotSupportedException e) {
+            return newMac(secretKey);
+        }
+    }
+
+    /**
+     * Creates and initialises a Mac for the given key.
+     *
+     * @param secretKey the HMAC key
+     * @return the initialised Mac
+     */
+    private static Mac newMac(SecretKey secretKey) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(secretKey);
+            return mac;
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Unable to initialise " + ALGORITHM, e);
+        }
+    }
+}
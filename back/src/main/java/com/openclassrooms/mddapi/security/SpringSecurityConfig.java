@@ -1,30 +1,40 @@
 package com.openclassrooms.mddapi.security;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import javax.crypto.spec.SecretKeySpec;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
-import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
-import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.openclassrooms.mddapi.controllers.ArticleController;
+import com.openclassrooms.mddapi.controllers.UserController;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 
 /**
  * Configuration class for Spring Security.
@@ -42,6 +52,18 @@ public class SpringSecurityConfig {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    @Value("${jwt.decoder.cache.max-size:10000}")
+    private long jwtCacheMaxSize;
+
+    @Value("${jwt.decoder.cache.max-ttl:10m}")
+    private Duration jwtCacheMaxTtl;
+
+    @Value("${metrics.scrape.allowed-addresses:127.0.0.1,::1}")
+    private List<String> scrapeAllowedAddresses;
+
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     /**
      * Returns the authentication manager used for authenticating users.
      *
@@ -62,8 +84,9 @@ public class SpringSecurityConfig {
     CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Collections.singletonList(clientUrl));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type", "If-Modified-Since", "If-None-Match", "Last-Event-ID"));
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Last-Modified", ArticleController.NEXT_CURSOR_HEADER, ArticleController.TOTAL_COUNT_HEADER, UserController.REFRESHED_TOKEN_HEADER));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -80,43 +103,82 @@ public class SpringSecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Creates the pooled HMAC shared by the JWT encoder and decoder.
+     * 
+     * @return The PooledHmac bean.
+     */
+    @Bean
+    public PooledHmac jwtHmac() {
+        return new PooledHmac(new SecretKeySpec(this.jwtSecret.getBytes(), PooledHmac.ALGORITHM));
+    }
+
     /**
      * Creates a JwtEncoder bean.
      * 
+     * @param jwtHmac The pooled HMAC used to sign tokens.
      * @return The JwtEncoder bean.
      */
     @Bean
-    public JwtEncoder jwtEncoder() {
-        return new NimbusJwtEncoder(new ImmutableSecret<>(this.jwtSecret.getBytes()));
+    public JwtEncoder jwtEncoder(PooledHmac jwtHmac) {
+        return new HmacJwtEncoder(jwtHmac);
     }
 
     /**
      * Creates a JwtDecoder bean.
+     * Tokens are verified with the pooled HMAC and checked against the default timestamp validators,
+     * then kept in a verified-token cache. Rich tokens are rejected on every request when their token version is stale.
      * 
+     * @param jwtHmac The pooled HMAC used to verify signatures.
+     * @param tokenVersionService The service providing the current token versions.
+     * @param meterRegistry The registry the cache metrics are bound to, if any.
      * @return The JwtDecoder bean.
      */
     @Bean
-    public JwtDecoder jwtDecoder() {
-        SecretKeySpec secretKey = new SecretKeySpec(this.jwtSecret.getBytes(), "HmacSHA256");
-        return NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+    public JwtDecoder jwtDecoder(PooledHmac jwtHmac, TokenVersionService tokenVersionService, ObjectProvider<MeterRegistry> meterRegistry) {
+        SecretKeySpec secretKey = new SecretKeySpec(this.jwtSecret.getBytes(), PooledHmac.ALGORITHM);
+        NimbusJwtDecoder verifyingDecoder = HmacJwsVerifierFactory.createDecoder(jwtHmac, secretKey);
+        CachingJwtDecoder decoder = new CachingJwtDecoder(verifyingDecoder, new TokenVersionValidator(tokenVersionService),
+                jwtCacheMaxSize, jwtCacheMaxTtl);
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, decoder.getCache(), "jwt.verified"));
+        return decoder;
     }
 
     /**
      * Configures the security filter chain.
      * 
      * @param http The HttpSecurity object.
+     * @param jwtDecoder The JwtDecoder used to authenticate bearer tokens.
      * @return The configured SecurityFilterChain.
      * @throws Exception If an error occurs during configuration.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, JwtDecoder jwtDecoder) throws Exception {
         http.cors(cors -> cors.configurationSource(corsConfigurationSource()));
         http.csrf(AbstractHttpConfigurer::disable);
         http.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS));
         http.authorizeHttpRequests(authorize -> authorize
             .requestMatchers("/auth/register", "/auth/login").permitAll() // Allow access without authentication
+            .requestMatchers(EndpointRequest.to("prometheus", "sqlstats")).access(scrapeAuthorization()) // Reached without a token, on the management port from allowed addresses only
             .anyRequest().authenticated());
-        http.oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.decoder(jwtDecoder())));
+        http.oauth2ResourceServer(oauth2 -> oauth2.jwt(jwt -> jwt.decoder(jwtDecoder)));
         return http.build();
     }
+
+    /**
+     * Grants access to the requests coming from one of the addresses allowed to scrape metrics, and, when
+     * actuator runs on its own port, received on that port. A reverse proxy on the same host forwards to the
+     * application port only, so the requests it relays from 127.0.0.1 are not let through.
+     *
+     * @return The AuthorizationManager of the Prometheus and SQL statistics endpoints.
+     */
+    private AuthorizationManager<RequestAuthorizationContext> scrapeAuthorization() {
+        List<IpAddressMatcher> matchers = scrapeAllowedAddresses.stream()
+                .map(String::trim)
+                .map(IpAddressMatcher::new)
+                .toList();
+        return (authentication, context) -> new AuthorizationDecision(
+                (managementPort <= 0 || context.getRequest().getLocalPort() == managementPort)
+                        && matchers.stream().anyMatch(matcher -> matcher.matches(context.getRequest())));
+    }
 }
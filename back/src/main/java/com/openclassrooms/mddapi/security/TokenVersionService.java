@@ -0,0 +1,95 @@
+package com.openclassrooms.mddapi.security;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.mddapi.repository.UserRepository;
+
+/**
+ * This class tracks the token version of users for the rich JWT token format.
+ * Versions are read with a single-column query and kept in a short-lived cache, so checking
+ * a token never loads the whole user.
+ */
+@Service
+public class TokenVersionService {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final AsyncCache<Long, Long> versions;
+
+    /**
+     * Constructs a new TokenVersionService.
+     *
+     * @param userRepository the repository used to read and increment token versions
+     * @param enabled whether rich JWT claims are issued and checked
+     * @param ttl the time after which a cached version is read again
+     */
+    public TokenVersionService(UserRepository userRepository,
+            @Value("${jwt.rich-claims.enabled:false}") boolean enabled,
+            @Value("${jwt.rich-claims.version-ttl:30s}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+    }
+
+    /**
+     * Checks whether the rich token format is enabled.
+     *
+     * @return true if tokens carry the user ID and token version
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Retrieves the current token version of a user.
+     *
+     * The first thread missing a user caches a pending entry and runs the query itself, outside the
+     * cache's internal lock, so that virtual threads are not pinned. A {@link #bump} during the query
+     * drops the pending entry, so a version read before the bump is never cached after it.
+     *
+     * @param userId the ID of the user
+     * @return the current token version, or null if the user does not exist
+     */
+    public Long currentVersion(Long userId) {
+        CompletableFuture<Long> pending = new CompletableFuture<>();
+        CompletableFuture<Long> entry = versions.get(userId, (key, executor) -> pending);
+        if (entry == pending) {
+            try {
+                // A null version completes the entry with null, which the cache then drops
+                pending.complete(userRepository.findTokenVersionById(userId));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Increments the token version of a user so that previously issued rich tokens become stale.
+     * Nothing is written when the rich token format is disabled.
+     *
+     * @param userId the ID of the user whose profile changed
+     */
+    public void bump(Long userId) {
+        if (!enabled) {
+            return;
+        }
+        userRepository.incrementTokenVersion(userId);
+        versions.synchronous().invalidate(userId);
+    }
+}
@@ -0,0 +1,47 @@
+package com.openclassrooms.mddapi.security;
+
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.OAuth2ErrorCodes;
+import org.springframework.security.oauth2.core.OAuth2TokenValidator;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+/**
+ * Rejects rich JWT tokens whose token version no longer matches the user's current version.
+ * Tokens without the rich claims are accepted unchanged.
+ */
+public class TokenVersionValidator implements OAuth2TokenValidator<Jwt> {
+
+    private static final OAuth2Error STALE_TOKEN = new OAuth2Error(OAuth2ErrorCodes.INVALID_TOKEN,
+            "The token is stale, the user profile has changed since it was issued", null);
+
+    private final TokenVersionService tokenVersionService;
+
+    /**
+     * Constructs a new TokenVersionValidator.
+     *
+     * @param tokenVersionService the service providing the current token versions
+     */
+    public TokenVersionValidator(TokenVersionService tokenVersionService) {
+        this.tokenVersionService = tokenVersionService;
+    }
+
+    /**
+     * Validates the token version claim of the given token.
+     *
+     * @param jwt the decoded token
+     * @return a successful result, or a failure if the token is stale
+     */
+    @Override
+    public OAuth2TokenValidatorResult validate(Jwt jwt) {
+        if (!jwt.hasClaim(JWTService.CLAIM_USER_ID) || !jwt.hasClaim(JWTService.CLAIM_TOKEN_VERSION)) {
+            return OAuth2TokenValidatorResult.success();
+        }
+        Long userId = ((Number) jwt.getClaim(JWTService.CLAIM_USER_ID)).longValue();
+        Long tokenVersion = ((Number) jwt.getClaim(JWTService.CLAIM_TOKEN_VERSION)).longValue();
+        if (!tokenVersion.equals(tokenVersionService.currentVersion(userId))) {
+            return OAuth2TokenValidatorResult.failure(STALE_TOKEN);
+        }
+        return OAuth2TokenValidatorResult.success();
+    }
+}
@@ -0,0 +1,318 @@
+package com.openclassrooms.mddapi.services;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.exceptions.StreamOverloadedException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process broadcaster pushing new articles to the Server-Sent Events connections of the users
+ * subscribed to their theme.
+ *
+ * <p>Publishing never blocks: each connection has a bounded buffer drained by its own virtual thread,
+ * so an idle connection costs a parked virtual thread and a slow client only ever blocks its own writer.
+ * A connection whose buffer is full is evicted, and the client reconnects with {@code Last-Event-ID}.
+ * Idle connections receive a heartbeat comment so that proxies do not close them.
+ *
+ * <p>Events are numbered by a sequence that starts from the startup time, and the latest ones are kept
+ * for resuming. When the events following the client's {@code Last-Event-ID} are no longer retained,
+ * for instance after a restart, a {@value #RESYNC_EVENT} event tells the client to reload its feed.
+ */
+@Component
+public class ArticleBroadcaster {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleBroadcaster.class);
+
+    /**
+     * The name of the events carrying a new article.
+     */
+    public static final String ARTICLE_EVENT = "article";
+
+    /**
+     * The name of the event asking the client to reload its feed because events were missed.
+     */
+    public static final String RESYNC_EVENT = "resync";
+
+    private final int bufferSize;
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final int replaySize;
+    private final int maxConnections;
+    private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+    private final Deque<StreamEvent> recentEvents = new ArrayDeque<>();
+    private final ThreadFactory writerThreads = Thread.ofVirtual().name("sse-writer-", 0).factory();
+    private final Counter evictedCounter;
+    private long nextEventId = System.currentTimeMillis() * 1000;
+
+    /**
+     * Constructs a new ArticleBroadcaster.
+     *
+     * @param bufferSize the maximum number of events waiting to be written to a connection
+     * @param heartbeat the interval of the heartbeat sent on idle connections
+     * @param timeout the maximum lifetime of a connection, after which the client reconnects
+     * @param replaySize the number of recent events kept to resume connections
+     * @param maxConnections the maximum number of open connections
+     * @param meterRegistry the registry the stream metrics are bound to, if any
+     */
+    public ArticleBroadcaster(@Value("${articles.stream.buffer-size:64}") int bufferSize,
+            @Value("${articles.stream.heartbeat:15s}") Duration heartbeat,
+            @Value("${articles.stream.timeout:30m}") Duration timeout,
+            @Value("${articles.stream.replay-size:1000}") int replaySize,
+            @Value("${articles.stream.max-connections:50000}") int maxConnections,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.bufferSize = bufferSize;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.replaySize = replaySize;
+        this.maxConnections = maxConnections;
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        this.evictedCounter = registry == null ? null : Counter.builder("articles.stream.evicted")
+                .description("Article stream connections closed because the client did not keep up")
+                .register(registry);
+        if (registry != null) {
+            Gauge.builder("articles.stream.connections", connections, Set::size)
+                    .description("Open article stream connections")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Opens a stream of the new articles of the given themes.
+     * Events published after {@code lastEventId} are replayed first when they are still retained.
+     *
+     * @param subject the name of the connected user
+     * @param themeIds the IDs of the themes the user is subscribed to
+     * @param lastEventId the ID of the last event received before reconnecting, or null
+     * @return the SseEmitter of the new connection
+     * @throws StreamOverloadedException if the maximum number of connections is reached
+     */
+    public SseEmitter subscribe(String subject, Collection<Long> themeIds, String lastEventId) {
+        if (connections.size() >= maxConnections) {
+            throw new StreamOverloadedException("Too many open article streams, please retry later.");
+        }
+        Connection connection = new Connection(subject, themeIds);
+        register(connection, lastEventId);
+        connection.start();
+        return connection.emitter;
+    }
+
+    /**
+     * Publishes a new article to the connections subscribed to its theme, without blocking.
+     *
+     * @param article the new article
+     */
+    public void publish(ArticleDTO article) {
+        StreamEvent event;
+        synchronized (recentEvents) {
+            event = new StreamEvent(nextEventId++, ARTICLE_EVENT, article);
+            recentEvents.addLast(event);
+            if (recentEvents.size() > replaySize) {
+                recentEvents.removeFirst();
+            }
+        }
+        for (Connection connection : connections) {
+            if (connection.accepts(event) && !connection.offer(event)) {
+                evict(connection);
+            }
+        }
+    }
+
+    /**
+     * Updates the themes streamed to the open connections of a user after a subscription change.
+     *
+     * @param subject the name of the user
+     * @param themeIds the IDs of the themes the user is now subscribed to
+     */
+    public void updateThemes(String subject, Collection<Long> themeIds) {
+        for (Connection connection : connections) {
+            if (connection.subject.equals(subject)) {
+                connection.themeIds = Set.copyOf(themeIds);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of open connections.
+     *
+     * @return the connection count
+     */
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Closes all connections when the application shuts down.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Adds a connection to the broadcast set, first queueing the retained events following the client's
+     * last event, or a resync event if some were lost.
+     * Both happen under the lock of the retained events, so that no event is lost between the replay
+     * and the first broadcast; an event may at worst be delivered twice.
+     *
+     * @param connection the new connection
+     * @param lastEventId the ID of the last event received by the client, or null
+     */
+    private void register(Connection connection, String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            connections.add(connection);
+            return;
+        }
+        long lastId;
+        try {
+            lastId = Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            lastId = -1;
+        }
+        synchronized (recentEvents) {
+            long headId = nextEventId - 1;
+            long oldestId = recentEvents.isEmpty() ? nextEventId : recentEvents.getFirst().id;
+            List<StreamEvent> missed = new ArrayList<>();
+            boolean complete = lastId >= oldestId - 1 && lastId <= headId;
+            if (complete) {
+                for (StreamEvent event : recentEvents) {
+                    if (event.id > lastId && connection.accepts(event)) {
+                        missed.add(event);
+                    }
+                }
+            }
+            if (complete && missed.size() <= bufferSize) {
+                missed.forEach(connection::offer);
+            } else {
+                connection.offer(new StreamEvent(headId, RESYNC_EVENT, ""));
+            }
+            connections.add(connection);
+        }
+    }
+
+    /**
+     * Closes a connection whose buffer is full.
+     *
+     * @param connection the slow connection
+     */
+    private void evict(Connection connection) {
+        if (evictedCounter != null) {
+            evictedCounter.increment();
+        }
+        logger.debug("Evicting slow article stream consumer {}", connection.subject);
+        connection.close();
+    }
+
+    /**
+     * An event of the stream, numbered by the publication sequence.
+     */
+    private static final class StreamEvent {
+        private final long id;
+        private final String name;
+        private final Object data;
+
+        private StreamEvent(long id, String name, Object data) {
+            this.id = id;
+            this.name = name;
+            this.data = data;
+        }
+    }
+
+    /**
+     * An open stream with its bounded buffer and the virtual thread writing it.
+     */
+    private final class Connection {
+        private final String subject;
+        private final SseEmitter emitter;
+        private final BlockingQueue<StreamEvent> buffer;
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Set<Long> themeIds;
+        private Thread writer;
+
+        private Connection(String subject, Collection<Long> themeIds) {
+            this.subject = subject;
+            this.themeIds = Set.copyOf(themeIds);
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+            this.emitter = new SseEmitter(timeout.toMillis());
+            emitter.onCompletion(this::close);
+            emitter.onTimeout(this::close);
+            emitter.onError(error -> close());
+        }
+
+        private boolean accepts(StreamEvent event) {
+            return !ARTICLE_EVENT.equals(event.name) || themeIds.contains(((ArticleDTO) event.data).getThemeId());
+        }
+
+        private boolean offer(StreamEvent event) {
+            return buffer.offer(event);
+        }
+
+        private void start() {
+            writer = writerThreads.newThread(this::write);
+            writer.start();
+        }
+
+        /**
+         * Writes the buffered events, or a heartbeat when none arrives in time, until the connection closes.
+         */
+        private void write() {
+            try {
+                while (!closed.get()) {
+                    StreamEvent event = buffer.poll(heartbeat.toMillis(), TimeUnit.MILLISECONDS);
+                    if (event == null) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(String.valueOf(event.id))
+                                .name(event.name)
+                                .data(event.data, MediaType.APPLICATION_JSON));
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | IllegalStateException e) {
+                // The client went away or the emitter already completed
+                logger.debug("Article stream of {} closed: {}", subject, e.getMessage());
+            } finally {
+                close();
+            }
+        }
+
+        private void close() {
+            if (closed.compareAndSet(false, true)) {
+                connections.remove(this);
+                emitter.complete();
+                if (writer != null && writer != Thread.currentThread()) {
+                    writer.interrupt();
+                }
+            }
+        }
+    }
+}
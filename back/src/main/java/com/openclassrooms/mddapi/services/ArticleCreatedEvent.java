@@ -0,0 +1,23 @@
+package com.openclassrooms.mddapi.services;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+
+import lombok.Getter;
+
+/**
+ * Event published when an article is created, handled once the creating transaction has committed.
+ */
+@Getter
+public class ArticleCreatedEvent {
+
+    private final ArticleSummaryDTO article;
+
+    /**
+     * Constructs a new ArticleCreatedEvent for the given article.
+     *
+     * @param article the summary of the created article
+     */
+    public ArticleCreatedEvent(ArticleSummaryDTO article) {
+        this.article = article;
+    }
+}
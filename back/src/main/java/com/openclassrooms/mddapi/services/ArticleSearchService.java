@@ -0,0 +1,168 @@
+package com.openclassrooms.mddapi.services;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSearchPageDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.mappers.ArticleMapper;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.search.ArticleSearchIndex;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * This class represents the service layer for searching articles.
+ * Queries are answered by the embedded Lucene index; only the comment counts of the page are read from MySQL,
+ * in a query of their own, so that no transaction is held while Lucene runs.
+ * Query latency is published as the {@code articles.search} timer.
+ */
+@Service
+public class ArticleSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArticleSearchService.class);
+
+    /**
+     * The default number of articles returned by a search page.
+     */
+    public static final int DEFAULT_SEARCH_PAGE_SIZE = 20;
+
+    /**
+     * The maximum number of articles a client may request in a single search page.
+     */
+    public static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    /**
+     * The number of best matches a client can page through.
+     */
+    public static final int MAX_SEARCH_DEPTH = 1000;
+
+    private final ArticleSearchIndex searchIndex;
+    private final ArticleRepository articleRepository;
+    private final ArticleMapper articleMapper;
+    private final Timer searchTimer;
+    private final int reindexBatchSize;
+
+    /**
+     * Constructs a new ArticleSearchService.
+     *
+     * @param searchIndex The embedded index of articles.
+     * @param articleRepository The repository for managing articles.
+     * @param articleMapper The mapper for converting article summaries to ArticleDTO.
+     * @param meterRegistry The registry the search timer is bound to, if any.
+     * @param reindexBatchSize The number of articles read from MySQL at once during a reindex.
+     */
+    public ArticleSearchService(ArticleSearchIndex searchIndex, ArticleRepository articleRepository, ArticleMapper articleMapper,
+            ObjectProvider<MeterRegistry> meterRegistry,
+            @Value("${search.reindex.batch-size:1000}") int reindexBatchSize) {
+        this.searchIndex = searchIndex;
+        this.articleRepository = articleRepository;
+        this.articleMapper = articleMapper;
+        this.reindexBatchSize = reindexBatchSize;
+        this.searchTimer = Timer.builder("articles.search")
+                .description("Latency of full-text article searches")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry.getIfAvailable(SimpleMeterRegistry::new));
+    }
+
+    /**
+     * Searches the articles matching a query, best matches first.
+     *
+     * @param query The query typed by the user.
+     * @param themeId The theme the results must belong to, or null.
+     * @param userId The author the results must be written by, or null.
+     * @param page The zero-based index of the page.
+     * @param limit The requested page size, bounded by {@link #MAX_SEARCH_PAGE_SIZE}.
+     * @return A page of ArticleDTO objects with the total number of hits.
+     * @throws IllegalArgumentException If the query is blank or the page is beyond {@link #MAX_SEARCH_DEPTH}.
+     */
+    public ArticleSearchPageDTO search(String query, Long themeId, Long userId, int page, int limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("The search query must not be blank.");
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_SEARCH_PAGE_SIZE);
+        // Checked before multiplying, so that a huge page cannot overflow into a negative offset
+        if (Math.max(page, 0) >= MAX_SEARCH_DEPTH / pageSize) {
+            throw new IllegalArgumentException("Only the first " + MAX_SEARCH_DEPTH + " results can be paged through.");
+        }
+        int offset = Math.max(page, 0) * pageSize;
+
+        ArticleSearchIndex.SearchResult result = searchTimer.record(() -> {
+            try {
+                return searchIndex.search(query, themeId, userId, offset, pageSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read the search index", e);
+            }
+        });
+
+        Map<Long, Integer> commentCounts = findCommentCounts(result.getArticles());
+        List<ArticleDTO> articles = new ArrayList<>(result.getArticles().size());
+        for (ArticleSummaryDTO summary : result.getArticles()) {
+            ArticleDTO articleDTO = articleMapper.toDTO(summary);
+            articleDTO.setCommentCount(commentCounts.getOrDefault(summary.getId(), 0));
+            articles.add(articleDTO);
+        }
+        return ArticleSearchPageDTO.builder()
+                .articles(articles)
+                .totalHits(result.getTotalHits())
+                .build();
+    }
+
+    /**
+     * Rebuilds the search index from MySQL, walking the articles table in ID order.
+     *
+     * @return The number of indexed articles.
+     * @throws UncheckedIOException If the index cannot be written.
+     */
+    public long reindex() {
+        long start = System.nanoTime();
+        AtomicLong lastId = new AtomicLong();
+        try {
+            long count = searchIndex.rebuild(() -> {
+                List<ArticleSummaryDTO> batch = articleRepository.findSummariesAfter(lastId.get(), Limit.of(reindexBatchSize));
+                if (!batch.isEmpty()) {
+                    lastId.set(batch.get(batch.size() - 1).getId());
+                }
+                return batch;
+            });
+            logger.info("Reindexed {} articles in {} ms", count, (System.nanoTime() - start) / 1_000_000);
+            return count;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to rebuild the search index", e);
+        }
+    }
+
+    /**
+     * Loads the comment counts of a page of results in a single query.
+     *
+     * @param summaries The article summaries of the page.
+     * @return The comment counts by article ID.
+     */
+    private Map<Long, Integer> findCommentCounts(List<ArticleSummaryDTO> summaries) {
+        Map<Long, Integer> commentCounts = new HashMap<>();
+        if (summaries.isEmpty()) {
+            return commentCounts;
+        }
+        List<Long> articleIds = summaries.stream().map(ArticleSummaryDTO::getId).collect(Collectors.toList());
+        for (Object[] pair : articleRepository.findCommentCounts(articleIds)) {
+            commentCounts.put((Long) pair[0], (Integer) pair[1]);
+        }
+        return commentCounts;
+    }
+}
@@ -1,19 +1,36 @@
 package com.openclassrooms.mddapi.services;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.openclassrooms.mddapi.config.MetricsConfig;
+import com.openclassrooms.mddapi.config.ReplicaRoutingDataSource;
 import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleFeedPageDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
 import com.openclassrooms.mddapi.mappers.ArticleMapper;
+import com.openclassrooms.mddapi.mappers.MappingObserver;
 import com.openclassrooms.mddapi.models.Article;
 import com.openclassrooms.mddapi.models.Theme;
 import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.CommentRepository;
 import com.openclassrooms.mddapi.repository.ThemeRepository;
 import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.search.ArticleIndexingQueue;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.persistence.EntityNotFoundException;
 
 /**
@@ -21,63 +38,234 @@ import jakarta.persistence.EntityNotFoundException;
  * It provides methods for retrieving, creating, and retrieving articles.
  */
 @Service
+@Observed(name = MetricsConfig.SERVICE_OBSERVATION)
 public class ArticleService {
 
+    /**
+     * The default number of articles returned by a feed page.
+     */
+    public static final int DEFAULT_FEED_PAGE_SIZE = 20;
+
+    /**
+     * The maximum number of articles a client may request in a single feed page.
+     */
+    public static final int MAX_FEED_PAGE_SIZE = 100;
+
     private final ArticleRepository articleRepository;
+    private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final ThemeRepository themeRepository;
     private final ArticleMapper articleMapper;
+    private final MappingObserver mappingObserver;
+    private final FeedService feedService;
+    private final ThemeFeedIndex themeFeedIndex;
+    private final ArticleIndexingQueue articleIndexingQueue;
+    private final ArticleBroadcaster articleBroadcaster;
+    private final ThemeVersionTracker themeVersionTracker;
+    private final ApplicationEventPublisher eventPublisher;
 
 
     /**
      * Constructs a new ArticleService with the specified repositories and mapper.
      *
      * @param articleRepository The repository for managing articles.
+     * @param commentRepository The repository for managing comments.
      * @param userRepository The repository for managing users.
      * @param themeRepository The repository for managing themes.
      * @param articleMapper The mapper for converting between Article and ArticleDTO.
+     * @param mappingObserver The observer tracing the mapping of pages and articles.
+     * @param feedService The service maintaining the materialized per-user feed.
+     * @param themeFeedIndex The in-memory index of the newest articles per theme.
+     * @param articleIndexingQueue The queue feeding new articles to the search index.
+     * @param articleBroadcaster The broadcaster pushing new articles to streaming clients.
+     * @param themeVersionTracker The tracker of theme versions used to validate cached feeds.
+     * @param eventPublisher The publisher of the article creation events.
      */
-    public ArticleService(ArticleRepository articleRepository, UserRepository userRepository, ThemeRepository themeRepository, ArticleMapper articleMapper) {
+    public ArticleService(ArticleRepository articleRepository, CommentRepository commentRepository, UserRepository userRepository, ThemeRepository themeRepository, ArticleMapper articleMapper, MappingObserver mappingObserver, FeedService feedService, ThemeFeedIndex themeFeedIndex, ArticleIndexingQueue articleIndexingQueue, ArticleBroadcaster articleBroadcaster, ThemeVersionTracker themeVersionTracker, ApplicationEventPublisher eventPublisher) {
         this.articleRepository = articleRepository;
+        this.commentRepository = commentRepository;
         this.userRepository = userRepository;
         this.themeRepository = themeRepository;
         this.articleMapper = articleMapper;
+        this.mappingObserver = mappingObserver;
+        this.feedService = feedService;
+        this.themeFeedIndex = themeFeedIndex;
+        this.articleIndexingQueue = articleIndexingQueue;
+        this.articleBroadcaster = articleBroadcaster;
+        this.themeVersionTracker = themeVersionTracker;
+        this.eventPublisher = eventPublisher;
     }
     
     /**
-     * Retrieves a list of ArticleDTO objects for the subscribed themes with the given theme IDs.
+     * Retrieves one page of ArticleDTO objects for the subscribed themes with the given theme IDs.
+     * The first page is assembled from the in-memory theme index when possible; deeper pages are read
+     * from the user's materialized feed. Articles are ordered by creation date then ID, newest first.
+     * The comment counts of the page are read with one extra batched query rather than carried by the
+     * projection, so that pages served from the in-memory index are not stale; comment IDs cost a
+     * second batched query and are only loaded on request.
      *
+     * @param userId The ID of the user reading the feed.
      * @param themeIds The IDs of the subscribed themes.
-     * @return A list of ArticleDTO objects.
-     * @throws EntityNotFoundException If a user or theme is not found.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @param limit The requested page size, bounded by {@link #MAX_FEED_PAGE_SIZE}.
+     * @param includeCommentIds Whether the comment IDs of each article are returned as well.
+     * @return A page of ArticleDTO objects with the cursor of the next page.
+     * @throws IllegalArgumentException If the cursor is invalid.
      */
-    public List<ArticleDTO> getArticlesForSubscribedThemes(List<Long> themeIds) {
-        List<ArticleDTO> articles = new ArrayList<>();
-        for (Long themeId : themeIds) {
-            List<Article> themeArticles = articleRepository.findByTheme_Id(themeId);
-            for (Article article : themeArticles) {
-                User author = userRepository.findById(article.getUser().getId())
-                        .orElseThrow(() -> new EntityNotFoundException("User not found with id " + article.getUser().getId()));
-                Theme theme = themeRepository.findById(themeId)
-                        .orElseThrow(() -> new EntityNotFoundException("Theme not found with id " + themeId));
-    
-                ArticleDTO articleDTO = articleMapper.toDTO(article);
-                articleDTO.setUsername(author.getUsername());
-                articleDTO.setThemeTitle(theme.getTitle());
-    
-                articles.add(articleDTO);
+    @Transactional(readOnly = true)
+    public ArticleFeedPageDTO getArticlesForSubscribedThemes(Long userId, List<Long> themeIds, String cursor, int limit, boolean includeCommentIds) {
+        if (themeIds == null || themeIds.isEmpty()) {
+            return ArticleFeedPageDTO.builder().build();
+        }
+        if (themeVersionTracker.changedRecently(themeIds)) {
+            ReplicaRoutingDataSource.readFromPrimary();
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_FEED_PAGE_SIZE);
+
+        FeedCursor position = (cursor == null || cursor.isBlank()) ? null : FeedCursor.decode(cursor);
+
+        // Fetch one extra row to know whether a next page exists without a count query
+        List<ArticleSummaryDTO> rows;
+        if (position == null && themeFeedIndex.canServe(pageSize + 1)) {
+            rows = themeFeedIndex.firstPage(themeIds, pageSize + 1);
+        } else {
+            rows = feedService.readFeed(userId, themeIds, position, pageSize + 1);
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        if (hasNext) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<Long> articleIds = rows.stream().map(ArticleSummaryDTO::getId).collect(Collectors.toList());
+        Map<Long, Integer> commentCounts = findCommentCounts(articleIds);
+        Map<Long, List<Long>> commentIdsByArticle = includeCommentIds ? findCommentIds(articleIds) : Map.of();
+        List<ArticleSummaryDTO> pageRows = rows;
+        List<ArticleDTO> articles = mappingObserver.observe("ArticleMapper#toDTO", pageRows.size(), () -> {
+            List<ArticleDTO> mapped = new ArrayList<>(pageRows.size());
+            for (ArticleSummaryDTO row : pageRows) {
+                ArticleDTO articleDTO = articleMapper.toDTO(row);
+                articleDTO.setCommentCount(commentCounts.getOrDefault(row.getId(), 0));
+                if (includeCommentIds) {
+                    articleDTO.setCommentIds(commentIdsByArticle.getOrDefault(row.getId(), new ArrayList<>()));
+                }
+                mapped.add(articleDTO);
             }
+            return mapped;
+        });
+
+        String nextCursor = null;
+        if (hasNext) {
+            ArticleSummaryDTO last = rows.get(rows.size() - 1);
+            nextCursor = new FeedCursor(last.getCreated_at(), last.getId()).encode();
+        }
+        return ArticleFeedPageDTO.builder()
+                .articles(articles)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Streams the whole feed for the subscribed themes with the given theme IDs, newest first.
+     * Rows are read from a database cursor and handed to the consumer one at a time, so memory use does
+     * not grow with the size of the feed. Comment IDs are not available in this mode.
+     *
+     * @param themeIds The IDs of the subscribed themes.
+     * @param consumer The consumer receiving each ArticleDTO, typically writing it to the response.
+     */
+    @Transactional(readOnly = true)
+    public void streamArticlesForSubscribedThemes(List<Long> themeIds, Consumer<ArticleDTO> consumer) {
+        if (themeIds == null || themeIds.isEmpty()) {
+            return;
+        }
+        if (themeVersionTracker.changedRecently(themeIds)) {
+            ReplicaRoutingDataSource.readFromPrimary();
+        }
+        try (Stream<ArticleSummaryDTO> rows = articleRepository.streamFeed(themeIds)) {
+            rows.map(articleMapper::toDTO).forEach(consumer);
+        }
+    }
+
+    /**
+     * Computes the ETag of a feed page from the versions of the subscribed themes and of the authors, without any query.
+     * Feed reads go to the primary while a replica could still lag behind these versions.
+     *
+     * @param themeIds The IDs of the subscribed themes.
+     * @param cursor The cursor of the requested page, or null for the first page.
+     * @param limit The requested page size.
+     * @param includeCommentIds Whether the comment IDs are requested.
+     * @return The quoted ETag value.
+     */
+    public String getFeedEtag(List<Long> themeIds, String cursor, int limit, boolean includeCommentIds) {
+        return themeVersionTracker.feedEtag(themeIds == null ? List.of() : themeIds, cursor, limit, includeCommentIds);
+    }
+
+    /**
+     * Retrieves the last modification time of the subscribed themes, without any query.
+     *
+     * @param themeIds The IDs of the subscribed themes.
+     * @return The last-modified time in epoch milliseconds.
+     */
+    public long getFeedLastModified(List<Long> themeIds) {
+        return themeVersionTracker.lastModified(themeIds == null ? List.of() : themeIds);
+    }
+
+    /**
+     * Computes the ETag of an article from the versions of its theme, bumped by its comments, and of the authors,
+     * without any query once the theme of the article is known.
+     *
+     * @param id The ID of the article.
+     * @param includeCommentIds Whether the comment IDs are requested.
+     * @return The quoted ETag value, or null if the article does not exist.
+     */
+    public String getArticleEtag(Long id, boolean includeCommentIds) {
+        return themeVersionTracker.articleEtag(id, "article", includeCommentIds);
+    }
+
+    /**
+     * Loads the comment counts of a page of articles in a single query.
+     *
+     * @param articleIds The IDs of the articles of the page.
+     * @return The comment counts by article ID.
+     */
+    private Map<Long, Integer> findCommentCounts(List<Long> articleIds) {
+        Map<Long, Integer> commentCounts = new HashMap<>();
+        if (articleIds.isEmpty()) {
+            return commentCounts;
+        }
+        for (Object[] pair : articleRepository.findCommentCounts(articleIds)) {
+            commentCounts.put((Long) pair[0], (Integer) pair[1]);
+        }
+        return commentCounts;
+    }
+
+    /**
+     * Loads the comment IDs of a page of articles in a single query.
+     *
+     * @param articleIds The IDs of the articles of the page.
+     * @return The comment IDs grouped by article ID.
+     */
+    private Map<Long, List<Long>> findCommentIds(List<Long> articleIds) {
+        Map<Long, List<Long>> commentIdsByArticle = new HashMap<>();
+        if (articleIds.isEmpty()) {
+            return commentIdsByArticle;
         }
-        return articles;
+        for (Object[] pair : commentRepository.findIdsByArticleIds(articleIds)) {
+            commentIdsByArticle.computeIfAbsent((Long) pair[0], id -> new ArrayList<>()).add((Long) pair[1]);
+        }
+        return commentIdsByArticle;
     }
 
     /**
      * Creates a new article based on the provided ArticleDTO.
+     * The article is only added to the theme index, streamed and indexed for search once the transaction has committed,
+     * see {@link #onArticleCreated}.
      *
      * @param articleDTO The ArticleDTO object representing the article to be created.
      * @return The created ArticleDTO object.
      * @throws EntityNotFoundException If the user or theme is not found.
      */
+    @Transactional
     public ArticleDTO createArticle(ArticleDTO articleDTO) {
         if (!userRepository.existsById(articleDTO.getUserId()) || !themeRepository.existsById(articleDTO.getThemeId())) {
             throw new EntityNotFoundException();
@@ -95,23 +283,56 @@ public class ArticleService {
         article.setComments(new ArrayList<>());
     
         Article savedArticle = articleRepository.save(article);
+        feedService.fanOut(savedArticle);
+        ArticleSummaryDTO summary = ArticleSummaryDTO.builder()
+                .id(savedArticle.getId())
+                .title(savedArticle.getTitle())
+                .content(savedArticle.getContent())
+                .created_at(savedArticle.getCreated_at())
+                .userId(author.getId())
+                .username(author.getUsername())
+                .themeId(theme.getId())
+                .themeTitle(theme.getTitle())
+                .build();
+        themeVersionTracker.bump(theme.getId());
+        eventPublisher.publishEvent(new ArticleCreatedEvent(summary));
     
         ArticleDTO savedArticleDTO = articleMapper.toDTO(savedArticle);
         savedArticleDTO.setUsername(author.getUsername());
         savedArticleDTO.setThemeTitle(theme.getTitle());
-        savedArticleDTO.setCommentIds(new ArrayList<>());
+        savedArticleDTO.setCommentCount(0);
     
         return savedArticleDTO;
     }
 
+    /**
+     * Adds a new article to the in-memory theme index, streams it to the subscribed clients and queues it
+     * for search indexing once its transaction has committed, so that an article rolled back is never served.
+     *
+     * @param event The event describing the created article.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onArticleCreated(ArticleCreatedEvent event) {
+        themeFeedIndex.append(event.getArticle());
+        articleIndexingQueue.enqueue(event.getArticle());
+        ArticleDTO streamedArticle = articleMapper.toDTO(event.getArticle());
+        streamedArticle.setCommentCount(0);
+        articleBroadcaster.publish(streamedArticle);
+    }
+
     /**
      * Retrieves the ArticleDTO object with the specified ID.
      *
      * @param id The ID of the article to retrieve.
+     * @param includeCommentIds Whether the comment IDs of the article are returned as well.
      * @return The ArticleDTO object.
      * @throws EntityNotFoundException If the article, user, or theme is not found.
      */
-    public ArticleDTO getArticleById(Long id) {
+    @Transactional(readOnly = true)
+    public ArticleDTO getArticleById(Long id, boolean includeCommentIds) {
+        if (themeVersionTracker.articleChangedRecently(id)) {
+            ReplicaRoutingDataSource.readFromPrimary();
+        }
         Article article = articleRepository.findById(id)
                 .orElseThrow(() -> new EntityNotFoundException("Article not found with id " + id));
     
@@ -120,9 +341,12 @@ public class ArticleService {
         Theme theme = themeRepository.findById(article.getTheme().getId())
                 .orElseThrow(() -> new EntityNotFoundException("Theme not found with id " + article.getTheme().getId()));
     
-        ArticleDTO articleDTO = articleMapper.toDTO(article);
+        ArticleDTO articleDTO = mappingObserver.observe("ArticleMapper#toDTO", 1, () -> articleMapper.toDTO(article));
         articleDTO.setUsername(author.getUsername());
         articleDTO.setThemeTitle(theme.getTitle());
+        if (includeCommentIds) {
+            articleDTO.setCommentIds(findCommentIds(List.of(id)).getOrDefault(id, new ArrayList<>()));
+        }
     
         return articleDTO;
     }
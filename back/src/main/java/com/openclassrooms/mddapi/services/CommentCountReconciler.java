@@ -0,0 +1,77 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+
+/**
+ * This class repairs the denormalized comment counts of articles.
+ * Counts are incremented in the same transaction as the comment they count, so they only drift
+ * when comments are written behind the application's back; the reconciler recomputes them
+ * periodically, in ID-range batches to keep each update statement short.
+ *
+ * <p>Feeds, articles and comment pages are validated with ETags computed from theme versions, so the themes
+ * of the batches where a count was repaired are bumped; otherwise clients would keep the wrong count on 304.
+ */
+@Component
+public class CommentCountReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommentCountReconciler.class);
+
+    private final ArticleRepository articleRepository;
+    private final ThemeVersionTracker themeVersionTracker;
+    private final int batchSize;
+
+    /**
+     * Constructs a new CommentCountReconciler.
+     *
+     * @param articleRepository The repository for managing articles.
+     * @param themeVersionTracker The tracker of the theme versions, bumped for the repaired articles.
+     * @param batchSize The number of article IDs checked by each update statement.
+     */
+    public CommentCountReconciler(ArticleRepository articleRepository, ThemeVersionTracker themeVersionTracker,
+            @Value("${articles.comment-count.reconcile-batch-size:1000}") int batchSize) {
+        this.articleRepository = articleRepository;
+        this.themeVersionTracker = themeVersionTracker;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Recomputes the comment counts that no longer match the comments table, then bumps the themes
+     * of the batches that had a repair.
+     *
+     * @return The number of repaired articles.
+     */
+    @Scheduled(initialDelayString = "${articles.comment-count.reconcile-interval:PT1H}",
+            fixedDelayString = "${articles.comment-count.reconcile-interval:PT1H}")
+    public int reconcile() {
+        Long maxId = articleRepository.findMaxId();
+        if (maxId == null) {
+            return 0;
+        }
+        int repaired = 0;
+        Set<Long> themeIds = new HashSet<>();
+        for (long fromId = 0; fromId <= maxId; fromId += batchSize) {
+            long toId = fromId + batchSize - 1;
+            int batchRepaired = articleRepository.reconcileCommentCounts(fromId, toId);
+            if (batchRepaired > 0) {
+                themeIds.addAll(articleRepository.findThemeIdsByIdBetween(fromId, toId));
+                repaired += batchRepaired;
+            }
+        }
+        themeIds.forEach(themeVersionTracker::bump);
+        if (repaired > 0) {
+            logger.warn("Repaired the comment count of {} articles in {} themes", repaired, themeIds.size());
+        } else {
+            logger.debug("Comment counts of articles up to ID {} are consistent", maxId);
+        }
+        return repaired;
+    }
+}
@@ -1,27 +1,50 @@
 package com.openclassrooms.mddapi.services;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.mddapi.config.MetricsConfig;
+import com.openclassrooms.mddapi.config.ReplicaRoutingDataSource;
 import com.openclassrooms.mddapi.dtos.CommentDTO;
+import com.openclassrooms.mddapi.dtos.CommentPageDTO;
 import com.openclassrooms.mddapi.mappers.CommentMapper;
+import com.openclassrooms.mddapi.mappers.MappingObserver;
 import com.openclassrooms.mddapi.models.Comment;
 import com.openclassrooms.mddapi.repository.ArticleRepository;
 import com.openclassrooms.mddapi.repository.CommentRepository;
 import com.openclassrooms.mddapi.repository.UserRepository;
 
+import io.micrometer.observation.annotation.Observed;
+import jakarta.persistence.EntityNotFoundException;
+
 /**
  * This class represents a service for managing comments.
  */
 @Service
+@Observed(name = MetricsConfig.SERVICE_OBSERVATION)
 public class CommentService {
 
+    /**
+     * The default number of comments returned by a page.
+     */
+    public static final int DEFAULT_COMMENT_PAGE_SIZE = 50;
+
+    /**
+     * The maximum number of comments a client may request in a single page.
+     */
+    public static final int MAX_COMMENT_PAGE_SIZE = 200;
+
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
     private final ArticleRepository articleRepository;
     private final CommentMapper commentMapper;
+    private final MappingObserver mappingObserver;
+    private final ThemeVersionTracker themeVersionTracker;
 
     /**
      * Constructs a new CommentService with the specified repositories and mapper.
@@ -30,36 +53,95 @@ public class CommentService {
      * @param userRepository    the user repository
      * @param articleRepository the article repository
      * @param commentMapper     the comment mapper
+     * @param mappingObserver   the observer tracing the mapping of comments
+     * @param themeVersionTracker the tracker of theme versions, bumped as feeds show comment counts
      */
-    public CommentService(CommentRepository commentRepository, UserRepository userRepository, ArticleRepository articleRepository, CommentMapper commentMapper) {
+    public CommentService(CommentRepository commentRepository, UserRepository userRepository, ArticleRepository articleRepository, CommentMapper commentMapper, MappingObserver mappingObserver, ThemeVersionTracker themeVersionTracker) {
         this.commentRepository = commentRepository;
         this.userRepository = userRepository;
         this.articleRepository = articleRepository;
         this.commentMapper = commentMapper;
+        this.mappingObserver = mappingObserver;
+        this.themeVersionTracker = themeVersionTracker;
+    }
+
+    /**
+     * Retrieves one page of comments for a given article ID, oldest first.
+     * Comments are ordered by ID, which only grows, so comments posted while a client pages
+     * through a thread are appended at its end instead of shifting the pages already read.
+     *
+     * @param articleId the ID of the article
+     * @param after the ID of the last comment already read, or null for the first page
+     * @param limit the requested page size, bounded by {@link #MAX_COMMENT_PAGE_SIZE}
+     * @return a page of CommentDTO objects with the cursor of the next page
+     */
+    @Transactional(readOnly = true)
+    public CommentPageDTO getCommentsByArticleId(Long articleId, Long after, int limit) {
+        if (themeVersionTracker.articleChangedRecently(articleId)) {
+            ReplicaRoutingDataSource.readFromPrimary();
+        }
+        int pageSize = Math.clamp(limit, 1, MAX_COMMENT_PAGE_SIZE);
+        // Fetch one extra row to know whether a next page exists without a count query
+        List<CommentDTO> comments = commentRepository.findPageByArticleId(articleId, after == null ? 0L : after, Limit.of(pageSize + 1));
+        String nextCursor = null;
+        if (comments.size() > pageSize) {
+            comments = comments.subList(0, pageSize);
+            nextCursor = String.valueOf(comments.get(pageSize - 1).getId());
+        }
+        return CommentPageDTO.builder()
+                .comments(comments)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Streams all the comments of an article, oldest first.
+     * Rows are read from a database cursor and handed to the consumer one at a time, so memory use does
+     * not grow with the size of the thread.
+     *
+     * @param articleId the ID of the article
+     * @param consumer the consumer receiving each CommentDTO, typically writing it to the response
+     */
+    @Transactional(readOnly = true)
+    public void streamCommentsByArticleId(Long articleId, Consumer<CommentDTO> consumer) {
+        if (themeVersionTracker.articleChangedRecently(articleId)) {
+            ReplicaRoutingDataSource.readFromPrimary();
+        }
+        try (Stream<CommentDTO> comments = commentRepository.streamByArticleId(articleId)) {
+            comments.forEach(consumer);
+        }
     }
 
     /**
-     * Retrieves all comments for a given article ID.
+     * Computes the ETag of a page of comments from the version of the article's theme, bumped by every new comment,
+     * and from the authors version, without any query once the theme of the article is known.
+     * Comments cannot be edited or deleted, so these versions identify the content of every page.
      *
      * @param articleId the ID of the article
-     * @return a list of CommentDTO objects representing the comments
+     * @param after the ID of the last comment already read, or null for the first page
+     * @param limit the requested page size
+     * @return the quoted ETag value, or null if the article does not exist
      */
-    public List<CommentDTO> getCommentsByArticleId(Long articleId) {
-        List<Comment> comments = commentRepository.findByArticle_Id(articleId);
-        return comments.stream()
-                .map(commentMapper::toDTO)
-                .collect(Collectors.toList());
+    public String getCommentsEtag(Long articleId, Long after, int limit) {
+        return themeVersionTracker.articleEtag(articleId, "comments", after, limit);
     }
 
     /**
      * Creates a new comment.
+     * The comment and the increment of the article's comment count are committed together.
      *
      * @param commentDTO the CommentDTO object representing the comment to be created
      * @return the created CommentDTO object
+     * @throws EntityNotFoundException if the article does not exist
      */
+    @Transactional
     public CommentDTO createComment(CommentDTO commentDTO) {
         Comment comment = commentMapper.toEntity(commentDTO, userRepository, articleRepository);
+        if (articleRepository.incrementCommentCount(commentDTO.getArticleId()) == 0) {
+            throw new EntityNotFoundException("Article not found with id " + commentDTO.getArticleId());
+        }
         Comment savedComment = commentRepository.save(comment);
-        return commentMapper.toDTO(savedComment);
+        themeVersionTracker.bump(comment.getArticle().getTheme().getId());
+        return mappingObserver.observe("CommentMapper#toDTO", 1, () -> commentMapper.toDTO(savedComment));
     }
 }
\ No newline at end of file
@@ -0,0 +1,333 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.FeedEntryRepository;
+
+/**
+ * This class maintains the materialized per-user feed.
+ * New articles are pushed into the feed of every subscriber of their theme when they are written
+ * (fan-out on write). Themes with more subscribers than {@code feed.fanout.max-subscribers} are
+ * skipped on write and read from the articles table at query time instead (fan-out on read),
+ * so a single popular theme cannot stall article creation.
+ *
+ * <p>The set of such hot themes is computed with one aggregate query every {@code feed.hot-themes.refresh-interval}
+ * rather than on each feed read and article write. A theme that turns cold again is backfilled into the feed of
+ * each of its subscribers, since the articles written while it was hot were never fanned out. A backfill copies every
+ * article of the theme, {@code feed.backfill.batch-size} at a time, so that the whole theme stays reachable through
+ * the pages of the materialized feed. Backfills and prunes
+ * of the same user are serialized, and a backfill only copies the articles of a theme the user still follows.
+ *
+ * <p>Until a backfill has committed, its theme is read from the articles table like a hot theme, so that feed pages
+ * are complete while the materialized feed is being filled. The theme's version is then bumped, so that a page
+ * cached under the new subscriptions is not answered with 304 when it is read from the materialized feed instead.
+ */
+@Service
+public class FeedService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeedService.class);
+
+    private final FeedEntryRepository feedEntryRepository;
+    private final ArticleRepository articleRepository;
+    private final ThemeVersionTracker themeVersionTracker;
+    private final long fanOutMaxSubscribers;
+    private final int backfillBatchSize;
+    private final ReentrantLock hotThemesLock = new ReentrantLock();
+    private final ReentrantLock[] userLocks = new ReentrantLock[64];
+    private volatile Set<Long> hotThemeIds;
+    // Themes no longer hot whose backfill into the feeds of all their subscribers is running
+    private volatile Set<Long> coolingThemeIds = Set.of();
+    // Themes being backfilled into the feed of a single user, by user
+    private final ConcurrentMap<Long, Set<Long>> pendingBackfills = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a new FeedService with the specified repositories and limits.
+     *
+     * @param feedEntryRepository The repository for the materialized feed.
+     * @param articleRepository The repository for managing articles.
+     * @param themeVersionTracker The tracker of the theme versions the feed ETags are computed from.
+     * @param fanOutMaxSubscribers The subscriber count above which a theme is read at query time.
+     * @param backfillBatchSize The number of articles copied into feeds per statement when backfilling a theme.
+     */
+    public FeedService(FeedEntryRepository feedEntryRepository, ArticleRepository articleRepository,
+            ThemeVersionTracker themeVersionTracker,
+            @Value("${feed.fanout.max-subscribers:10000}") long fanOutMaxSubscribers,
+            @Value("${feed.backfill.batch-size:500}") int backfillBatchSize) {
+        this.feedEntryRepository = feedEntryRepository;
+        this.articleRepository = articleRepository;
+        this.themeVersionTracker = themeVersionTracker;
+        this.fanOutMaxSubscribers = fanOutMaxSubscribers;
+        this.backfillBatchSize = backfillBatchSize;
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Pushes a newly created article into the feed of the subscribers of its theme.
+     * Nothing is written when the theme has too many subscribers; such themes are merged at read time.
+     *
+     * @param article The saved article.
+     */
+    public void fanOut(Article article) {
+        Long themeId = article.getTheme().getId();
+        if (isHotTheme(themeId)) {
+            logger.debug("Skipping fan-out of article {} for hot theme {}", article.getId(), themeId);
+            return;
+        }
+        int rows = feedEntryRepository.fanOut(article.getId(), themeId, article.getCreated_at());
+        logger.debug("Fanned out article {} to {} feeds", article.getId(), rows);
+    }
+
+    /**
+     * Marks a theme as being backfilled into a user's feed, so that it is read from the articles table until
+     * {@link #backfill} is done. Must be called within the transaction adding the subscription, before it commits;
+     * the mark is dropped if the transaction rolls back.
+     *
+     * @param userId The ID of the user who is subscribing.
+     * @param themeId The ID of the theme.
+     */
+    public void beginBackfill(Long userId, Long themeId) {
+        pendingBackfills.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(themeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        endBackfill(userId, themeId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Copies the articles of a theme into a user's feed in the background, then bumps the theme's version
+     * and stops reading the theme from the articles table for this user.
+     *
+     * @param userId The ID of the user who just subscribed.
+     * @param themeId The ID of the theme.
+     */
+    @Async
+    public void backfill(Long userId, Long themeId) {
+        try {
+            if (isHotTheme(themeId)) {
+                return;
+            }
+            ReentrantLock lock = userLock(userId);
+            lock.lock();
+            try {
+                int rows = copyTheme(themeId, articleIds -> feedEntryRepository.backfill(userId, articleIds));
+                logger.debug("Backfilled {} articles of theme {} into the feed of user {}", rows, themeId, userId);
+            } finally {
+                lock.unlock();
+            }
+            themeVersionTracker.bump(themeId);
+        } finally {
+            endBackfill(userId, themeId);
+        }
+    }
+
+    /**
+     * Removes the articles of a theme from a user's feed.
+     *
+     * @param userId The ID of the user who just unsubscribed.
+     * @param themeId The ID of the theme.
+     */
+    public void prune(Long userId, Long themeId) {
+        ReentrantLock lock = userLock(userId);
+        lock.lock();
+        try {
+            int rows = feedEntryRepository.prune(userId, themeId);
+            logger.debug("Pruned {} articles of theme {} from the feed of user {}", rows, themeId, userId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Recomputes the set of hot themes, then backfills the themes that are no longer hot into the feeds
+     * of their subscribers, so that they can be read from the materialized feed alone again.
+     * New articles of such themes are fanned out from the start of the backfill, while feeds keep reading the
+     * themes from the articles table until it is done and their versions are bumped.
+     */
+    @Scheduled(fixedDelayString = "${feed.hot-themes.refresh-interval:PT1M}")
+    public void refreshHotThemes() {
+        hotThemesLock.lock();
+        try {
+            Set<Long> previous = hotThemeIds;
+            Set<Long> current = Set.copyOf(feedEntryRepository.findThemesWithMoreSubscribersThan(fanOutMaxSubscribers));
+            Set<Long> cooling = new HashSet<>(previous == null ? Set.of() : previous);
+            cooling.removeAll(current);
+            coolingThemeIds = Set.copyOf(cooling);
+            hotThemeIds = current;
+            try {
+                for (Long themeId : cooling) {
+                    int rows = copyTheme(themeId, articleIds -> feedEntryRepository.backfillSubscribers(themeId, articleIds));
+                    themeVersionTracker.bump(themeId);
+                    logger.info("Theme {} is no longer hot, backfilled {} articles into the feeds of its subscribers", themeId, rows);
+                }
+            } finally {
+                coolingThemeIds = Set.of();
+            }
+        } finally {
+            hotThemesLock.unlock();
+        }
+    }
+
+    /**
+     * Copies all the articles of a theme into feeds, newest first, one batch of IDs per statement,
+     * so that no statement locks more than a batch of articles.
+     *
+     * @param themeId The ID of the theme.
+     * @param insert The statement copying a batch of articles, returning the number of feed rows inserted.
+     * @return The total number of feed rows inserted.
+     */
+    private int copyTheme(Long themeId, ToIntFunction<List<Long>> insert) {
+        int rows = 0;
+        List<Long> batch = articleRepository.findIdsByThemeId(themeId, Limit.of(backfillBatchSize));
+        while (!batch.isEmpty()) {
+            rows += insert.applyAsInt(batch);
+            if (batch.size() < backfillBatchSize) {
+                break;
+            }
+            batch = articleRepository.findIdsByThemeIdBefore(themeId, batch.get(batch.size() - 1), Limit.of(backfillBatchSize));
+        }
+        return rows;
+    }
+
+    /**
+     * Reads one page of a user's feed, newest first.
+     * The materialized feed is read with a range scan and merged with the articles of the
+     * subscribed themes that are too popular to be fanned out on write or are still being backfilled.
+     *
+     * @param userId The ID of the user.
+     * @param themeIds The IDs of the themes the user is subscribed to.
+     * @param position The keyset position to resume from, or null for the first page.
+     * @param limit The maximum number of rows to return.
+     * @return The article summaries of the page.
+     */
+    public List<ArticleSummaryDTO> readFeed(Long userId, List<Long> themeIds, FeedCursor position, int limit) {
+        List<ArticleSummaryDTO> rows = position == null
+                ? feedEntryRepository.findFeedPage(userId, Limit.of(limit))
+                : feedEntryRepository.findFeedPageAfter(userId, position.getCreatedAt(), position.getId(), Limit.of(limit));
+
+        Set<Long> hotThemeIds = new HashSet<>(themeIds);
+        hotThemeIds.retainAll(queryTimeThemeIds(userId));
+        if (hotThemeIds.isEmpty()) {
+            return rows;
+        }
+
+        List<ArticleSummaryDTO> hotRows = position == null
+                ? articleRepository.findFeedPage(hotThemeIds, Limit.of(limit))
+                : articleRepository.findFeedPageAfter(hotThemeIds, position.getCreatedAt(), position.getId(), Limit.of(limit));
+        return merge(rows, hotRows, limit);
+    }
+
+    /**
+     * Merges two pages sorted newest first, dropping duplicates, and keeps at most {@code limit} rows.
+     *
+     * @param first The first sorted page.
+     * @param second The second sorted page.
+     * @param limit The maximum number of rows to keep.
+     * @return The merged page.
+     */
+    private List<ArticleSummaryDTO> merge(List<ArticleSummaryDTO> first, List<ArticleSummaryDTO> second, int limit) {
+        Map<Long, ArticleSummaryDTO> byId = new LinkedHashMap<>();
+        first.forEach(row -> byId.putIfAbsent(row.getId(), row));
+        second.forEach(row -> byId.putIfAbsent(row.getId(), row));
+        List<ArticleSummaryDTO> merged = new ArrayList<>(byId.values());
+        merged.sort(ThemeFeedIndex.NEWEST_FIRST);
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    /**
+     * Checks whether a theme has too many subscribers to be fanned out on write.
+     *
+     * @param themeId The ID of the theme.
+     * @return true if the theme must be read at query time.
+     */
+    private boolean isHotTheme(Long themeId) {
+        return hotThemeIds().contains(themeId);
+    }
+
+    /**
+     * Returns the themes a user's feed reads from the articles table: the hot themes, the themes turning cold
+     * whose backfill is running, and the themes being backfilled into this user's feed.
+     *
+     * @param userId The ID of the user.
+     * @return The IDs of the themes read at query time.
+     */
+    private Set<Long> queryTimeThemeIds(Long userId) {
+        Set<Long> pending = pendingBackfills.get(userId);
+        Set<Long> cooling = coolingThemeIds;
+        if ((pending == null || pending.isEmpty()) && cooling.isEmpty()) {
+            return hotThemeIds();
+        }
+        Set<Long> themeIds = new HashSet<>(hotThemeIds());
+        themeIds.addAll(cooling);
+        if (pending != null) {
+            themeIds.addAll(pending);
+        }
+        return themeIds;
+    }
+
+    /**
+     * Stops reading a theme from the articles table for a user once its backfill is over or was abandoned.
+     *
+     * @param userId The ID of the user.
+     * @param themeId The ID of the theme.
+     */
+    private void endBackfill(Long userId, Long themeId) {
+        pendingBackfills.computeIfPresent(userId, (id, themeIds) -> {
+            themeIds.remove(themeId);
+            return themeIds.isEmpty() ? null : themeIds;
+        });
+    }
+
+    /**
+     * Returns the current set of hot themes, computing it on first use.
+     *
+     * @return The IDs of the themes read at query time.
+     */
+    private Set<Long> hotThemeIds() {
+        Set<Long> current = hotThemeIds;
+        if (current == null) {
+            refreshHotThemes();
+            current = hotThemeIds;
+        }
+        return current;
+    }
+
+    /**
+     * Returns the lock serializing the feed writes of a user.
+     *
+     * @param userId The ID of the user.
+     * @return The lock of the user's stripe.
+     */
+    private ReentrantLock userLock(Long userId) {
+        return userLocks[Math.floorMod(userId.hashCode(), userLocks.length)];
+    }
+}
@@ -0,0 +1,100 @@
+package com.openclassrooms.mddapi.services;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.mddapi.dtos.UserDTO;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Bounded, TTL-based cache of authenticated principals keyed by the JWT subject.
+ * It holds the user ID, username, email and subscribed theme IDs so that authenticated
+ * requests do not have to query the users and subscriptions tables every time.
+ * Hit and miss counts are published as {@code cache.gets} metrics under the name {@value #CACHE_NAME}.
+ */
+@Component
+public class PrincipalCache {
+
+    static final String CACHE_NAME = "principals";
+
+    private final AsyncCache<String, UserDTO> cache;
+
+    /**
+     * Constructs a new PrincipalCache with the specified bounds.
+     *
+     * @param maxSize the maximum number of principals kept in memory
+     * @param ttl the time after which a cached principal is reloaded
+     * @param meterRegistry the registry the cache metrics are bound to, if any
+     */
+    public PrincipalCache(@Value("${principal.cache.max-size:10000}") long maxSize,
+            @Value("${principal.cache.ttl:5m}") Duration ttl,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+        meterRegistry.ifAvailable(registry -> CaffeineCacheMetrics.monitor(registry, cache.synchronous(), CACHE_NAME));
+    }
+
+    /**
+     * Returns the cached principal for the given subject, loading it on a miss.
+     * A copy is returned so that callers cannot alter the cached entry; its theme ID list is immutable.
+     * The first thread missing a subject caches a pending entry and runs the loader itself, outside the
+     * cache's internal lock, so a virtual thread waiting on the database never pins its carrier; concurrent
+     * misses wait for that load. An {@link #invalidate} during the load drops the pending entry, so a
+     * principal read before a profile change is never cached after it.
+     *
+     * @param subject the JWT subject of the authenticated user
+     * @param loader the function loading the principal on a miss
+     * @return a copy of the cached principal
+     */
+    public UserDTO get(String subject, Function<String, UserDTO> loader) {
+        CompletableFuture<UserDTO> pending = new CompletableFuture<>();
+        CompletableFuture<UserDTO> entry = cache.get(subject, (key, executor) -> pending);
+        if (entry == pending) {
+            try {
+                pending.complete(freeze(loader.apply(subject)));
+            } catch (RuntimeException e) {
+                pending.completeExceptionally(e);
+                throw e;
+            }
+        }
+        try {
+            return entry.join().toBuilder().build();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * Removes the principal of the given subject so that the next request reloads it.
+     *
+     * @param subject the JWT subject of the user whose profile changed
+     */
+    public void invalidate(String subject) {
+        cache.synchronous().invalidate(subject);
+    }
+
+    /**
+     * Makes the theme ID list of a principal immutable before it is cached.
+     *
+     * @param userDTO the loaded principal
+     * @return the principal to cache
+     */
+    private static UserDTO freeze(UserDTO userDTO) {
+        List<Long> themeIds = userDTO.getSubscribedThemeIds() == null ? List.of() : List.copyOf(userDTO.getSubscribedThemeIds());
+        return userDTO.toBuilder().subscribedThemeIds(themeIds).build();
+    }
+}
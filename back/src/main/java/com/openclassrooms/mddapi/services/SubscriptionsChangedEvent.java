@@ -0,0 +1,32 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Event published when the subscriptions of a user have changed, handled once the change has committed.
+ */
+@Getter
+public class SubscriptionsChangedEvent {
+
+    private final Long userId;
+    private final String subject;
+    private final List<Long> before;
+    private final List<Long> after;
+
+    /**
+     * Constructs a new SubscriptionsChangedEvent.
+     *
+     * @param userId the ID of the user
+     * @param subject the name the user is authenticated with
+     * @param before the IDs of the themes the user was subscribed to before the change
+     * @param after the IDs of the themes the user is subscribed to after the change
+     */
+    public SubscriptionsChangedEvent(Long userId, String subject, List<Long> before, List<Long> after) {
+        this.userId = userId;
+        this.subject = subject;
+        this.before = before;
+        this.after = after;
+    }
+}
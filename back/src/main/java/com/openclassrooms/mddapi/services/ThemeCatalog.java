@@ -0,0 +1,55 @@
+package com.openclassrooms.mddapi.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import com.openclassrooms.mddapi.dtos.ThemeDTO;
+
+import lombok.Getter;
+
+/**
+ * Immutable snapshot of the theme catalog.
+ * The version increases every time the snapshot is rebuilt, and the ETag is derived from the
+ * content so that identical catalogs served by different instances share the same ETag.
+ */
+@Getter
+public final class ThemeCatalog {
+
+    private final long version;
+    private final List<ThemeDTO> themes;
+    private final String etag;
+
+    /**
+     * Constructs a new ThemeCatalog from the given themes.
+     *
+     * @param version the version of this snapshot
+     * @param themes the themes of the catalog, in the order they are served
+     */
+    public ThemeCatalog(long version, List<ThemeDTO> themes) {
+        this.version = version;
+        this.themes = List.copyOf(themes);
+        this.etag = computeEtag(this.themes);
+    }
+
+    /**
+     * Computes a strong ETag from the content of the catalog.
+     *
+     * @param themes the themes of the catalog
+     * @return the quoted ETag value
+     */
+    private static String computeEtag(List<ThemeDTO> themes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (ThemeDTO theme : themes) {
+                digest.update((theme.getId() + "|" + theme.getTitle() + "|" + theme.getDescription() + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.openclassrooms.mddapi.services;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.mddapi.models.Theme;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener publishing a {@link ThemeChangedEvent} whenever a theme is written.
+ */
+@Component
+public class ThemeChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs a new ThemeChangeListener with the specified event publisher.
+     *
+     * @param eventPublisher the publisher used to announce theme changes
+     */
+    public ThemeChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Publishes a change event after a theme has been inserted, updated or deleted.
+     *
+     * @param theme the theme that was written
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onThemeWritten(Theme theme) {
+        eventPublisher.publishEvent(new ThemeChangedEvent(theme.getId()));
+    }
+}
@@ -0,0 +1,21 @@
+package com.openclassrooms.mddapi.services;
+
+import lombok.Getter;
+
+/**
+ * Event published when a theme is created, updated or deleted.
+ */
+@Getter
+public class ThemeChangedEvent {
+
+    private final Long themeId;
+
+    /**
+     * Constructs a new ThemeChangedEvent for the given theme.
+     *
+     * @param themeId the ID of the theme that changed
+     */
+    public ThemeChangedEvent(Long themeId) {
+        this.themeId = themeId;
+    }
+}
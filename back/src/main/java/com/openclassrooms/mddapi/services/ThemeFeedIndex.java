@@ -0,0 +1,247 @@
+package com.openclassrooms.mddapi.services;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+
+/**
+ * In-process index keeping the newest article summaries of every theme in a bounded ring buffer.
+ * The first page of a user's feed is assembled by a k-way merge of the rings of the subscribed
+ * themes, which is exact as long as the page is not larger than the ring capacity.
+ * Deeper pages are not served from memory and fall back to the database.
+ *
+ * <p>A ring holds each article once and always keeps the newest ones, whatever the order they are added in,
+ * so articles appended while the index is warming are neither duplicated nor evicted by older rows.
+ * Articles are appended once their transaction has committed, and the author names and theme titles
+ * they carry are rewritten when a user is renamed or a theme changes.
+ */
+@Component
+public class ThemeFeedIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ThemeFeedIndex.class);
+
+    static final Comparator<ArticleSummaryDTO> NEWEST_FIRST = Comparator
+            .comparing(ArticleSummaryDTO::getCreated_at, Comparator.reverseOrder())
+            .thenComparing(ArticleSummaryDTO::getId, Comparator.reverseOrder());
+
+    private final ArticleRepository articleRepository;
+    private final ThemeRepository themeRepository;
+    private final int capacity;
+    private final ConcurrentMap<Long, ThemeRing> rings = new ConcurrentHashMap<>();
+    private volatile boolean warm;
+
+    /**
+     * Constructs a new ThemeFeedIndex with the specified repositories and ring capacity.
+     *
+     * @param articleRepository The repository used to warm the index.
+     * @param themeRepository The repository used to list the themes to warm.
+     * @param capacity The number of article summaries kept per theme.
+     */
+    public ThemeFeedIndex(ArticleRepository articleRepository, ThemeRepository themeRepository,
+            @Value("${feed.index.capacity:50}") int capacity) {
+        this.articleRepository = articleRepository;
+        this.themeRepository = themeRepository;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Loads the newest articles of every theme once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        for (Theme theme : themeRepository.findAll()) {
+            ThemeRing ring = rings.computeIfAbsent(theme.getId(), id -> new ThemeRing(capacity));
+            List<ArticleSummaryDTO> newest = articleRepository.findFeedPage(List.of(theme.getId()), Limit.of(capacity));
+            // Rows come newest first, the ring expects them oldest first
+            for (int i = newest.size() - 1; i >= 0; i--) {
+                ring.append(newest.get(i));
+            }
+        }
+        warm = true;
+        logger.info("Theme feed index warmed for {} themes with capacity {}", rings.size(), capacity);
+    }
+
+    /**
+     * Appends a newly created article to the ring of its theme.
+     * Must only be called once the article has been committed.
+     *
+     * @param summary The summary of the saved article.
+     */
+    public void append(ArticleSummaryDTO summary) {
+        rings.computeIfAbsent(summary.getThemeId(), id -> new ThemeRing(capacity)).append(summary);
+    }
+
+    /**
+     * Rewrites the author name of the indexed articles of a renamed user.
+     *
+     * @param event The event describing the renamed user.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRenamed(UserRenamedEvent event) {
+        for (ThemeRing ring : rings.values()) {
+            ring.update(summary -> event.getUserId().equals(summary.getUserId()),
+                    summary -> summary.toBuilder().username(event.getUsername()).build());
+        }
+    }
+
+    /**
+     * Rewrites the theme title of the indexed articles of a theme once its change has been committed,
+     * or drops its ring when the theme was deleted.
+     *
+     * @param event The event describing the theme that changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onThemeChanged(ThemeChangedEvent event) {
+        ThemeRing ring = rings.get(event.getThemeId());
+        if (ring == null) {
+            return;
+        }
+        Optional<Theme> theme = themeRepository.findById(event.getThemeId());
+        if (theme.isEmpty()) {
+            rings.remove(event.getThemeId());
+            return;
+        }
+        String title = theme.get().getTitle();
+        ring.update(summary -> !title.equals(summary.getThemeTitle()),
+                summary -> summary.toBuilder().themeTitle(title).build());
+    }
+
+    /**
+     * Checks whether a first page of the given size can be served from memory.
+     *
+     * @param limit The number of rows requested.
+     * @return true if the index is warm and the page fits in the rings.
+     */
+    public boolean canServe(int limit) {
+        return warm && limit <= capacity;
+    }
+
+    /**
+     * Builds the first page of a feed by merging the rings of the given themes, newest first.
+     *
+     * @param themeIds The IDs of the subscribed themes.
+     * @param limit The maximum number of rows to return.
+     * @return The article summaries of the page.
+     */
+    public List<ArticleSummaryDTO> firstPage(Collection<Long> themeIds, int limit) {
+        PriorityQueue<Cursor> heap = new PriorityQueue<>(Math.max(1, themeIds.size()),
+                (a, b) -> NEWEST_FIRST.compare(a.current(), b.current()));
+        for (Long themeId : themeIds) {
+            ThemeRing ring = rings.get(themeId);
+            if (ring != null) {
+                ArticleSummaryDTO[] snapshot = ring.snapshot();
+                if (snapshot.length > 0) {
+                    heap.add(new Cursor(snapshot));
+                }
+            }
+        }
+
+        List<ArticleSummaryDTO> page = new ArrayList<>(limit);
+        while (page.size() < limit && !heap.isEmpty()) {
+            Cursor cursor = heap.poll();
+            page.add(cursor.current());
+            if (cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return page;
+    }
+
+    /**
+     * A bounded buffer of the newest article summaries of one theme, at most one per article.
+     */
+    private static final class ThemeRing {
+        private final ArticleSummaryDTO[] slots;
+        private int size;
+
+        ThemeRing(int capacity) {
+            this.slots = new ArticleSummaryDTO[capacity];
+        }
+
+        /**
+         * Adds an article unless it is already held, replacing the oldest one when the ring is full;
+         * an article older than all the held ones is dropped.
+         */
+        synchronized void append(ArticleSummaryDTO summary) {
+            int oldest = -1;
+            for (int i = 0; i < size; i++) {
+                if (slots[i].getId().equals(summary.getId())) {
+                    return;
+                }
+                if (oldest < 0 || NEWEST_FIRST.compare(slots[i], slots[oldest]) > 0) {
+                    oldest = i;
+                }
+            }
+            if (size < slots.length) {
+                slots[size++] = summary;
+            } else if (NEWEST_FIRST.compare(summary, slots[oldest]) < 0) {
+                slots[oldest] = summary;
+            }
+        }
+
+        /**
+         * Replaces the held articles matching a predicate.
+         */
+        synchronized void update(Predicate<ArticleSummaryDTO> filter, UnaryOperator<ArticleSummaryDTO> change) {
+            for (int i = 0; i < size; i++) {
+                if (filter.test(slots[i])) {
+                    slots[i] = change.apply(slots[i]);
+                }
+            }
+        }
+
+        /**
+         * Copies the ring newest first.
+         */
+        ArticleSummaryDTO[] snapshot() {
+            ArticleSummaryDTO[] copy;
+            synchronized (this) {
+                copy = Arrays.copyOf(slots, size);
+            }
+            Arrays.sort(copy, NEWEST_FIRST);
+            return copy;
+        }
+    }
+
+    /**
+     * A read position inside the snapshot of one ring, used by the k-way merge.
+     */
+    private static final class Cursor {
+        private final ArticleSummaryDTO[] rows;
+        private int index;
+
+        Cursor(ArticleSummaryDTO[] rows) {
+            this.rows = rows;
+        }
+
+        ArticleSummaryDTO current() {
+            return rows[index];
+        }
+
+        boolean advance() {
+            return ++index < rows.length;
+        }
+    }
+}
@@ -1,22 +1,40 @@
 package com.openclassrooms.mddapi.services;
 
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.openclassrooms.mddapi.config.MetricsConfig;
 import com.openclassrooms.mddapi.dtos.ThemeDTO;
 import com.openclassrooms.mddapi.mappers.ThemeMapper;
 import com.openclassrooms.mddapi.repository.ThemeRepository;
 
+import io.micrometer.observation.annotation.Observed;
+
 /**
  * This class represents a service for managing themes.
+ * The catalog is served from an immutable snapshot that is only rebuilt after a theme is written.
  */
 @Service
+@Observed(name = MetricsConfig.SERVICE_OBSERVATION)
 public class ThemeService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ThemeService.class);
+
     private final ThemeRepository themeRepository;
     private final ThemeMapper themeMapper;
+    private final AtomicLong versions = new AtomicLong();
+    // A lock rather than synchronized: the catalog is built under it, and a virtual thread
+    // blocking on the database inside a monitor would pin its carrier thread
+    private final ReentrantLock catalogLock = new ReentrantLock();
+    private volatile ThemeCatalog catalog;
 
     /**
      * Constructs a new ThemeService with the specified repositories and mappers.
@@ -35,8 +53,60 @@ public class ThemeService {
      * @return A list of ThemeDTO objects representing the themes.
      */
     public List<ThemeDTO> getThemes() {
-        return themeRepository.findAll().stream()
+        return getCatalog().getThemes();
+    }
+
+    /**
+     * Retrieves the current snapshot of the theme catalog, building it if needed.
+     *
+     * @return The current ThemeCatalog.
+     */
+    public ThemeCatalog getCatalog() {
+        ThemeCatalog current = catalog;
+        if (current == null) {
+            catalogLock.lock();
+            try {
+                current = catalog;
+                if (current == null) {
+                    current = buildCatalog();
+                    catalog = current;
+                }
+            } finally {
+                catalogLock.unlock();
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Drops the current snapshot once a theme write has been committed.
+     * The next read rebuilds the catalog from the database.
+     *
+     * @param event The event describing the theme that changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onThemeChanged(ThemeChangedEvent event) {
+        logger.debug("Theme {} changed, invalidating the theme catalog", event.getThemeId());
+        catalogLock.lock();
+        try {
+            catalog = null;
+        } finally {
+            catalogLock.unlock();
+        }
+    }
+
+    /**
+     * Loads all themes and maps them into a new catalog snapshot.
+     *
+     * @return The new ThemeCatalog.
+     */
+    private ThemeCatalog buildCatalog() {
+        List<ThemeDTO> themes = themeRepository.findAll().stream()
                 .map(themeMapper::toDTO)
+                .sorted(Comparator.comparing(ThemeDTO::getId))
                 .collect(Collectors.toList());
+        ThemeCatalog built = new ThemeCatalog(versions.incrementAndGet(), themes);
+        logger.debug("Built theme catalog version {} with {} themes", built.getVersion(), themes.size());
+        return built;
     }
 }
@@ -0,0 +1,217 @@
+package com.openclassrooms.mddapi.services;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+
+/**
+ * Tracks a version and a last-modified time per theme, bumped whenever an article of the theme is
+ * created or commented or the theme itself changes, so that feed, article and comment requests can be
+ * answered with 304 Not Modified without any query. A separate authors version is bumped whenever a user
+ * is renamed, since every response shows the names of authors.
+ *
+ * <p>Versions are bumped once the primary has committed, while reads may go to a replica that has not
+ * caught up yet; {@link #changedRecently} tells the reads that must stay on the primary so that they are
+ * not served, and cached by the client, under a version they do not include.
+ *
+ * <p>Versions live in memory and start from the startup time, so every ETag changes on restart.
+ * Like the {@link ThemeFeedIndex}, they assume a single instance writes articles and comments.
+ */
+@Component
+public class ThemeVersionTracker {
+
+    private final long bootTime = System.currentTimeMillis();
+    private final ConcurrentMap<Long, ThemeVersion> versions = new ConcurrentHashMap<>();
+    private final AtomicReference<ThemeVersion> authors = new AtomicReference<>(new ThemeVersion(0, bootTime));
+    private final ArticleRepository articleRepository;
+    private final long replicaLagMillis;
+    // The theme of an article never changes, so it is looked up once
+    private final Cache<Long, Long> articleThemes;
+
+    /**
+     * Constructs a new ThemeVersionTracker.
+     *
+     * @param articleRepository The repository used to look up the theme of an article.
+     * @param replicaLag How long after a change a replica may still serve the previous content.
+     * @param articleThemesMaxSize The maximum number of article themes kept in memory.
+     */
+    public ThemeVersionTracker(ArticleRepository articleRepository,
+            @Value("${datasource.routing.read-your-writes-window:5s}") Duration replicaLag,
+            @Value("${feed.etag.article-themes.max-size:100000}") long articleThemesMaxSize) {
+        this.articleRepository = articleRepository;
+        this.replicaLagMillis = replicaLag.toMillis();
+        this.articleThemes = Caffeine.newBuilder().maximumSize(articleThemesMaxSize).build();
+    }
+
+    /**
+     * Bumps the version of a theme once the current transaction has committed, or right away outside a transaction.
+     * Bumping before the commit could let a concurrent request cache the old content under the new version.
+     *
+     * @param themeId The ID of the theme whose content changed.
+     */
+    public void bump(Long themeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpNow(themeId);
+                }
+            });
+        } else {
+            bumpNow(themeId);
+        }
+    }
+
+    /**
+     * Bumps the version of a theme whose title changed or which was deleted, once the change has committed.
+     *
+     * @param event The event describing the theme that changed.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onThemeChanged(ThemeChangedEvent event) {
+        bumpNow(event.getThemeId());
+    }
+
+    /**
+     * Bumps the authors version once a user has been renamed.
+     *
+     * @param event The event describing the renamed user.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserRenamed(UserRenamedEvent event) {
+        authors.updateAndGet(this::next);
+    }
+
+    /**
+     * Computes the ETag of a feed request from the versions of its themes and its parameters.
+     *
+     * @param themeIds The IDs of the subscribed themes.
+     * @param parameters The other request parameters the response depends on.
+     * @return The quoted ETag value.
+     */
+    public String feedEtag(Collection<Long> themeIds, Object... parameters) {
+        Object[] parts = new Object[themeIds.size() + parameters.length + 2];
+        int i = 0;
+        parts[i++] = bootTime;
+        parts[i++] = authors.get().version;
+        for (Long themeId : themeIds.stream().sorted().toList()) {
+            parts[i++] = themeId + ":" + current(themeId).version;
+        }
+        for (Object parameter : parameters) {
+            parts[i++] = parameter;
+        }
+        return EntityTags.strong(parts);
+    }
+
+    /**
+     * Computes the ETag of a request for an article or its comments from the version of the article's theme,
+     * which is bumped by every new comment. The theme of the article is only queried the first time.
+     *
+     * @param articleId The ID of the article.
+     * @param parameters The other request parameters the response depends on.
+     * @return The quoted ETag value, or null if the article does not exist.
+     */
+    public String articleEtag(Long articleId, Object... parameters) {
+        Long themeId = articleTheme(articleId);
+        if (themeId == null) {
+            return null;
+        }
+        Object[] parts = new Object[parameters.length + 4];
+        int i = 0;
+        parts[i++] = bootTime;
+        parts[i++] = authors.get().version;
+        parts[i++] = articleId;
+        parts[i++] = themeId + ":" + current(themeId).version;
+        for (Object parameter : parameters) {
+            parts[i++] = parameter;
+        }
+        return EntityTags.strong(parts);
+    }
+
+    /**
+     * Retrieves the latest modification time among the given themes.
+     *
+     * @param themeIds The IDs of the subscribed themes.
+     * @return The last-modified time in epoch milliseconds, the startup time if none changed since.
+     */
+    public long lastModified(Collection<Long> themeIds) {
+        long lastModified = authors.get().lastModified;
+        for (Long themeId : themeIds) {
+            lastModified = Math.max(lastModified, current(themeId).lastModified);
+        }
+        return lastModified;
+    }
+
+    /**
+     * Checks whether the given themes changed recently enough for a replica to still lag behind the version.
+     *
+     * @param themeIds The IDs of the themes.
+     * @return true if the content must be read from the primary to match its ETag.
+     */
+    public boolean changedRecently(Collection<Long> themeIds) {
+        return System.currentTimeMillis() - lastModified(themeIds) < replicaLagMillis;
+    }
+
+    /**
+     * Checks whether the theme of an article changed recently enough for a replica to still lag behind the version.
+     * Runs no query, so that it can be called before the first statement of a transaction; an article whose
+     * theme is not known yet is considered changed.
+     *
+     * @param articleId The ID of the article.
+     * @return true if the article must be read from the primary to match its ETag.
+     */
+    public boolean articleChangedRecently(Long articleId) {
+        Long themeId = articleThemes.getIfPresent(articleId);
+        return themeId == null || changedRecently(List.of(themeId));
+    }
+
+    private Long articleTheme(Long articleId) {
+        Long themeId = articleThemes.getIfPresent(articleId);
+        if (themeId == null) {
+            themeId = articleRepository.findThemeIdById(articleId);
+            if (themeId != null) {
+                articleThemes.put(articleId, themeId);
+            }
+        }
+        return themeId;
+    }
+
+    private void bumpNow(Long themeId) {
+        versions.compute(themeId, (id, version) -> next(version == null ? new ThemeVersion(0, bootTime) : version));
+    }
+
+    private ThemeVersion next(ThemeVersion version) {
+        return new ThemeVersion(version.version + 1, Math.max(System.currentTimeMillis(), version.lastModified));
+    }
+
+    private ThemeVersion current(Long themeId) {
+        ThemeVersion version = versions.get(themeId);
+        return version == null ? new ThemeVersion(0, bootTime) : version;
+    }
+
+    /**
+     * Immutable version of a theme.
+     */
+    private static final class ThemeVersion {
+        private final long version;
+        private final long lastModified;
+
+        private ThemeVersion(long version, long lastModified) {
+            this.version = version;
+            this.lastModified = lastModified;
+        }
+    }
+}
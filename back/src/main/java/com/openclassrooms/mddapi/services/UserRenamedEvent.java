@@ -0,0 +1,24 @@
+package com.openclassrooms.mddapi.services;
+
+import lombok.Getter;
+
+/**
+ * Event published when a user changes their username.
+ */
+@Getter
+public class UserRenamedEvent {
+
+    private final Long userId;
+    private final String username;
+
+    /**
+     * Constructs a new UserRenamedEvent for the given user.
+     *
+     * @param userId the ID of the renamed user
+     * @param username the new username of the user
+     */
+    public UserRenamedEvent(Long userId, String username) {
+        this.userId = userId;
+        this.username = username;
+    }
+}
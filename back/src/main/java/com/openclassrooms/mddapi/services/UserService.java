@@ -1,32 +1,46 @@
 package com.openclassrooms.mddapi.services;
 
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import com.openclassrooms.mddapi.config.MetricsConfig;
 import com.openclassrooms.mddapi.dtos.LoginDTO;
+import com.openclassrooms.mddapi.dtos.SubscriptionChangeDTO;
+import com.openclassrooms.mddapi.dtos.SubscriptionsDTO;
 import com.openclassrooms.mddapi.dtos.UserDTO;
 import com.openclassrooms.mddapi.dtos.UserUpdatedResponseDTO;
 import com.openclassrooms.mddapi.exceptions.EmailExistsException;
+import com.openclassrooms.mddapi.exceptions.LoginOverloadedException;
 import com.openclassrooms.mddapi.exceptions.UsernameExistsException;
 import com.openclassrooms.mddapi.mappers.UserMapper;
-import com.openclassrooms.mddapi.models.Theme;
 import com.openclassrooms.mddapi.models.User;
 import com.openclassrooms.mddapi.repository.ThemeRepository;
 import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.JWTService;
+import com.openclassrooms.mddapi.security.PasswordVerifier;
+import com.openclassrooms.mddapi.security.TokenVersionService;
 
+import io.micrometer.observation.annotation.Observed;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Validation;
@@ -39,20 +53,31 @@ import lombok.Data;
  */
 @Data
 @Service
+@Observed(name = MetricsConfig.SERVICE_OBSERVATION)
 public class UserService {
 
     private final UserRepository userRepository;
     private final BCryptPasswordEncoder bCryptPasswordEncoder;
-    private final AuthenticationManager authenticationManager;
+    private final PasswordVerifier passwordVerifier;
     private final UserMapper userMapper;
     private final ThemeRepository themeRepository;
+    private final FeedService feedService;
+    private final PrincipalCache principalCache;
+    private final TokenVersionService tokenVersionService;
+    private final ArticleBroadcaster articleBroadcaster;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository, BCryptPasswordEncoder bCryptPasswordEncoder, AuthenticationManager authenticationManager, UserMapper userMapper, ThemeRepository themeRepository) {
+    public UserService(UserRepository userRepository, BCryptPasswordEncoder bCryptPasswordEncoder, PasswordVerifier passwordVerifier, UserMapper userMapper, ThemeRepository themeRepository, FeedService feedService, PrincipalCache principalCache, TokenVersionService tokenVersionService, ArticleBroadcaster articleBroadcaster, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.bCryptPasswordEncoder = bCryptPasswordEncoder;
-        this.authenticationManager = authenticationManager;
+        this.passwordVerifier = passwordVerifier;
         this.userMapper = userMapper;
         this.themeRepository = themeRepository;
+        this.feedService = feedService;
+        this.principalCache = principalCache;
+        this.tokenVersionService = tokenVersionService;
+        this.articleBroadcaster = articleBroadcaster;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -120,40 +145,67 @@ public class UserService {
 
     /**
      * Authenticates a user based on the provided login credentials.
+     * The user is loaded with a single query and the password is checked on the dedicated BCrypt executor.
      *
      * @param loginDTO The login data transfer object containing the username or email and password.
      * @return The authenticated user.
      * @throws UsernameNotFoundException If the provided email or username is invalid.
      * @throws BadCredentialsException If the provided password is invalid.
+     * @throws LoginOverloadedException If too many logins are already waiting for a password check.
      */
     public Authentication authenticate(LoginDTO loginDTO) {
-        User user = userRepository.findByEmail(loginDTO.getUsernameOrEmail());
-        if (user == null) {
-            user = userRepository.findByUsername(loginDTO.getUsernameOrEmail());
-        }
+        User user = userRepository.findByUsernameOrEmail(loginDTO.getUsernameOrEmail(), loginDTO.getUsernameOrEmail());
         if (user == null) {
             throw new UsernameNotFoundException("Invalid email or username");
         }
-        try {
-
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(loginDTO.getUsernameOrEmail(), loginDTO.getPassword()));
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-            return authentication;
-        } catch (AuthenticationException e) {
+        if (loginDTO.getPassword() == null || !passwordVerifier.matches(loginDTO.getPassword(), user.getPassword())) {
             throw new BadCredentialsException("Invalid password");
         }
+        // Same principal name as UserDetailsServiceImpl, so tokens keep the username as subject
+        String identifier = user.getUsername() != null ? user.getUsername() : user.getEmail();
+        Authentication authentication = UsernamePasswordAuthenticationToken.authenticated(identifier, null, Collections.emptyList());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return authentication;
     }
 
     /**
      * Retrieves the current authenticated user and converts it to a UserDTO.
+     * The result is served from the principal cache when possible.
      *
      * @param authentication The authentication object containing the user's credentials.
      * @return The UserDTO of the current authenticated user.
      * @throws UsernameNotFoundException If the user is not found.
      */
     public UserDTO getCurrentUser(Authentication authentication) {
-        String emailOrUsername = authentication.getName();
+        return principalCache.get(authentication.getName(), this::loadCurrentUser);
+    }
+
+    /**
+     * Retrieves the ID of the current authenticated user.
+     * Rich JWT tokens carry the user ID, whose freshness has already been checked when the token
+     * was decoded, so no lookup is needed; other tokens fall back to {@link #getCurrentUser}.
+     *
+     * @param authentication The authentication object containing the user's credentials.
+     * @return The ID of the current authenticated user.
+     * @throws UsernameNotFoundException If the user is not found.
+     */
+    public Long getCurrentUserId(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof Jwt jwt && jwt.hasClaim(JWTService.CLAIM_USER_ID)) {
+            return ((Number) jwt.getClaim(JWTService.CLAIM_USER_ID)).longValue();
+        }
+        return getCurrentUser(authentication).getId();
+    }
+
+    /**
+     * Loads a user by email or username and converts it to a UserDTO.
+     * Subscriptions are read from the join table rather than through the lazy themes, so the lookup
+     * also works outside of an open persistence context, as on the article stream.
+     *
+     * @param emailOrUsername The email or username of the user.
+     * @return The UserDTO of the user.
+     * @throws UsernameNotFoundException If the user is not found.
+     */
+    private UserDTO loadCurrentUser(String emailOrUsername) {
         User user = userRepository.findByEmail(emailOrUsername);
         if (user == null) {
             user = userRepository.findByUsername(emailOrUsername);
@@ -161,7 +213,7 @@ public class UserService {
         if (user == null) {
             throw new UsernameNotFoundException("User not found");
         }
-        return userMapper.toDTO(user);
+        return userMapper.toDTO(user, userRepository.findSubscribedThemeIds(user.getId()));
     }
 
     /**
@@ -178,6 +230,11 @@ public class UserService {
                 .orElseThrow(() -> new EntityNotFoundException("User not found"));
         user.setUsername(userDTO.getUsername());
         User savedUser = userRepository.save(user);
+        tokenVersionService.bump(savedUser.getId());
+        principalCache.invalidate(authentication.getName());
+        if (!Objects.equals(savedUser.getUsername(), currentUserDTO.getUsername())) {
+            eventPublisher.publishEvent(new UserRenamedEvent(savedUser.getId(), savedUser.getUsername()));
+        }
         return userMapper.userToUserUpdatedResponseDTO(userMapper.toDTO(savedUser));
     }
 
@@ -187,35 +244,111 @@ public class UserService {
      * @param themeId the ID of the theme to subscribe to
      * @param authentication the authentication object representing the current user
      * @return the updated UserDTO
-     * @throws EntityNotFoundException if the user or theme is not found
+     * @throws EntityNotFoundException if the theme is not found
      */
+    @Transactional
     public UserDTO subscribeToTheme(Long themeId, Authentication authentication) {
         UserDTO currentUserDTO = getCurrentUser(authentication);
-        User user = userRepository.findById(currentUserDTO.getId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new EntityNotFoundException("Theme not found"));
-        user.getThemes().add(theme);
-        User savedUser = userRepository.save(user);
-        return userMapper.toDTO(savedUser);
+        List<Long> themeIds = changeSubscriptions(currentUserDTO.getId(), Set.of(themeId), Set.of(), authentication);
+        return currentUserDTO.toBuilder().subscribedThemeIds(themeIds).build();
     }
 
     /**
      * Unsubscribes the current user from a theme.
+     * Unsubscribing from a theme the user does not follow has no effect.
      *
      * @param themeId the ID of the theme to unsubscribe from
      * @param authentication the authentication object representing the current user
      * @return the updated UserDTO
-     * @throws EntityNotFoundException if the user or theme is not found
      */
+    @Transactional
     public UserDTO unsubscribeFromTheme(Long themeId, Authentication authentication) {
         UserDTO currentUserDTO = getCurrentUser(authentication);
-        User user = userRepository.findById(currentUserDTO.getId())
-                .orElseThrow(() -> new EntityNotFoundException("User not found"));
-        Theme theme = themeRepository.findById(themeId)
-                .orElseThrow(() -> new EntityNotFoundException("Theme not found"));
-        user.getThemes().remove(theme);
-        User savedUser = userRepository.save(user);
-        return userMapper.toDTO(savedUser);
+        List<Long> themeIds = changeSubscriptions(currentUserDTO.getId(), Set.of(), Set.of(themeId), authentication);
+        return currentUserDTO.toBuilder().subscribedThemeIds(themeIds).build();
+    }
+
+    /**
+     * Subscribes the current user to a batch of themes and unsubscribes them from another, in one statement each.
+     * Both operations are idempotent and neither the user nor the themes are loaded.
+     *
+     * @param subscriptionChangeDTO the IDs of the themes to subscribe to and to unsubscribe from
+     * @param authentication the authentication object representing the current user
+     * @return the IDs of the themes the user is subscribed to afterwards
+     * @throws IllegalArgumentException if a theme is both subscribed to and unsubscribed from
+     * @throws EntityNotFoundException if a theme to subscribe to is not found
+     */
+    @Transactional
+    public SubscriptionsDTO updateSubscriptions(SubscriptionChangeDTO subscriptionChangeDTO, Authentication authentication) {
+        Set<Long> subscribe = subscriptionChangeDTO.getSubscribe() == null ? Set.of() : subscriptionChangeDTO.getSubscribe();
+        Set<Long> unsubscribe = subscriptionChangeDTO.getUnsubscribe() == null ? Set.of() : subscriptionChangeDTO.getUnsubscribe();
+        if (subscribe.stream().anyMatch(unsubscribe::contains)) {
+            throw new IllegalArgumentException("A theme cannot be both subscribed to and unsubscribed from.");
+        }
+        List<Long> themeIds = changeSubscriptions(getCurrentUserId(authentication), subscribe, unsubscribe, authentication);
+        return SubscriptionsDTO.builder().subscribedThemeIds(themeIds).build();
+    }
+
+    /**
+     * Applies subscription changes directly to the join table, within the caller's transaction.
+     * When the subscriptions changed, what depends on them is updated once the transaction has committed,
+     * see {@link #onSubscriptionsChanged}.
+     *
+     * @param userId the ID of the user
+     * @param subscribe the IDs of the themes to subscribe to
+     * @param unsubscribe the IDs of the themes to unsubscribe from
+     * @param authentication the authentication object representing the current user
+     * @return the IDs of the themes the user is subscribed to afterwards, in ascending order
+     * @throws EntityNotFoundException if a theme to subscribe to is not found
+     */
+    private List<Long> changeSubscriptions(Long userId, Set<Long> subscribe, Set<Long> unsubscribe, Authentication authentication) {
+        if (!subscribe.isEmpty() && themeRepository.countByIdIn(subscribe) < subscribe.size()) {
+            throw new EntityNotFoundException("Theme not found");
+        }
+        List<Long> before = userRepository.findSubscribedThemeIds(userId);
+        if (!subscribe.isEmpty()) {
+            userRepository.insertSubscriptions(userId, subscribe);
+        }
+        if (!unsubscribe.isEmpty()) {
+            userRepository.deleteSubscriptions(userId, unsubscribe);
+        }
+        List<Long> after = userRepository.findSubscribedThemeIds(userId);
+        if (after.equals(before)) {
+            return after;
+        }
+        for (Long themeId : after) {
+            if (!before.contains(themeId)) {
+                feedService.beginBackfill(userId, themeId);
+            }
+        }
+
+        eventPublisher.publishEvent(new SubscriptionsChangedEvent(userId, authentication.getName(), before, after));
+        return after;
+    }
+
+    /**
+     * Updates what depends on the subscriptions of a user once their change has committed: the principal cache,
+     * the materialized feed and the open article streams. The token version is left as is, since tokens do not
+     * carry subscriptions, so the user's other sessions stay signed in. Runs in a transaction of its own,
+     * since the one of the change is already over.
+     *
+     * @param event the event describing the subscriptions before and after the change
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onSubscriptionsChanged(SubscriptionsChangedEvent event) {
+        Long userId = event.getUserId();
+        principalCache.invalidate(event.getSubject());
+        for (Long themeId : event.getAfter()) {
+            if (!event.getBefore().contains(themeId)) {
+                feedService.backfill(userId, themeId);
+            }
+        }
+        for (Long themeId : event.getBefore()) {
+            if (!event.getAfter().contains(themeId)) {
+                feedService.prune(userId, themeId);
+            }
+        }
+        articleBroadcaster.updateThemes(event.getSubject(), event.getAfter());
     }
 }
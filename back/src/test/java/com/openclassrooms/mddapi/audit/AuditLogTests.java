@@ -0,0 +1,88 @@
+package com.openclassrooms.mddapi.audit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks the ring buffer's backpressure, then writes events to small segments and reads time ranges back.
+ */
+class AuditLogTests {
+
+	private static final long START = Instant.parse("2026-10-18T08:00:00Z").toEpochMilli();
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void fullBufferRejectsEventsUntilDrained() {
+		AuditRingBuffer buffer = new AuditRingBuffer(4);
+		for (int i = 0; i < 4; i++) {
+			assertThat(buffer.offer(event(i))).isTrue();
+		}
+		assertThat(buffer.offer(event(4))).isFalse();
+
+		List<AuditEvent> drained = new ArrayList<>();
+		assertThat(buffer.drainTo(drained, 3)).isEqualTo(3);
+		assertThat(drained).extracting(AuditEvent::getResourceId).containsExactly(0L, 1L, 2L);
+		assertThat(buffer.offer(event(5))).isTrue();
+
+		drained.clear();
+		buffer.drainTo(drained, 10);
+		assertThat(drained).extracting(AuditEvent::getResourceId).containsExactly(3L, 5L);
+		assertThat(buffer.isEmpty()).isTrue();
+	}
+
+	@Test
+	void timeRangesAreReadAcrossSegments() throws IOException {
+		// Events one minute apart, in batches of ten, and a new segment past 1000 bytes
+		try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 1000, 0, 0)) {
+			for (int batch = 0; batch < 10; batch++) {
+				List<AuditEvent> events = new ArrayList<>();
+				for (int i = batch * 10; i < batch * 10 + 10; i++) {
+					events.add(event(i));
+				}
+				writer.append(events);
+			}
+		}
+		assertThat(AuditSegmentWriter.segments(directory)).hasSizeGreaterThan(2);
+
+		List<AuditEvent> events = new ArrayList<>();
+		long count = AuditLogReader.read(directory, minute(25), minute(61), events::add);
+
+		assertThat(count).isEqualTo(37);
+		assertThat(events).extracting(AuditEvent::getResourceId).first().isEqualTo(25L);
+		assertThat(events).extracting(AuditEvent::getResourceId).last().isEqualTo(61L);
+		assertThat(events.get(0).getUsername()).isEqualTo("user 25");
+	}
+
+	@Test
+	void truncatedLastLineIsSkipped() throws IOException {
+		try (AuditSegmentWriter writer = new AuditSegmentWriter(directory, 1_000_000, 0, 0)) {
+			writer.append(List.of(event(0), event(1)));
+		}
+		Path segment = AuditSegmentWriter.segments(directory).get(0);
+		Files.writeString(segment, Files.readString(segment) + (START + 120_000) + "\tLOGIN_SUC");
+
+		List<AuditEvent> events = new ArrayList<>();
+		AuditLogReader.read(directory, minute(0), minute(10), events::add);
+
+		assertThat(events).hasSize(2);
+	}
+
+	private static AuditEvent event(int minute) {
+		return new AuditEvent(START + minute * 60_000L, AuditEventType.COMMENT_POSTED, "user\t" + minute, (long) minute, "127.0.0.1");
+	}
+
+	private static Instant minute(int minute) {
+		return Instant.ofEpochMilli(START + minute * 60_000L);
+	}
+}
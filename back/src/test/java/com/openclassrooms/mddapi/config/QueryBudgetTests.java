@@ -0,0 +1,88 @@
+package com.openclassrooms.mddapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import com.openclassrooms.mddapi.support.QueryBudget;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+
+/**
+ * Feeds statements to the QueryCounter as Hibernate would and checks what the budget filter records.
+ */
+class QueryBudgetTests {
+
+	private final QueryCounter counter = new QueryCounter();
+
+	@Test
+	void statementsDifferingOnlyByLiteralsShareAShape() {
+		assertThat(QueryCounter.shape("select u.id from users u where u.id = 42 and u.username = 'john'"))
+				.isEqualTo("select u.id from users u where u.id = ? and u.username = ?");
+		assertThat(QueryCounter.shape("select c1_0.id from comments c1_0 where c1_0.article_id in (?, ?,?)"))
+				.isEqualTo(QueryCounter.shape("select c1_0.id from comments c1_0 where c1_0.article_id in (?)"));
+	}
+
+	@Test
+	void statementsAreOnlyCountedWhileStatsAreOpen() {
+		counter.inspect("select 1");
+		QueryStats stats = QueryBudget.count(() -> {
+			for (long id = 1; id <= 3; id++) {
+				counter.inspect("select u1_0.username from users u1_0 where u1_0.id = " + id);
+			}
+			counter.inspect("select a1_0.id from articles a1_0");
+		});
+		counter.inspect("select 2");
+
+		assertThat(stats.getQueries()).isEqualTo(4);
+		assertThat(stats.getMostRepeatedShape().getValue()).isEqualTo(3);
+		assertThat(stats.getMostRepeatedShape().getKey()).isEqualTo("select u1_0.username from users u1_0 where u1_0.id = ?");
+		assertThat(QueryCounter.current()).isNull();
+	}
+
+	@Test
+	void budgetAssertionListsTheRepeatedShapes() {
+		QueryStats stats = QueryBudget.count(() -> {
+			for (int i = 0; i < 3; i++) {
+				counter.inspect("select u1_0.username from users u1_0 where u1_0.id = " + i);
+			}
+		});
+
+		QueryBudget.assertAtMost(stats, 3);
+		assertThatThrownBy(() -> QueryBudget.assertAtMost(stats, 2))
+				.isInstanceOf(AssertionError.class)
+				.hasMessageContaining("3 x select u1_0.username from users u1_0 where u1_0.id = ?");
+	}
+
+	@Test
+	void filterRecordsTheStatementsOfTheRequestByEndpoint() throws Exception {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		QueryBudgetFilter filter = new QueryBudgetFilter(10, Map.of("GET /articles/{id}", 1), registry);
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/articles/1");
+		MockFilterChain chain = new MockFilterChain() {
+			@Override
+			public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse) {
+				counter.inspect("select a1_0.id from articles a1_0 where a1_0.id = 1");
+				counter.inspect("select c1_0.id from comments c1_0 where c1_0.article_id = 1");
+				servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/articles/{id}");
+			}
+		};
+
+		filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+		QueryStats stats = (QueryStats) request.getAttribute(QueryBudgetFilter.STATS_ATTRIBUTE);
+		assertThat(stats.getQueries()).isEqualTo(2);
+		assertThat(registry.get("http.server.requests.queries").tags("method", "GET", "uri", "/articles/{id}")
+				.summary().totalAmount()).isEqualTo(2);
+		assertThat(QueryCounter.current()).isNull();
+	}
+}
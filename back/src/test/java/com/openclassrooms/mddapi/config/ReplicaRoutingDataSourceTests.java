@@ -0,0 +1,111 @@
+package com.openclassrooms.mddapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Routes transactions between two embedded databases standing in for the primary and the replica.
+ * Each database holds a single row naming it, so a query tells which one served the transaction.
+ */
+class ReplicaRoutingDataSourceTests {
+
+	private EmbeddedDatabase primary;
+	private EmbeddedDatabase replica;
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate readWrite;
+	private TransactionTemplate readOnly;
+
+	@BeforeEach
+	void setUp() {
+		primary = embeddedDatabase("primary");
+		replica = embeddedDatabase("replica");
+		DataSource routing = new LazyConnectionDataSourceProxy(
+				new ReplicaRoutingDataSource(primary, replica, new ReadYourWritesTracker(Duration.ofMillis(300), 100)));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(routing);
+		jdbcTemplate = new JdbcTemplate(routing);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	@Test
+	void readOnlyTransactionsGoToTheReplica() {
+		assertThat(readOnly.execute(status -> databaseName())).isEqualTo("replica");
+	}
+
+	@Test
+	void readWriteTransactionsGoToThePrimary() {
+		assertThat(readWrite.execute(status -> databaseName())).isEqualTo("primary");
+	}
+
+	@Test
+	void readsStayOnThePrimaryAfterTheUsersOwnWrite() throws InterruptedException {
+		authenticate("alice");
+		readWrite.executeWithoutResult(status -> jdbcTemplate.update("INSERT INTO writes (author) VALUES ('alice')"));
+
+		assertThat(readOnly.execute(status -> databaseName())).isEqualTo("primary");
+
+		authenticate("bob");
+		assertThat(readOnly.execute(status -> databaseName())).isEqualTo("replica");
+
+		authenticate("alice");
+		Thread.sleep(500);
+		assertThat(readOnly.execute(status -> databaseName())).isEqualTo("replica");
+	}
+
+	@Test
+	void rolledBackWritesDoNotOpenTheWindow() {
+		authenticate("alice");
+		readWrite.executeWithoutResult(status -> {
+			jdbcTemplate.update("INSERT INTO writes (author) VALUES ('alice')");
+			status.setRollbackOnly();
+		});
+
+		assertThat(readOnly.execute(status -> databaseName())).isEqualTo("replica");
+	}
+
+	private String databaseName() {
+		return jdbcTemplate.queryForObject("SELECT name FROM database_name", String.class);
+	}
+
+	private static void authenticate(String username) {
+		SecurityContextHolder.getContext().setAuthentication(
+				UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+	}
+
+	private static EmbeddedDatabase embeddedDatabase(String name) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.setName(name)
+				.build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("CREATE TABLE database_name (name VARCHAR(20))");
+		jdbcTemplate.execute("CREATE TABLE writes (author VARCHAR(20))");
+		jdbcTemplate.update("INSERT INTO database_name (name) VALUES (?)", name);
+		return database;
+	}
+}
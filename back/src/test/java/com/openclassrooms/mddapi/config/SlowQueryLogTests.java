@@ -0,0 +1,87 @@
+package com.openclassrooms.mddapi.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import com.openclassrooms.mddapi.dtos.SqlShapeStatsDTO;
+
+/**
+ * Runs statements through an InstrumentedDataSource over an embedded database and checks the
+ * statistics the SlowQueryLog aggregates for them.
+ */
+class SlowQueryLogTests {
+
+	private EmbeddedDatabase database;
+	private SlowQueryLog slowQueryLog;
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		slowQueryLog.shutdown();
+		database.shutdown();
+	}
+
+	@Test
+	void statementsAreAggregatedByShape() {
+		JdbcTemplate jdbcTemplate = jdbcTemplate(Duration.ofHours(1), 100);
+
+		jdbcTemplate.queryForObject("SELECT name FROM users WHERE id = ?", String.class, 1);
+		jdbcTemplate.queryForObject("SELECT name FROM users WHERE id = ?", String.class, 2);
+		jdbcTemplate.queryForObject("SELECT name FROM users WHERE id = 3", String.class);
+
+		SqlShapeStatsDTO stats = statistics("SELECT name FROM users WHERE id = ?");
+		assertThat(stats.getCount()).isEqualTo(3);
+		assertThat(stats.getSlowCount()).isZero();
+		assertThat(stats.getMaxMillis()).isLessThanOrEqualTo(stats.getTotalMillis());
+	}
+
+	@Test
+	void statementsOverTheThresholdAreCountedAsSlow() {
+		JdbcTemplate jdbcTemplate = jdbcTemplate(Duration.ZERO, 100);
+
+		jdbcTemplate.queryForObject("SELECT name FROM users WHERE id = ?", String.class, 1);
+
+		assertThat(statistics("SELECT name FROM users WHERE id = ?").getSlowCount()).isEqualTo(1);
+	}
+
+	@Test
+	void shapesPastTheMaximumAreAggregatedTogether() {
+		JdbcTemplate jdbcTemplate = jdbcTemplate(Duration.ofHours(1), 1);
+
+		jdbcTemplate.queryForObject("SELECT name FROM users WHERE id = ?", String.class, 1);
+		jdbcTemplate.queryForObject("SELECT id FROM users WHERE name = ?", Long.class, "alice");
+		jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+
+		assertThat(slowQueryLog.getStatistics()).extracting(SqlShapeStatsDTO::getShape)
+				.containsExactlyInAnyOrder("SELECT name FROM users WHERE id = ?", SlowQueryLog.OTHER_SHAPES);
+		assertThat(statistics(SlowQueryLog.OTHER_SHAPES).getCount()).isEqualTo(2);
+	}
+
+	private JdbcTemplate jdbcTemplate(Duration threshold, int maxShapes) {
+		database = new EmbeddedDatabaseBuilder()
+				.setType(EmbeddedDatabaseType.H2)
+				.generateUniqueName(true)
+				.build();
+		JdbcTemplate setup = new JdbcTemplate(database);
+		setup.execute("CREATE TABLE users (id BIGINT, name VARCHAR(20))");
+		setup.update("INSERT INTO users (id, name) VALUES (1, 'alice'), (2, 'bob'), (3, 'carol')");
+		slowQueryLog = new SlowQueryLog(threshold, true, 10, maxShapes, null);
+		return new JdbcTemplate(new InstrumentedDataSource(database, slowQueryLog, null));
+	}
+
+	private SqlShapeStatsDTO statistics(String shape) {
+		List<SqlShapeStatsDTO> statistics = slowQueryLog.getStatistics();
+		return statistics.stream()
+				.filter(stats -> stats.getShape().equals(shape))
+				.findFirst()
+				.orElseThrow(() -> new AssertionError("No statistics for " + shape + " in " + statistics));
+	}
+}
@@ -0,0 +1,158 @@
+package com.openclassrooms.mddapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.CommentDTO;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.JWTService;
+import com.openclassrooms.mddapi.services.ArticleService;
+import com.openclassrooms.mddapi.services.CommentService;
+
+/**
+ * Sends conditional requests for the feed, an article and its comments against an embedded database.
+ * A request carrying the ETag of the previous response is answered with 304 and no body until a new comment
+ * bumps the version of the article's theme.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:conditional-requests;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"jwt.secret=conditional-request-integration-tests-secret-key",
+		"management.tracing.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConditionalRequestIntegrationTests {
+
+	@TempDir
+	static Path dataDirectory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ThemeRepository themeRepository;
+
+	@Autowired
+	private ArticleService articleService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private JWTService jwtService;
+
+	private String token;
+	private Long readerId;
+	private Long articleId;
+
+	@DynamicPropertySource
+	static void dataDirectories(DynamicPropertyRegistry registry) {
+		registry.add("search.index.path", () -> dataDirectory.resolve("search-index").toString());
+		registry.add("audit.directory", () -> dataDirectory.resolve("audit").toString());
+		registry.add("tracing.export.path", () -> dataDirectory.resolve("traces/traces.jsonl").toString());
+	}
+
+	@BeforeAll
+	void createArticle() {
+		Theme java = themeRepository.save(Theme.builder().title("Java").description("The Java language").build());
+		User reader = userRepository.save(User.builder()
+				.username("reader")
+				.email("reader@example.com")
+				.password("not-a-real-hash")
+				.build());
+		readerId = reader.getId();
+		userRepository.insertSubscriptions(readerId, Set.of(java.getId()));
+		articleId = articleService.createArticle(ArticleDTO.builder()
+				.title("Article")
+				.content("Content")
+				.userId(readerId)
+				.themeId(java.getId())
+				.build()).getId();
+		addComment();
+		token = jwtService.generateToken(reader.getEmail(), readerId);
+	}
+
+	@Test
+	void unchangedFeedIsNotModified() throws Exception {
+		assertNotModifiedUntilACommentIsAdded(get("/articles"));
+	}
+
+	@Test
+	void unchangedArticleIsNotModified() throws Exception {
+		assertNotModifiedUntilACommentIsAdded(get("/articles/{id}", articleId).param("includeCommentIds", "true"));
+	}
+
+	@Test
+	void unchangedCommentPageIsNotModified() throws Exception {
+		assertNotModifiedUntilACommentIsAdded(get("/articles/{id}/comments", articleId));
+	}
+
+	@Test
+	void etagOfAnotherPageIsNotMatched() throws Exception {
+		String etag = mockMvc.perform(authenticated(get("/articles")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		mockMvc.perform(authenticated(get("/articles").param("limit", "5")).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	/**
+	 * Reads a resource, replays the request with its ETag, then adds a comment and replays it again.
+	 */
+	private void assertNotModifiedUntilACommentIsAdded(MockHttpServletRequestBuilder request) throws Exception {
+		String etag = mockMvc.perform(authenticated(request))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertThat(etag).isNotBlank();
+
+		mockMvc.perform(authenticated(request).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+
+		addComment();
+
+		mockMvc.perform(authenticated(request).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	private MockHttpServletRequestBuilder authenticated(MockHttpServletRequestBuilder request) {
+		return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+	}
+
+	private void addComment() {
+		commentService.createComment(CommentDTO.builder()
+				.content("Comment")
+				.userId(readerId)
+				.articleId(articleId)
+				.build());
+	}
+}
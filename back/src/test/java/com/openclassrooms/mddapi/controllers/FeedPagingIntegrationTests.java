@@ -0,0 +1,161 @@
+package com.openclassrooms.mddapi.controllers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.JWTService;
+import com.openclassrooms.mddapi.services.ArticleService;
+
+/**
+ * Pages through a feed whose articles were all created at the same instant, against an embedded database.
+ * The keyset cursors then only differ by article ID, so a page boundary falling inside the tie must neither
+ * repeat nor skip an article. The in-memory theme index is kept too small to serve a page, so that every
+ * page is read from the materialized feed.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:feed-paging;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"jwt.secret=feed-paging-integration-tests-secret-key",
+		"management.tracing.enabled=false",
+		"feed.index.capacity=1"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class FeedPagingIntegrationTests {
+
+	private static final int ARTICLES = 7;
+	private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 17, 12, 0);
+
+	@TempDir
+	static Path dataDirectory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ThemeRepository themeRepository;
+
+	@Autowired
+	private ArticleRepository articleRepository;
+
+	@Autowired
+	private ArticleService articleService;
+
+	@Autowired
+	private JWTService jwtService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private String token;
+	private List<Long> themeIds;
+	private final List<Long> articleIds = new ArrayList<>();
+
+	@DynamicPropertySource
+	static void dataDirectories(DynamicPropertyRegistry registry) {
+		registry.add("search.index.path", () -> dataDirectory.resolve("search-index").toString());
+		registry.add("audit.directory", () -> dataDirectory.resolve("audit").toString());
+		registry.add("tracing.export.path", () -> dataDirectory.resolve("traces/traces.jsonl").toString());
+	}
+
+	@BeforeAll
+	void createArticles() {
+		Theme java = themeRepository.save(Theme.builder().title("Java").description("The Java language").build());
+		Theme angular = themeRepository.save(Theme.builder().title("Angular").description("The Angular framework").build());
+		themeIds = List.of(java.getId(), angular.getId());
+		User reader = userRepository.save(User.builder()
+				.username("reader")
+				.email("reader@example.com")
+				.password("not-a-real-hash")
+				.build());
+		userRepository.insertSubscriptions(reader.getId(), Set.copyOf(themeIds));
+
+		for (int i = 0; i < ARTICLES; i++) {
+			ArticleDTO article = articleService.createArticle(ArticleDTO.builder()
+					.title("Article " + i)
+					.content("Content")
+					.userId(reader.getId())
+					.themeId(themeIds.get(i % 2))
+					.build());
+			articleIds.add(article.getId());
+		}
+		articleIds.sort(Comparator.reverseOrder());
+		jdbcTemplate.update("UPDATE articles SET created_at = ?", CREATED_AT);
+		jdbcTemplate.update("UPDATE user_feeds SET created_at = ?", CREATED_AT);
+		token = jwtService.generateToken(reader.getEmail(), reader.getId());
+	}
+
+	@Test
+	void feedPagesSplitArticlesCreatedAtTheSameInstantByIdDescending() throws Exception {
+		List<Long> readIds = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			var request = get("/articles").param("limit", "3").header("Authorization", "Bearer " + token);
+			if (cursor != null) {
+				request.param("cursor", cursor);
+			}
+			MvcResult result = mockMvc.perform(request).andExpect(status().isOk()).andReturn();
+			for (JsonNode article : objectMapper.readTree(result.getResponse().getContentAsString())) {
+				readIds.add(article.get("id").asLong());
+			}
+			cursor = result.getResponse().getHeader(ArticleController.NEXT_CURSOR_HEADER);
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(readIds).containsExactlyElementsOf(articleIds);
+	}
+
+	@Test
+	void articleTablePagesSplitArticlesCreatedAtTheSameInstantByIdDescending() {
+		List<Long> readIds = new ArrayList<>();
+		List<ArticleSummaryDTO> page = articleRepository.findFeedPage(themeIds, Limit.of(3));
+		while (!page.isEmpty()) {
+			page.forEach(row -> readIds.add(row.getId()));
+			ArticleSummaryDTO last = page.get(page.size() - 1);
+			page = articleRepository.findFeedPageAfter(themeIds, last.getCreated_at(), last.getId(), Limit.of(3));
+		}
+
+		assertThat(readIds).containsExactlyElementsOf(articleIds);
+	}
+}
@@ -0,0 +1,149 @@
+package com.openclassrooms.mddapi.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.CommentDTO;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.JWTService;
+import com.openclassrooms.mddapi.services.ArticleService;
+import com.openclassrooms.mddapi.services.CommentService;
+import com.openclassrooms.mddapi.support.QueryBudget;
+
+/**
+ * Checks the SQL budget of the feed, article and comment endpoints against an embedded database.
+ * The articles are written by several authors and each has several comments, so that loading an author,
+ * a theme or a comment count per row would run more statements than the budgets allow.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:query-budget;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"jwt.secret=query-budget-integration-tests-secret-key",
+		"management.tracing.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetIntegrationTests {
+
+	private static final int AUTHORS = 4;
+	private static final int ARTICLES_PER_AUTHOR = 3;
+	private static final int COMMENTS_PER_ARTICLE = 3;
+
+	@TempDir
+	static Path dataDirectory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ThemeRepository themeRepository;
+
+	@Autowired
+	private ArticleService articleService;
+
+	@Autowired
+	private CommentService commentService;
+
+	@Autowired
+	private JWTService jwtService;
+
+	private String token;
+	private Long articleId;
+
+	@DynamicPropertySource
+	static void dataDirectories(DynamicPropertyRegistry registry) {
+		registry.add("search.index.path", () -> dataDirectory.resolve("search-index").toString());
+		registry.add("audit.directory", () -> dataDirectory.resolve("audit").toString());
+		registry.add("tracing.export.path", () -> dataDirectory.resolve("traces/traces.jsonl").toString());
+	}
+
+	@BeforeAll
+	void createArticles() {
+		Theme java = themeRepository.save(Theme.builder().title("Java").description("The Java language").build());
+		Theme angular = themeRepository.save(Theme.builder().title("Angular").description("The Angular framework").build());
+
+		List<User> authors = new ArrayList<>();
+		for (int i = 0; i < AUTHORS; i++) {
+			authors.add(userRepository.save(User.builder()
+					.username("author" + i)
+					.email("author" + i + "@example.com")
+					.password("not-a-real-hash")
+					.build()));
+		}
+		User reader = authors.get(0);
+		userRepository.insertSubscriptions(reader.getId(), Set.of(java.getId(), angular.getId()));
+
+		for (User author : authors) {
+			for (int i = 0; i < ARTICLES_PER_AUTHOR; i++) {
+				ArticleDTO article = articleService.createArticle(ArticleDTO.builder()
+						.title("Article " + i + " by " + author.getUsername())
+						.content("Content")
+						.userId(author.getId())
+						.themeId(i % 2 == 0 ? java.getId() : angular.getId())
+						.build());
+				for (User commenter : authors.subList(0, COMMENTS_PER_ARTICLE)) {
+					commentService.createComment(CommentDTO.builder()
+							.content("Comment by " + commenter.getUsername())
+							.userId(commenter.getId())
+							.articleId(article.getId())
+							.build());
+				}
+				articleId = article.getId();
+			}
+		}
+		token = jwtService.generateToken(reader.getEmail(), reader.getId());
+	}
+
+	@Test
+	void feedPageRunsAFixedNumberOfStatements() throws Exception {
+		mockMvc.perform(get("/articles").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.atMost(4));
+	}
+
+	@Test
+	void feedPageWithCommentIdsRunsAFixedNumberOfStatements() throws Exception {
+		mockMvc.perform(get("/articles").param("includeCommentIds", "true").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.atMost(5));
+	}
+
+	@Test
+	void articleDetailRunsAFixedNumberOfStatements() throws Exception {
+		mockMvc.perform(get("/articles/{id}", articleId).param("includeCommentIds", "true").header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.atMost(4));
+	}
+
+	@Test
+	void commentPageRunsAFixedNumberOfStatements() throws Exception {
+		mockMvc.perform(get("/articles/{id}/comments", articleId).header("Authorization", "Bearer " + token))
+				.andExpect(status().isOk())
+				.andExpect(QueryBudget.atMost(4));
+	}
+}
@@ -0,0 +1,157 @@
+package com.openclassrooms.mddapi.controllers;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.dtos.SubscriptionChangeDTO;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.JWTService;
+
+/**
+ * Sends batches of subscription changes to {@code PATCH /me/themes} against an embedded database.
+ * Replaying a change leaves the subscriptions as the first request did, and a change both subscribing to
+ * and unsubscribing from a theme is rejected. Each test signs in as a user of its own.
+ */
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:subscriptions;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+		"spring.datasource.username=sa",
+		"spring.datasource.password=",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"jwt.secret=subscription-integration-tests-secret-key",
+		"management.tracing.enabled=false"
+})
+@AutoConfigureMockMvc
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SubscriptionIntegrationTests {
+
+	private final AtomicInteger users = new AtomicInteger();
+
+	@TempDir
+	static Path dataDirectory;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private ThemeRepository themeRepository;
+
+	@Autowired
+	private JWTService jwtService;
+
+	private Long javaId;
+	private Long angularId;
+
+	@DynamicPropertySource
+	static void dataDirectories(DynamicPropertyRegistry registry) {
+		registry.add("search.index.path", () -> dataDirectory.resolve("search-index").toString());
+		registry.add("audit.directory", () -> dataDirectory.resolve("audit").toString());
+		registry.add("tracing.export.path", () -> dataDirectory.resolve("traces/traces.jsonl").toString());
+	}
+
+	@BeforeAll
+	void createThemes() {
+		javaId = themeRepository.save(Theme.builder().title("Java").description("The Java language").build()).getId();
+		angularId = themeRepository.save(Theme.builder().title("Angular").description("The Angular framework").build()).getId();
+	}
+
+	@Test
+	void replayedSubscriptionHasTheSameOutcome() throws Exception {
+		String token = signUp();
+		SubscriptionChangeDTO change = SubscriptionChangeDTO.builder().subscribe(Set.of(javaId)).build();
+
+		changeSubscriptions(token, change)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.subscribedThemeIds", contains(javaId.intValue())));
+		changeSubscriptions(token, change)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.subscribedThemeIds", contains(javaId.intValue())));
+	}
+
+	@Test
+	void replayedUnsubscriptionHasTheSameOutcome() throws Exception {
+		String token = signUp();
+		changeSubscriptions(token, SubscriptionChangeDTO.builder().subscribe(Set.of(javaId, angularId)).build())
+				.andExpect(status().isOk());
+		SubscriptionChangeDTO change = SubscriptionChangeDTO.builder().unsubscribe(Set.of(javaId)).build();
+
+		changeSubscriptions(token, change)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.subscribedThemeIds", contains(angularId.intValue())));
+		changeSubscriptions(token, change)
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.subscribedThemeIds", contains(angularId.intValue())));
+	}
+
+	@Test
+	void unsubscribingFromAThemeNotFollowedChangesNothing() throws Exception {
+		String token = signUp();
+
+		changeSubscriptions(token, SubscriptionChangeDTO.builder().unsubscribe(Set.of(javaId)).build())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.subscribedThemeIds", empty()));
+	}
+
+	@Test
+	void subscribingToAndUnsubscribingFromTheSameThemeIsRejected() throws Exception {
+		String token = signUp();
+		changeSubscriptions(token, SubscriptionChangeDTO.builder().subscribe(Set.of(angularId)).build())
+				.andExpect(status().isOk());
+
+		changeSubscriptions(token, SubscriptionChangeDTO.builder().subscribe(Set.of(javaId)).unsubscribe(Set.of(javaId, angularId)).build())
+				.andExpect(status().isBadRequest());
+		changeSubscriptions(token, SubscriptionChangeDTO.builder().build())
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.subscribedThemeIds", contains(angularId.intValue())));
+	}
+
+	/**
+	 * Creates a user without subscriptions and returns a token signed for them.
+	 */
+	private String signUp() {
+		int number = users.incrementAndGet();
+		User user = userRepository.save(User.builder()
+				.username("subscriber" + number)
+				.email("subscriber" + number + "@example.com")
+				.password("not-a-real-hash")
+				.build());
+		return jwtService.generateToken(user.getEmail(), user.getId());
+	}
+
+	private ResultActions changeSubscriptions(String token, SubscriptionChangeDTO change) throws Exception {
+		return mockMvc.perform(patch("/me/themes")
+				.header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(change)));
+	}
+}
@@ -0,0 +1,146 @@
+package com.openclassrooms.mddapi.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.JwtValidationException;
+
+import com.openclassrooms.mddapi.repository.UserRepository;
+
+/**
+ * Signs tokens with the pooled HMAC encoder and checks that the caching decoder rejects every token
+ * it must not accept, whether or not a valid token was verified and cached before.
+ */
+class JwtDecoderTests {
+
+	private static final String SECRET = "jwt-decoder-tests-secret-key-of-32-bytes";
+
+	private final AtomicLong tokenVersion = new AtomicLong();
+	private final TokenVersionService tokenVersionService = new TokenVersionService(userRepository(tokenVersion), true, Duration.ofMinutes(10));
+	private final SecretKeySpec secretKey = new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), PooledHmac.ALGORITHM);
+	private final PooledHmac hmac = new PooledHmac(secretKey, 2);
+	private final JWTService jwtService = new JWTService(new HmacJwtEncoder(hmac), tokenVersionService);
+	private final CachingJwtDecoder decoder = new CachingJwtDecoder(HmacJwsVerifierFactory.createDecoder(hmac, secretKey),
+			new TokenVersionValidator(tokenVersionService), 100, Duration.ofMinutes(10));
+
+	@Test
+	void validTokenIsDecodedAndCached() {
+		String token = jwtService.generateToken("john", 1L);
+
+		Jwt jwt = decoder.decode(token);
+
+		assertThat(jwt.getSubject()).isEqualTo("john");
+		assertThat(decoder.decode(token)).isSameAs(jwt);
+	}
+
+	@Test
+	void tamperedSignatureIsRejected() {
+		String token = jwtService.generateToken("john", 1L);
+		decoder.decode(token);
+		int signatureStart = token.lastIndexOf('.') + 1;
+		char first = token.charAt(signatureStart);
+		String tampered = token.substring(0, signatureStart) + (first == 'A' ? 'B' : 'A') + token.substring(signatureStart + 1);
+
+		assertThatThrownBy(() -> decoder.decode(tampered)).isInstanceOf(JwtException.class);
+	}
+
+	@Test
+	void tamperedPayloadIsRejected() {
+		String token = jwtService.generateToken("john", 1L);
+		String[] parts = token.split("\\.");
+		String payload = base64Url(new String(Base64.getUrlDecoder().decode(parts[1]), StandardCharsets.UTF_8).replace("john", "jane"));
+
+		assertThatThrownBy(() -> decoder.decode(parts[0] + "." + payload + "." + parts[2])).isInstanceOf(JwtException.class);
+	}
+
+	@Test
+	void otherAlgorithmIsRejectedEvenWithAValidMac() {
+		String payload = jwtService.generateToken("john", 1L).split("\\.")[1];
+		String signingInput = base64Url("{\"alg\":\"HS384\"}") + "." + payload;
+		String signature = Base64.getUrlEncoder().withoutPadding().encodeToString(hmac.compute(signingInput.getBytes(StandardCharsets.US_ASCII)));
+
+		assertThatThrownBy(() -> decoder.decode(signingInput + "." + signature)).isInstanceOf(JwtException.class);
+	}
+
+	@Test
+	void unsignedTokenIsRejected() {
+		String payload = jwtService.generateToken("john", 1L).split("\\.")[1];
+
+		assertThatThrownBy(() -> decoder.decode(base64Url("{\"alg\":\"none\"}") + "." + payload + "."))
+				.isInstanceOf(JwtException.class);
+	}
+
+	@Test
+	void expiredTokenIsRejected() {
+		Instant issuedAt = Instant.now().minus(Duration.ofDays(2));
+		JwtClaimsSet claims = JwtClaimsSet.builder()
+				.issuer("self")
+				.issuedAt(issuedAt)
+				.expiresAt(issuedAt.plus(Duration.ofDays(1)))
+				.subject("john")
+				.build();
+		String token = new HmacJwtEncoder(hmac).encode(JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims))
+				.getTokenValue();
+
+		assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtValidationException.class);
+	}
+
+	@Test
+	void cachedTokenIsRejectedOnceTheTokenVersionIsBumped() {
+		String token = jwtService.generateToken("john", 1L);
+		decoder.decode(token);
+
+		tokenVersionService.bump(1L);
+
+		assertThatThrownBy(() -> decoder.decode(token)).isInstanceOf(JwtValidationException.class);
+		assertThat(decoder.decode(jwtService.generateToken("john", 1L)).getSubject()).isEqualTo("john");
+	}
+
+	@Test
+	void pooledHmacMatchesAFreshMac() throws Exception {
+		Mac mac = Mac.getInstance(PooledHmac.ALGORITHM);
+		mac.init(secretKey);
+		byte[] input = "header.payload".getBytes(StandardCharsets.US_ASCII);
+		byte[] expected = mac.doFinal(input);
+
+		for (int i = 0; i < 5; i++) {
+			assertThat(hmac.compute(input)).isEqualTo(expected);
+		}
+	}
+
+	private static String base64Url(String json) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Stands in for the repository, holding the token version of every user in a single counter.
+	 */
+	private static UserRepository userRepository(AtomicLong version) {
+		return (UserRepository) Proxy.newProxyInstance(UserRepository.class.getClassLoader(), new Class<?>[] {UserRepository.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "findTokenVersionById" -> version.get();
+					case "incrementTokenVersion" -> {
+						version.incrementAndGet();
+						yield 1;
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
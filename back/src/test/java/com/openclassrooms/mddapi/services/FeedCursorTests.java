@@ -0,0 +1,57 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Encodes and decodes feed cursors, and rejects the values a client could send that no page ever returned.
+ */
+class FeedCursorTests {
+
+	@Test
+	void encodedCursorDecodesToTheSamePosition() {
+		LocalDateTime createdAt = LocalDateTime.of(2024, 5, 17, 10, 15, 30, 123_456_000);
+
+		FeedCursor cursor = FeedCursor.decode(new FeedCursor(createdAt, 42L).encode());
+
+		assertThat(cursor.getCreatedAt()).isEqualTo(createdAt);
+		assertThat(cursor.getId()).isEqualTo(42L);
+	}
+
+	@Test
+	void encodedCursorIsUrlSafe() {
+		String encoded = new FeedCursor(LocalDateTime.of(2024, 5, 17, 10, 15), Long.MAX_VALUE).encode();
+
+		assertThat(encoded).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void cursorThatIsNotBase64IsRejected() {
+		assertThatThrownBy(() -> FeedCursor.decode("not a cursor!")).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void cursorWithoutSeparatorIsRejected() {
+		assertThatThrownBy(() -> FeedCursor.decode(base64Url("2024-05-17T10:15"))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void cursorWithAnInvalidDateIsRejected() {
+		assertThatThrownBy(() -> FeedCursor.decode(base64Url("yesterday|42"))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void cursorWithAnInvalidIdIsRejected() {
+		assertThatThrownBy(() -> FeedCursor.decode(base64Url("2024-05-17T10:15|forty-two"))).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String base64Url(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,200 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.FeedEntryRepository;
+
+/**
+ * Reads feed pages merged from the materialized feed and from the articles of the themes read at query time.
+ * Both repositories are stubbed by in-memory lists sorted and filtered like the feed queries, so the
+ * merge, the deduplication and the keyset positions are checked without a database.
+ */
+class FeedServiceTests {
+
+	private static final Long USER_ID = 1L;
+	private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 17, 12, 0);
+
+	// The feed of the user, as the user_feeds rows would return it
+	private final List<ArticleSummaryDTO> materialized = new ArrayList<>();
+	// Every article, as the articles table would return it
+	private final List<ArticleSummaryDTO> articles = new ArrayList<>();
+	private final List<Long> hotThemeIds = new ArrayList<>();
+	private final AtomicInteger articleTableReads = new AtomicInteger();
+
+	private final ArticleRepository articleRepository = articleRepository();
+	private final ThemeVersionTracker themeVersionTracker = new ThemeVersionTracker(articleRepository, Duration.ofSeconds(5), 100);
+	private final FeedService feedService = new FeedService(feedEntryRepository(), articleRepository, themeVersionTracker, 10, 2);
+
+	@Test
+	void coldThemesAreReadFromTheMaterializedFeedOnly() {
+		addArticle(1L, 1L, NOON, true);
+		addArticle(2L, 2L, NOON.plusMinutes(1), true);
+
+		assertThat(ids(feedService.readFeed(USER_ID, List.of(1L, 2L), null, 10))).containsExactly(2L, 1L);
+		assertThat(articleTableReads).hasValue(0);
+	}
+
+	@Test
+	void hotThemeArticlesAreMergedWithTheMaterializedFeed() {
+		hotThemeIds.add(2L);
+		addArticle(1L, 1L, NOON, true);
+		addArticle(2L, 2L, NOON.plusMinutes(1), false);
+		addArticle(3L, 1L, NOON.plusMinutes(2), true);
+		addArticle(4L, 2L, NOON.plusMinutes(3), false);
+
+		assertThat(ids(feedService.readFeed(USER_ID, List.of(1L, 2L), null, 3))).containsExactly(4L, 3L, 2L);
+	}
+
+	@Test
+	void articleInBothSourcesIsReturnedOnce() {
+		hotThemeIds.add(2L);
+		// Fanned out before the theme turned hot
+		addArticle(1L, 2L, NOON, true);
+		addArticle(2L, 2L, NOON.plusMinutes(1), false);
+
+		assertThat(ids(feedService.readFeed(USER_ID, List.of(2L), null, 10))).containsExactly(2L, 1L);
+	}
+
+	@Test
+	void nextPageResumesAfterTheCursorInBothSources() {
+		hotThemeIds.add(2L);
+		addArticle(1L, 1L, NOON, true);
+		addArticle(2L, 2L, NOON, false);
+		addArticle(3L, 1L, NOON, true);
+		addArticle(4L, 2L, NOON.plusMinutes(1), false);
+
+		List<ArticleSummaryDTO> firstPage = feedService.readFeed(USER_ID, List.of(1L, 2L), null, 2);
+		ArticleSummaryDTO last = firstPage.get(firstPage.size() - 1);
+		List<ArticleSummaryDTO> secondPage = feedService.readFeed(USER_ID, List.of(1L, 2L), new FeedCursor(last.getCreated_at(), last.getId()), 2);
+
+		assertThat(ids(firstPage)).containsExactly(4L, 3L);
+		assertThat(ids(secondPage)).containsExactly(2L, 1L);
+	}
+
+	@Test
+	void hotThemeTheUserDoesNotFollowIsNotRead() {
+		hotThemeIds.add(2L);
+		addArticle(1L, 1L, NOON, true);
+		addArticle(2L, 2L, NOON.plusMinutes(1), false);
+
+		assertThat(ids(feedService.readFeed(USER_ID, List.of(1L), null, 10))).containsExactly(1L);
+		assertThat(articleTableReads).hasValue(0);
+	}
+
+	@Test
+	void themeBeingBackfilledIsReadFromTheArticlesTableUntilTheBackfillIsDone() {
+		addArticle(1L, 1L, NOON, true);
+		addArticle(2L, 2L, NOON.plusMinutes(1), false);
+		addArticle(3L, 2L, NOON.plusMinutes(2), false);
+		addArticle(4L, 2L, NOON.plusMinutes(3), false);
+		String etagBeforeBackfill = themeVersionTracker.feedEtag(List.of(1L, 2L));
+
+		feedService.beginBackfill(USER_ID, 2L);
+
+		assertThat(ids(feedService.readFeed(USER_ID, List.of(1L, 2L), null, 10))).containsExactly(4L, 3L, 2L, 1L);
+
+		feedService.backfill(USER_ID, 2L);
+		articleTableReads.set(0);
+
+		assertThat(ids(feedService.readFeed(USER_ID, List.of(1L, 2L), null, 10))).containsExactly(4L, 3L, 2L, 1L);
+		assertThat(articleTableReads).hasValue(0);
+		assertThat(themeVersionTracker.feedEtag(List.of(1L, 2L))).isNotEqualTo(etagBeforeBackfill);
+	}
+
+	private void addArticle(Long id, Long themeId, LocalDateTime createdAt, boolean inFeed) {
+		ArticleSummaryDTO article = ArticleSummaryDTO.builder()
+				.id(id)
+				.title("Article " + id)
+				.content("Content")
+				.created_at(createdAt)
+				.userId(10L)
+				.username("author")
+				.themeId(themeId)
+				.themeTitle("Theme " + themeId)
+				.build();
+		articles.add(article);
+		if (inFeed) {
+			materialized.add(article);
+		}
+	}
+
+	private static List<Long> ids(List<ArticleSummaryDTO> rows) {
+		return rows.stream().map(ArticleSummaryDTO::getId).toList();
+	}
+
+	/**
+	 * Sorts rows newest first, keeps those matching the filter and cuts the list at the limit, like the feed queries.
+	 */
+	private static List<ArticleSummaryDTO> page(List<ArticleSummaryDTO> rows, Predicate<ArticleSummaryDTO> filter, Limit limit) {
+		return rows.stream()
+				.filter(filter)
+				.sorted(ThemeFeedIndex.NEWEST_FIRST)
+				.limit(limit.max())
+				.toList();
+	}
+
+	private static Predicate<ArticleSummaryDTO> after(LocalDateTime createdAt, Long id) {
+		return row -> row.getCreated_at().isBefore(createdAt) || (row.getCreated_at().equals(createdAt) && row.getId() < id);
+	}
+
+	private FeedEntryRepository feedEntryRepository() {
+		return (FeedEntryRepository) Proxy.newProxyInstance(FeedEntryRepository.class.getClassLoader(), new Class<?>[] {FeedEntryRepository.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "findFeedPage" -> page(materialized, row -> true, (Limit) args[1]);
+					case "findFeedPageAfter" -> page(materialized, after((LocalDateTime) args[1], (Long) args[2]), (Limit) args[3]);
+					case "findThemesWithMoreSubscribersThan" -> List.copyOf(hotThemeIds);
+					case "backfill" -> {
+						Collection<?> articleIds = (Collection<?>) args[1];
+						List<ArticleSummaryDTO> copied = articles.stream()
+								.filter(row -> articleIds.contains(row.getId()) && !materialized.contains(row))
+								.toList();
+						materialized.addAll(copied);
+						yield copied.size();
+					}
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	@SuppressWarnings("unchecked")
+	private ArticleRepository articleRepository() {
+		return (ArticleRepository) Proxy.newProxyInstance(ArticleRepository.class.getClassLoader(), new Class<?>[] {ArticleRepository.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "findFeedPage" -> {
+						articleTableReads.incrementAndGet();
+						Collection<Long> themeIds = (Collection<Long>) args[0];
+						yield page(articles, row -> themeIds.contains(row.getThemeId()), (Limit) args[1]);
+					}
+					case "findFeedPageAfter" -> {
+						articleTableReads.incrementAndGet();
+						Collection<Long> themeIds = (Collection<Long>) args[0];
+						yield page(articles, after((LocalDateTime) args[1], (Long) args[2]).and(row -> themeIds.contains(row.getThemeId())), (Limit) args[3]);
+					}
+					case "findIdsByThemeId" -> themeArticleIds((Long) args[0], Long.MAX_VALUE, (Limit) args[1]);
+					case "findIdsByThemeIdBefore" -> themeArticleIds((Long) args[0], (Long) args[1], (Limit) args[2]);
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private List<Long> themeArticleIds(Long themeId, Long beforeId, Limit limit) {
+		return articles.stream()
+				.filter(row -> row.getThemeId().equals(themeId) && row.getId() < beforeId)
+				.map(ArticleSummaryDTO::getId)
+				.sorted((a, b) -> Long.compare(b, a))
+				.limit(limit.max())
+				.toList();
+	}
+}
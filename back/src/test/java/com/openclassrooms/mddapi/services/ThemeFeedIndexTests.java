@@ -0,0 +1,150 @@
+package com.openclassrooms.mddapi.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.repository.ArticleRepository;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+
+/**
+ * Fills the in-memory theme index directly and checks the first pages it merges from the rings of several themes.
+ * The repositories are only used to warm the index, and are stubbed with no themes and no articles.
+ */
+class ThemeFeedIndexTests {
+
+	private static final LocalDateTime NOON = LocalDateTime.of(2024, 5, 17, 12, 0);
+
+	private final ThemeFeedIndex index = new ThemeFeedIndex(articleRepository(), themeRepository(), 3);
+
+	@Test
+	void firstPageMergesThemesNewestFirst() {
+		index.append(article(1L, 1L, NOON));
+		index.append(article(2L, 2L, NOON.plusMinutes(1)));
+		index.append(article(3L, 1L, NOON.plusMinutes(2)));
+		index.append(article(4L, 2L, NOON.plusMinutes(3)));
+
+		assertThat(ids(index.firstPage(List.of(1L, 2L), 10))).containsExactly(4L, 3L, 2L, 1L);
+	}
+
+	@Test
+	void articlesCreatedAtTheSameTimeAreOrderedByIdDescending() {
+		index.append(article(5L, 1L, NOON));
+		index.append(article(7L, 2L, NOON));
+		index.append(article(6L, 1L, NOON));
+
+		assertThat(ids(index.firstPage(List.of(1L, 2L), 10))).containsExactly(7L, 6L, 5L);
+	}
+
+	@Test
+	void firstPageStopsAtTheLimit() {
+		index.append(article(1L, 1L, NOON));
+		index.append(article(2L, 2L, NOON.plusMinutes(1)));
+		index.append(article(3L, 1L, NOON.plusMinutes(2)));
+
+		assertThat(ids(index.firstPage(List.of(1L, 2L), 2))).containsExactly(3L, 2L);
+	}
+
+	@Test
+	void firstPageOnlyReadsTheGivenThemes() {
+		index.append(article(1L, 1L, NOON));
+		index.append(article(2L, 2L, NOON.plusMinutes(1)));
+
+		assertThat(ids(index.firstPage(List.of(1L, 3L), 10))).containsExactly(1L);
+	}
+
+	@Test
+	void articleAppendedTwiceIsHeldOnce() {
+		index.append(article(1L, 1L, NOON));
+		index.append(article(1L, 1L, NOON));
+
+		assertThat(ids(index.firstPage(List.of(1L), 10))).containsExactly(1L);
+	}
+
+	@Test
+	void fullRingEvictsTheOldestArticle() {
+		for (long id = 1; id <= 4; id++) {
+			index.append(article(id, 1L, NOON.plusMinutes(id)));
+		}
+
+		assertThat(ids(index.firstPage(List.of(1L), 10))).containsExactly(4L, 3L, 2L);
+	}
+
+	@Test
+	void articleOlderThanAFullRingIsDropped() {
+		for (long id = 2; id <= 4; id++) {
+			index.append(article(id, 1L, NOON.plusMinutes(id)));
+		}
+
+		index.append(article(1L, 1L, NOON));
+
+		assertThat(ids(index.firstPage(List.of(1L), 10))).containsExactly(4L, 3L, 2L);
+	}
+
+	@Test
+	void articlesAppendedOutOfOrderKeepTheNewest() {
+		index.append(article(4L, 1L, NOON.plusMinutes(4)));
+		index.append(article(1L, 1L, NOON.plusMinutes(1)));
+		index.append(article(3L, 1L, NOON.plusMinutes(3)));
+		index.append(article(2L, 1L, NOON.plusMinutes(2)));
+
+		assertThat(ids(index.firstPage(List.of(1L), 10))).containsExactly(4L, 3L, 2L);
+	}
+
+	@Test
+	void renamedAuthorIsRewritten() {
+		index.append(article(1L, 1L, NOON));
+
+		index.onUserRenamed(new UserRenamedEvent(10L, "renamed"));
+
+		assertThat(index.firstPage(List.of(1L), 10)).extracting(ArticleSummaryDTO::getUsername).containsExactly("renamed");
+	}
+
+	@Test
+	void onlyPagesThatFitTheRingsOfAWarmIndexCanBeServed() {
+		assertThat(index.canServe(3)).isFalse();
+
+		index.warm();
+
+		assertThat(index.canServe(3)).isTrue();
+		assertThat(index.canServe(4)).isFalse();
+	}
+
+	private static ArticleSummaryDTO article(Long id, Long themeId, LocalDateTime createdAt) {
+		return ArticleSummaryDTO.builder()
+				.id(id)
+				.title("Article " + id)
+				.content("Content")
+				.created_at(createdAt)
+				.userId(10L)
+				.username("author")
+				.themeId(themeId)
+				.themeTitle("Theme " + themeId)
+				.build();
+	}
+
+	private static List<Long> ids(List<ArticleSummaryDTO> rows) {
+		return rows.stream().map(ArticleSummaryDTO::getId).toList();
+	}
+
+	private static ArticleRepository articleRepository() {
+		return (ArticleRepository) Proxy.newProxyInstance(ArticleRepository.class.getClassLoader(), new Class<?>[] {ArticleRepository.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "findFeedPage" -> List.of();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+
+	private static ThemeRepository themeRepository() {
+		return (ThemeRepository) Proxy.newProxyInstance(ThemeRepository.class.getClassLoader(), new Class<?>[] {ThemeRepository.class},
+				(proxy, method, args) -> switch (method.getName()) {
+					case "findAll" -> List.of();
+					default -> throw new UnsupportedOperationException(method.getName());
+				});
+	}
+}
@@ -0,0 +1,79 @@
+package com.openclassrooms.mddapi.support;
+
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.openclassrooms.mddapi.config.QueryBudgetFilter;
+import com.openclassrooms.mddapi.config.QueryCounter;
+import com.openclassrooms.mddapi.config.QueryStats;
+
+/**
+ * Assertions on the number of SQL statements run by an endpoint or a block of code, to catch N+1 patterns in tests.
+ *
+ * <pre>
+ * mockMvc.perform(get("/articles").header("Authorization", "Bearer " + token))
+ *         .andExpect(status().isOk())
+ *         .andExpect(QueryBudget.atMost(4));
+ *
+ * QueryStats stats = QueryBudget.count(() -&gt; articleService.getArticleById(1L, true));
+ * QueryBudget.assertAtMost(stats, 2);
+ * </pre>
+ */
+public final class QueryBudget {
+
+	private QueryBudget() {
+	}
+
+	/**
+	 * Expects a MockMvc request to have run at most the given number of statements.
+	 * The request must go through the QueryBudgetFilter, as with {@code @AutoConfigureMockMvc}.
+	 *
+	 * @param maxStatements the budget of the endpoint
+	 * @return the ResultMatcher
+	 */
+	public static ResultMatcher atMost(int maxStatements) {
+		return result -> {
+			QueryStats stats = (QueryStats) result.getRequest().getAttribute(QueryBudgetFilter.STATS_ATTRIBUTE);
+			if (stats == null) {
+				throw new AssertionError("No query stats recorded, is query-budget.enabled false?");
+			}
+			assertAtMost(stats, maxStatements);
+		};
+	}
+
+	/**
+	 * Counts the statements run by a block of code on the current thread.
+	 *
+	 * @param block the code to run
+	 * @return the stats of the statements it ran
+	 */
+	public static QueryStats count(Runnable block) {
+		QueryStats previous = QueryCounter.current();
+		QueryStats stats = QueryCounter.begin();
+		try {
+			block.run();
+		} finally {
+			QueryCounter.end(previous);
+		}
+		return stats;
+	}
+
+	/**
+	 * Fails with the statements run, grouped by shape, when they exceed the budget.
+	 *
+	 * @param stats the stats to check
+	 * @param maxStatements the budget
+	 */
+	public static void assertAtMost(QueryStats stats, int maxStatements) {
+		if (stats.getQueries() > maxStatements) {
+			String shapes = stats.getShapes().entrySet().stream()
+					.sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+					.map(entry -> entry.getValue() + " x " + entry.getKey())
+					.collect(Collectors.joining("\n  ", "\n  ", ""));
+			throw new AssertionError("Expected at most " + maxStatements + " SQL statements but "
+					+ stats.getQueries() + " ran:" + shapes);
+		}
+	}
+}
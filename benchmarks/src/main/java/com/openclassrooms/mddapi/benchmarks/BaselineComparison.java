@@ -0,0 +1,119 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH JSON result file with a stored baseline and exits with status 1 when a benchmark
+ * regressed by more than the threshold. A benchmark only counts as regressed when the difference also
+ * exceeds the combined score errors of both runs, so that noise alone does not fail the comparison.
+ *
+ * <p>Options, given as {@code --name=value}: {@code results} (default {@code results.json}),
+ * {@code baseline} (default {@code benchmarks/baseline.json}) and {@code threshold} in percent (default 10).
+ * With {@code --update}, the results replace the baseline instead of being compared with it.
+ *
+ * <p>Scores are compared according to their unit: a time per operation regresses when it grows,
+ * a throughput when it shrinks.
+ */
+public class BaselineComparison {
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        boolean update = false;
+        for (String arg : args) {
+            if (arg.equals("--update")) {
+                update = true;
+            } else if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        Path results = Path.of(options.getOrDefault("results", "results.json"));
+        Path baseline = Path.of(options.getOrDefault("baseline", "benchmarks/baseline.json"));
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "10")) / 100.0;
+
+        if (update) {
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.printf("Baseline %s updated from %s%n", baseline, results);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.err.printf("No baseline at %s, create one with --update%n", baseline);
+            System.exit(1);
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        Map<String, Score> before = read(objectMapper, baseline);
+        Map<String, Score> after = read(objectMapper, results);
+        int regressions = 0;
+        for (Map.Entry<String, Score> entry : after.entrySet()) {
+            Score previous = before.get(entry.getKey());
+            Score current = entry.getValue();
+            if (previous == null) {
+                System.out.printf("%-70s %12.3f %-8s (new)%n", entry.getKey(), current.value, current.unit);
+                continue;
+            }
+            double change = (current.value - previous.value) / previous.value;
+            double worse = current.higherIsBetter() ? -change : change;
+            boolean beyondNoise = Math.abs(current.value - previous.value) > previous.error + current.error;
+            boolean regressed = worse > threshold && beyondNoise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-70s %12.3f -> %12.3f %-8s %+7.1f%%%s%n", entry.getKey(), previous.value, current.value,
+                    current.unit, change * 100, regressed ? "  REGRESSION" : "");
+        }
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.0f%%%n", regressions, threshold * 100);
+            System.exit(1);
+        }
+        System.out.println("No regression");
+    }
+
+    /**
+     * Reads the primary scores of a JMH JSON result file, keyed by benchmark name and parameters.
+     */
+    private static Map<String, Score> read(ObjectMapper objectMapper, Path path) throws IOException {
+        Map<String, Score> scores = new LinkedHashMap<>();
+        for (JsonNode run : objectMapper.readTree(path.toFile())) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            run.path("params").fields().forEachRemaining(param ->
+                    key.append(':').append(param.getKey()).append('=').append(param.getValue().asText()));
+            JsonNode metric = run.path("primaryMetric");
+            double error = metric.path("scoreError").asDouble(0);
+            scores.put(key.toString(), new Score(metric.path("score").asDouble(), Double.isNaN(error) ? 0 : error,
+                    metric.path("scoreUnit").asText()));
+        }
+        return scores;
+    }
+
+    /**
+     * The primary score of a benchmark run.
+     */
+    private static final class Score {
+
+        private final double value;
+        private final double error;
+        private final String unit;
+
+        private Score(double value, double error, String unit) {
+            this.value = value;
+            this.error = error;
+            this.unit = unit;
+        }
+
+        /**
+         * Throughput units are operations per time unit, such as {@code ops/ms}.
+         */
+        private boolean higherIsBetter() {
+            return unit.startsWith("ops/");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.util.Map;
+
+/**
+ * The size of the data set loaded into the embedded database.
+ * Articles are spread over the themes and authors in turn, every article has the same number of comments,
+ * and each user is subscribed to {@code subscriptionsPerUser} consecutive themes.
+ */
+public final class DataVolume {
+
+    private final int themes;
+    private final int users;
+    private final int articles;
+    private final int commentsPerArticle;
+    private final int subscriptionsPerUser;
+
+    /**
+     * Constructs a new DataVolume.
+     *
+     * @param themes the number of themes
+     * @param users the number of users
+     * @param articles the number of articles
+     * @param commentsPerArticle the number of comments of each article
+     * @param subscriptionsPerUser the number of themes each user is subscribed to
+     */
+    public DataVolume(int themes, int users, int articles, int commentsPerArticle, int subscriptionsPerUser) {
+        if (themes < 1 || users < 1 || articles < 0 || commentsPerArticle < 0 || subscriptionsPerUser < 0 || subscriptionsPerUser > themes) {
+            throw new IllegalArgumentException("Invalid data volume");
+        }
+        this.themes = themes;
+        this.users = users;
+        this.articles = articles;
+        this.commentsPerArticle = commentsPerArticle;
+        this.subscriptionsPerUser = subscriptionsPerUser;
+    }
+
+    /**
+     * Reads a data volume from {@code --themes}, {@code --users}, {@code --articles}, {@code --comments-per-article}
+     * and {@code --subscriptions-per-user} options, falling back to the given defaults.
+     *
+     * @param options the parsed command-line options
+     * @param defaults the volume used for the missing options
+     * @return the data volume
+     */
+    public static DataVolume fromOptions(Map<String, String> options, DataVolume defaults) {
+        return new DataVolume(
+                Integer.parseInt(options.getOrDefault("themes", String.valueOf(defaults.themes))),
+                Integer.parseInt(options.getOrDefault("users", String.valueOf(defaults.users))),
+                Integer.parseInt(options.getOrDefault("articles", String.valueOf(defaults.articles))),
+                Integer.parseInt(options.getOrDefault("comments-per-article", String.valueOf(defaults.commentsPerArticle))),
+                Integer.parseInt(options.getOrDefault("subscriptions-per-user", String.valueOf(defaults.subscriptionsPerUser))));
+    }
+
+    public int getThemes() {
+        return themes;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getArticles() {
+        return articles;
+    }
+
+    public int getCommentsPerArticle() {
+        return commentsPerArticle;
+    }
+
+    public int getSubscriptionsPerUser() {
+        return subscriptionsPerUser;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d themes, %d users, %d articles, %d comments per article, %d subscriptions per user",
+                themes, users, articles, commentsPerArticle, subscriptionsPerUser);
+    }
+}
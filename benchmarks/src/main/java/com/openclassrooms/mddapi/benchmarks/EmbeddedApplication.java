@@ -0,0 +1,198 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import com.openclassrooms.mddapi.MddApiApplication;
+import com.openclassrooms.mddapi.services.ArticleSearchService;
+import com.openclassrooms.mddapi.services.ThemeFeedIndex;
+
+/**
+ * Runs the whole back-end against an in-memory H2 database in MySQL mode, loaded with a generated data set,
+ * so that benchmarks and load tests need neither MySQL nor network access.
+ *
+ * <p>Users are named {@code user1} to {@code userN}, all with the password {@value #PASSWORD}. Article contents
+ * stay under 255 characters, the column size Hibernate generates for them.
+ */
+public final class EmbeddedApplication implements AutoCloseable {
+
+    /**
+     * The password of every generated user.
+     */
+    public static final String PASSWORD = "Password1!";
+
+    private static final String JWT_SECRET = "FpNG+MVYHnw4dAINLLoqK1bzRrYwTaoklAwhAKIpSXk=";
+    private static final int BATCH_SIZE = 1000;
+
+    private final ConfigurableApplicationContext context;
+    private final DataVolume volume;
+    private final Path workDirectory;
+
+    private EmbeddedApplication(ConfigurableApplicationContext context, DataVolume volume, Path workDirectory) {
+        this.context = context;
+        this.volume = volume;
+        this.workDirectory = workDirectory;
+    }
+
+    /**
+     * Starts the application on a random port and loads the data set.
+     *
+     * @param volume the size of the data set
+     * @param extraArguments additional {@code --name=value} arguments, overriding the defaults
+     * @return the started application
+     */
+    public static EmbeddedApplication start(DataVolume volume, String... extraArguments) {
+        Path workDirectory;
+        try {
+            workDirectory = Files.createTempDirectory("mdd-embedded");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> arguments = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:mdd-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--datasource.routing.enabled=false",
+                "--jwt.secret=" + JWT_SECRET,
+                "--search.index.path=" + workDirectory.resolve("search-index"),
+                "--tracing.export.path=" + workDirectory.resolve("traces").resolve("traces.jsonl"),
+                "--audit.directory=" + workDirectory.resolve("audit"),
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--logging.level.com.openclassrooms.mddapi=WARN"));
+        arguments.addAll(List.of(extraArguments));
+        // Command-line arguments, unlike default properties, take precedence over application.properties
+        ConfigurableApplicationContext context = SpringApplication.run(MddApiApplication.class, arguments.toArray(String[]::new));
+        EmbeddedApplication application = new EmbeddedApplication(context, volume, workDirectory);
+        application.load();
+        return application;
+    }
+
+    /**
+     * Returns a bean of the running application.
+     *
+     * @param type the type of the bean
+     * @param <T> the type of the bean
+     * @return the bean
+     */
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Returns the base URL of the running application.
+     *
+     * @return the URL, such as {@code http://localhost:54321}
+     */
+    public String getBaseUrl() {
+        return "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    /**
+     * Returns the size of the loaded data set.
+     *
+     * @return the data volume
+     */
+    public DataVolume getVolume() {
+        return volume;
+    }
+
+    /**
+     * Stops the application and deletes its search index and traces.
+     */
+    @Override
+    public void close() {
+        context.close();
+        try (Stream<Path> files = Files.walk(workDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        } catch (IOException e) {
+            // Left in the temporary directory
+        }
+    }
+
+    /**
+     * Inserts the data set with batched statements, then rebuilds what the application derives from it at startup.
+     */
+    private void load() {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        long start = System.nanoTime();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int theme = 1; theme <= volume.getThemes(); theme++) {
+            rows.add(new Object[] {"Theme " + theme, "Description of theme " + theme});
+        }
+        batch(jdbcTemplate, "INSERT INTO themes (title, description) VALUES (?, ?)", rows);
+
+        String passwordHash = new BCryptPasswordEncoder().encode(PASSWORD);
+        for (int user = 1; user <= volume.getUsers(); user++) {
+            rows.add(new Object[] {"user" + user, "user" + user + "@test.com", passwordHash, 0L});
+        }
+        batch(jdbcTemplate, "INSERT INTO users (username, email, password, token_version) VALUES (?, ?, ?, ?)", rows);
+
+        for (int user = 1; user <= volume.getUsers(); user++) {
+            for (int i = 0; i < volume.getSubscriptionsPerUser(); i++) {
+                rows.add(new Object[] {user, (user + i) % volume.getThemes() + 1});
+            }
+        }
+        batch(jdbcTemplate, "INSERT INTO subscriptions (user_id, theme_id) VALUES (?, ?)", rows);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int article = 1; article <= volume.getArticles(); article++) {
+            rows.add(new Object[] {
+                    "Article " + article,
+                    "Content of article " + article + ". Lorem ipsum dolor sit amet, consectetur adipiscing elit.",
+                    Timestamp.valueOf(now.minusMinutes(volume.getArticles() - article)),
+                    volume.getCommentsPerArticle(),
+                    (article - 1) % volume.getUsers() + 1,
+                    (article - 1) % volume.getThemes() + 1});
+            if (rows.size() == BATCH_SIZE) {
+                batch(jdbcTemplate, "INSERT INTO articles (title, content, created_at, comment_count, user_id, theme_id) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            }
+        }
+        batch(jdbcTemplate, "INSERT INTO articles (title, content, created_at, comment_count, user_id, theme_id) VALUES (?, ?, ?, ?, ?, ?)", rows);
+
+        for (int article = 1; article <= volume.getArticles(); article++) {
+            for (int comment = 0; comment < volume.getCommentsPerArticle(); comment++) {
+                rows.add(new Object[] {"Comment " + comment + " on article " + article, (article + comment) % volume.getUsers() + 1, article});
+            }
+            if (rows.size() >= BATCH_SIZE) {
+                batch(jdbcTemplate, "INSERT INTO comments (content, user_id, article_id) VALUES (?, ?, ?)", rows);
+            }
+        }
+        batch(jdbcTemplate, "INSERT INTO comments (content, user_id, article_id) VALUES (?, ?, ?)", rows);
+
+        jdbcTemplate.update("INSERT INTO user_feeds (user_id, article_id, theme_id, created_at) "
+                + "SELECT s.user_id, a.id, a.theme_id, a.created_at FROM subscriptions s JOIN articles a ON a.theme_id = s.theme_id");
+
+        context.getBean(ThemeFeedIndex.class).warm();
+        context.getBean(ArticleSearchService.class).reindex();
+        System.out.printf("Loaded %s in %d ms%n", volume, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Runs a batched insert and clears the rows.
+     */
+    private static void batch(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.mddapi.dtos.ArticleFeedPageDTO;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.services.ArticleService;
+
+/**
+ * Measures the assembly of a feed page by {@link ArticleService}, with the whole application running
+ * against an embedded H2 database in MySQL mode. Absolute numbers are lower than against MySQL, which
+ * adds a network round trip per query, but changes in the number and shape of the queries show up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FeedAssemblyBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000"})
+    private int articles;
+
+    private EmbeddedApplication application;
+    private ArticleService articleService;
+    private Long userId;
+    private List<Long> themeIds;
+    private String secondPageCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        application = EmbeddedApplication.start(new DataVolume(10, 100, articles, 5, 3));
+        articleService = application.getBean(ArticleService.class);
+        userId = 1L;
+        themeIds = application.getBean(UserRepository.class).findSubscribedThemeIds(userId);
+        secondPageCursor = articleService.getArticlesForSubscribedThemes(userId, themeIds, null, PAGE_SIZE, false).getNextCursor();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        application.close();
+    }
+
+    @Benchmark
+    public ArticleFeedPageDTO firstPage() {
+        return articleService.getArticlesForSubscribedThemes(userId, themeIds, null, PAGE_SIZE, false);
+    }
+
+    @Benchmark
+    public ArticleFeedPageDTO nextPage() {
+        return articleService.getArticlesForSubscribedThemes(userId, themeIds, secondPageCursor, PAGE_SIZE, false);
+    }
+
+    @Benchmark
+    public ArticleFeedPageDTO firstPageWithCommentIds() {
+        return articleService.getArticlesForSubscribedThemes(userId, themeIds, null, PAGE_SIZE, true);
+    }
+}
@@ -0,0 +1,101 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.openclassrooms.mddapi.controllers.JsonArrayStreams;
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.mappers.ArticleMapper;
+
+/**
+ * Measures the serialization of a 10k-article feed, comparing a list built in memory before being
+ * written, as the paged endpoints do, with the item-by-item writer of {@code GET /articles?all=true}.
+ * Rows are created on the fly with fresh strings, as a JDBC driver would, so only the list variant
+ * keeps them alive until the end. Run with {@code -prof gc} to compare allocation and GC activity;
+ * the small heap makes the retained list show up as old-generation collections.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms128m", "-Xmx128m"})
+public class JsonStreamingBenchmark {
+
+    @Param({"10000"})
+    private int articles;
+
+    @Param({"false", "true"})
+    private boolean blackbird;
+
+    private ObjectMapper objectMapper;
+    private ArticleMapper articleMapper;
+    private char[] content;
+    private LocalDateTime createdAt;
+    // Not OutputStream.nullOutputStream(), which fails once ObjectMapper.writeValue has closed it
+    private final OutputStream sink = new OutputStream() {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        if (blackbird) {
+            builder.modulesToInstall(new BlackbirdModule());
+        }
+        objectMapper = builder.build();
+        articleMapper = new ArticleMapper(null, null, null);
+        content = "Lorem ipsum dolor sit amet, consectetur adipiscing elit. ".repeat(16).toCharArray();
+        createdAt = LocalDateTime.now();
+    }
+
+    @Benchmark
+    public void listThenWrite() throws IOException {
+        List<ArticleDTO> feed = new ArrayList<>();
+        readRows(row -> feed.add(articleMapper.toDTO(row)));
+        objectMapper.writeValue(sink, feed);
+    }
+
+    @Benchmark
+    public void streamed() throws IOException {
+        JsonArrayStreams.write(objectMapper, ArticleDTO.class,
+                consumer -> readRows(row -> consumer.accept(articleMapper.toDTO(row))), sink);
+    }
+
+    /**
+     * Hands freshly allocated rows to the consumer, standing in for a database cursor.
+     */
+    private void readRows(Consumer<ArticleSummaryDTO> consumer) {
+        for (long id = articles; id > 0; id--) {
+            consumer.accept(new ArticleSummaryDTO(id, "Article " + id, new String(content), createdAt.minusMinutes(id),
+                    id % 100, "user" + (id % 100), id % 10, "Theme " + (id % 10), (int) (id % 7)));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.spec.SecretKeySpec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.core.OAuth2TokenValidatorResult;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtClaimsSet;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
+
+import com.nimbusds.jose.jwk.source.ImmutableSecret;
+import com.openclassrooms.mddapi.repository.UserRepository;
+import com.openclassrooms.mddapi.security.CachingJwtDecoder;
+import com.openclassrooms.mddapi.security.HmacJwsVerifierFactory;
+import com.openclassrooms.mddapi.security.HmacJwtEncoder;
+import com.openclassrooms.mddapi.security.JWTService;
+import com.openclassrooms.mddapi.security.PooledHmac;
+import com.openclassrooms.mddapi.security.TokenVersionService;
+
+/**
+ * Measures the per-request cost of JWT authentication and the per-login cost of issuing a token,
+ * comparing the stock Nimbus encoder and decoder with the pooled HMAC and the verified-token cache.
+ * The {@code generateToken*} benchmarks go through JWTService as the login endpoint does, with and
+ * without the rich claims, whose token version comes from a warm cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "FpNG+MVYHnw4dAINLLoqK1bzRrYwTaoklAwhAKIpSXk=";
+
+    private JwtEncoder nimbusEncoder;
+    private JwtEncoder pooledMacEncoder;
+    private JwtDecoder nimbusDecoder;
+    private JwtDecoder pooledMacDecoder;
+    private JwtDecoder cachingDecoder;
+    private JwtEncoderParameters parameters;
+    private String token;
+    private JWTService jwtService;
+    private JWTService richJwtService;
+    private Authentication authentication;
+
+    @Setup
+    public void setUp() {
+        SecretKeySpec secretKey = new SecretKeySpec(SECRET.getBytes(), PooledHmac.ALGORITHM);
+        PooledHmac hmac = new PooledHmac(secretKey);
+
+        nimbusEncoder = new NimbusJwtEncoder(new ImmutableSecret<>(SECRET.getBytes()));
+        pooledMacEncoder = new HmacJwtEncoder(hmac);
+        nimbusDecoder = NimbusJwtDecoder.withSecretKey(secretKey).macAlgorithm(MacAlgorithm.HS256).build();
+        pooledMacDecoder = HmacJwsVerifierFactory.createDecoder(hmac, secretKey);
+        cachingDecoder = new CachingJwtDecoder(HmacJwsVerifierFactory.createDecoder(hmac, secretKey),
+                jwt -> OAuth2TokenValidatorResult.success(), 10_000, Duration.ofMinutes(10));
+
+        Instant now = Instant.now();
+        JwtClaimsSet claims = JwtClaimsSet.builder()
+                .issuer("self")
+                .issuedAt(now)
+                .expiresAt(now.plus(1, ChronoUnit.DAYS))
+                .subject("john")
+                .build();
+        parameters = JwtEncoderParameters.from(JwsHeader.with(MacAlgorithm.HS256).build(), claims);
+        token = nimbusEncoder.encode(parameters).getTokenValue();
+
+        UserRepository userRepository = RepositoryStubs.stub(UserRepository.class,
+                Map.of("findTokenVersionById", args -> 0L));
+        jwtService = new JWTService(pooledMacEncoder, new TokenVersionService(userRepository, false, Duration.ofMinutes(10)));
+        richJwtService = new JWTService(pooledMacEncoder, new TokenVersionService(userRepository, true, Duration.ofMinutes(10)));
+        authentication = UsernamePasswordAuthenticationToken.authenticated("john", null, Collections.emptyList());
+    }
+
+    @Benchmark
+    public String encodeNimbus() {
+        return nimbusEncoder.encode(parameters).getTokenValue();
+    }
+
+    @Benchmark
+    public String encodePooledMac() {
+        return pooledMacEncoder.encode(parameters).getTokenValue();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken(authentication);
+    }
+
+    @Benchmark
+    public String generateTokenRich() {
+        return richJwtService.generateToken("john", 1L);
+    }
+
+    @Benchmark
+    public Jwt decodeNimbus() {
+        return nimbusDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodePooledMac() {
+        return pooledMacDecoder.decode(token);
+    }
+
+    @Benchmark
+    public Jwt decodeCached() {
+        return cachingDecoder.decode(token);
+    }
+}
@@ -0,0 +1,314 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.mddapi.controllers.UserController;
+
+/**
+ * Starts the whole back-end against an in-memory H2 database, then drives its endpoints from concurrent
+ * virtual users and prints the throughput and the p50/p95/p99/p99.9 latencies of each endpoint, recorded
+ * in HDR histograms. Everything runs in this JVM and on the loopback interface, so no MySQL server nor
+ * network access is needed.
+ *
+ * <p>Each virtual user logs in as one of the generated users, then sends requests picked at random
+ * according to the mix, optionally pausing between them. Latencies recorded during the warmup are discarded.
+ *
+ * <p>Options, given as {@code --name=value}:
+ * <ul>
+ * <li>the data volume: {@code themes} (default 10), {@code users} (default 1000), {@code articles}
+ * (default 10000), {@code comments-per-article} (default 5) and {@code subscriptions-per-user} (default 3)</li>
+ * <li>{@code virtual-users} (default 200), {@code duration} and {@code warmup} in seconds (default 60 and 15)
+ * and {@code think-time} in milliseconds (default 0)</li>
+ * <li>{@code mix}, the relative weights of the operations (default
+ * {@code feed=40,article=25,comments=20,comment=5,subscriptions=5,login=5})</li>
+ * <li>{@code histogram-dir}, a directory where the full percentile distribution of each endpoint is
+ * written as an {@code .hgrm} file, in milliseconds, for plotting or comparing runs</li>
+ * <li>{@code virtual-threads}, to run the server on virtual threads (default false)</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    private static final String DEFAULT_MIX = "feed=40,article=25,comments=20,comment=5,subscriptions=5,login=5";
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    private final String baseUrl;
+    private final DataVolume volume;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<Operation, Endpoint> endpoints = new LinkedHashMap<>();
+    private final Operation[] weightedOperations;
+
+    private LoadTest(String baseUrl, DataVolume volume, Map<Operation, Integer> mix) {
+        this.baseUrl = baseUrl;
+        this.volume = volume;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<Operation> weighted = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            endpoints.put(operation, new Endpoint(operation.label));
+            for (int i = 0; i < mix.getOrDefault(operation, 0); i++) {
+                weighted.add(operation);
+            }
+        }
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("The mix has no operation");
+        }
+        this.weightedOperations = weighted.toArray(Operation[]::new);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        DataVolume volume = DataVolume.fromOptions(options, new DataVolume(10, 1000, 10000, 5, 3));
+        if (volume.getArticles() == 0) {
+            throw new IllegalArgumentException("The load test needs at least one article");
+        }
+        int virtualUsers = Integer.parseInt(options.getOrDefault("virtual-users", "200"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "60")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "15")));
+        long thinkTime = Long.parseLong(options.getOrDefault("think-time", "0"));
+        Map<Operation, Integer> mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        String histogramDir = options.get("histogram-dir");
+
+        try (EmbeddedApplication application = EmbeddedApplication.start(volume,
+                "--spring.threads.virtual.enabled=" + options.getOrDefault("virtual-threads", "false"))) {
+            LoadTest loadTest = new LoadTest(application.getBaseUrl(), volume, mix);
+            System.out.printf("Running %d virtual users with mix %s, %ds warmup and %ds measurement%n",
+                    virtualUsers, mix, warmup.toSeconds(), duration.toSeconds());
+            loadTest.run(virtualUsers, thinkTime, warmup, duration);
+            loadTest.report(duration, histogramDir == null ? null : Path.of(histogramDir));
+        }
+    }
+
+    /**
+     * Runs the virtual users for the warmup and the measurement, resetting the histograms in between.
+     */
+    private void run(int virtualUsers, long thinkTime, Duration warmup, Duration duration) throws InterruptedException {
+        long measurementStart = System.nanoTime() + warmup.toNanos();
+        long deadline = measurementStart + duration.toNanos();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < virtualUsers; i++) {
+                int userNumber = i % volume.getUsers() + 1;
+                users.submit(() -> new VirtualUser(userNumber).run(thinkTime, deadline));
+            }
+            Thread.sleep(warmup.toMillis());
+            endpoints.values().forEach(Endpoint::reset);
+        }
+    }
+
+    /**
+     * Prints one line per endpoint, and writes the percentile distributions when a directory is given.
+     */
+    private void report(Duration duration, Path histogramDir) throws IOException {
+        if (histogramDir != null) {
+            Files.createDirectories(histogramDir);
+        }
+        long total = 0;
+        for (Endpoint endpoint : endpoints.values()) {
+            Histogram histogram = endpoint.recorder.getIntervalHistogram();
+            long errors = endpoint.errors.get();
+            if (histogram.getTotalCount() == 0 && errors == 0) {
+                continue;
+            }
+            total += histogram.getTotalCount();
+            StringBuilder line = new StringBuilder(String.format("%-32s %8d req %9.1f req/s  errors=%d",
+                    endpoint.label, histogram.getTotalCount(), histogram.getTotalCount() / (double) duration.toSeconds(), errors));
+            for (double percentile : PERCENTILES) {
+                line.append(String.format("  p%s=%.2fms", percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile),
+                        histogram.getValueAtPercentile(percentile) / 1000.0));
+            }
+            line.append(String.format("  max=%.2fms", histogram.getMaxValue() / 1000.0));
+            System.out.println(line);
+            if (histogramDir != null) {
+                Path file = histogramDir.resolve(endpoint.label.replaceAll("[^A-Za-z0-9]+", "_") + ".hgrm");
+                try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                    histogram.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+        System.out.printf("%-32s %8d req %9.1f req/s%n", "total", total, total / (double) duration.toSeconds());
+    }
+
+    private static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new LinkedHashMap<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.trim().split("=");
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+
+    /**
+     * The operations of the mix, with the endpoint label their latencies are reported under.
+     */
+    private enum Operation {
+        LOGIN("POST /auth/login"),
+        FEED("GET /articles"),
+        ARTICLE("GET /articles/{id}"),
+        COMMENTS("GET /articles/{id}/comments"),
+        COMMENT("POST /articles/{id}/comments"),
+        SUBSCRIPTIONS("PATCH /me/themes");
+
+        private final String label;
+
+        Operation(String label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * The latencies, in microseconds, and the error count of one endpoint.
+     */
+    private static final class Endpoint {
+
+        private final String label;
+        private final Recorder recorder = new Recorder(3);
+        private final AtomicLong errors = new AtomicLong();
+
+        private Endpoint(String label) {
+            this.label = label;
+        }
+
+        private void record(long nanos, boolean success) {
+            if (success) {
+                recorder.recordValue(nanos / 1000);
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+
+        private void reset() {
+            recorder.reset();
+            errors.set(0);
+        }
+    }
+
+    /**
+     * A user logged in with its own token, sending requests one after the other.
+     */
+    private final class VirtualUser {
+
+        private final String username;
+        private final Set<Long> subscribedThemes = new HashSet<>();
+        private String token;
+
+        private VirtualUser(int userNumber) {
+            this.username = "user" + userNumber;
+            for (int i = 0; i < volume.getSubscriptionsPerUser(); i++) {
+                subscribedThemes.add((long) ((userNumber + i) % volume.getThemes() + 1));
+            }
+        }
+
+        private void run(long thinkTime, long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            try {
+                send(Operation.LOGIN, random);
+                while (System.nanoTime() < deadline) {
+                    send(weightedOperations[random.nextInt(weightedOperations.length)], random);
+                    if (thinkTime > 0) {
+                        Thread.sleep(thinkTime);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Sends one request and records its latency, or an error for a failure or a 4xx/5xx status.
+         */
+        private void send(Operation operation, ThreadLocalRandom random) throws InterruptedException {
+            long articleId = random.nextLong(volume.getArticles()) + 1;
+            HttpRequest request = switch (operation) {
+                case LOGIN -> post("/auth/login", Map.of("usernameOrEmail", username, "password", EmbeddedApplication.PASSWORD));
+                case FEED -> get("/articles");
+                case ARTICLE -> get("/articles/" + articleId);
+                case COMMENTS -> get("/articles/" + articleId + "/comments");
+                case COMMENT -> post("/articles/" + articleId + "/comments",
+                        Map.of("content", "Load test comment", "articleId", articleId));
+                case SUBSCRIPTIONS -> toggleSubscription(random.nextLong(volume.getThemes()) + 1);
+            };
+            Endpoint endpoint = endpoints.get(operation);
+            long start = System.nanoTime();
+            try {
+                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                endpoint.record(System.nanoTime() - start, response.statusCode() < 400);
+                if (operation == Operation.LOGIN && response.statusCode() == 200) {
+                    token = objectMapper.readTree(response.body()).path("token").asText();
+                }
+                // Subscription changes revoke the previous token when rich claims are enabled
+                response.headers().firstValue(UserController.REFRESHED_TOKEN_HEADER).ifPresent(refreshed -> token = refreshed);
+            } catch (IOException e) {
+                endpoint.record(System.nanoTime() - start, false);
+            }
+        }
+
+        /**
+         * Subscribes to the theme, or unsubscribes from it when the user already follows it.
+         */
+        private HttpRequest toggleSubscription(long themeId) {
+            boolean subscribed = !subscribedThemes.remove(themeId);
+            if (subscribed) {
+                subscribedThemes.add(themeId);
+            }
+            Map<String, Object> change = subscribed
+                    ? Map.of("subscribe", List.of(themeId))
+                    : Map.of("unsubscribe", List.of(themeId));
+            return request("/me/themes").method("PATCH", json(change)).header("Content-Type", "application/json").build();
+        }
+
+        private HttpRequest get(String path) {
+            return request(path).GET().build();
+        }
+
+        private HttpRequest post(String path, Object body) {
+            return request(path).POST(json(body)).header("Content-Type", "application/json").build();
+        }
+
+        private HttpRequest.Builder request(String path) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(Duration.ofSeconds(30));
+            if (token != null) {
+                builder.header("Authorization", "Bearer " + token);
+            }
+            return builder;
+        }
+
+        private HttpRequest.BodyPublisher json(Object body) {
+            try {
+                return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
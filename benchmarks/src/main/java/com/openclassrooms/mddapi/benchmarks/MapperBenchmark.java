@@ -0,0 +1,122 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.mddapi.dtos.ArticleDTO;
+import com.openclassrooms.mddapi.dtos.ArticleSummaryDTO;
+import com.openclassrooms.mddapi.dtos.CommentDTO;
+import com.openclassrooms.mddapi.dtos.UserDTO;
+import com.openclassrooms.mddapi.mappers.ArticleMapper;
+import com.openclassrooms.mddapi.mappers.CommentMapper;
+import com.openclassrooms.mddapi.mappers.UserMapper;
+import com.openclassrooms.mddapi.models.Article;
+import com.openclassrooms.mddapi.models.Comment;
+import com.openclassrooms.mddapi.models.Theme;
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.repository.CommentRepository;
+import com.openclassrooms.mddapi.repository.ThemeRepository;
+import com.openclassrooms.mddapi.repository.UserRepository;
+
+/**
+ * Measures the mappers called for every article, comment and principal the API returns.
+ * Repositories are replaced by in-memory stubs, so {@code articleToEntity} measures the mapping
+ * and the number of lookups, not the database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private ArticleMapper articleMapper;
+    private CommentMapper commentMapper;
+    private UserMapper userMapper;
+    private Article article;
+    private ArticleSummaryDTO summary;
+    private ArticleDTO articleDTO;
+    private Comment comment;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        Set<Theme> themes = new HashSet<>();
+        for (long id = 1; id <= 5; id++) {
+            themes.add(Theme.builder().id(id).title("Theme " + id).description("Description " + id).build());
+        }
+        Theme theme = themes.iterator().next();
+        user = User.builder().id(1L).username("john").email("john@test.com").password("hash").themes(themes).build();
+        article = Article.builder()
+                .id(1L)
+                .title("Creating Microservices with Spring Boot")
+                .content("Spring Boot makes it easy to create stand-alone, production-grade applications.")
+                .created_at(LocalDateTime.now())
+                .commentCount(3)
+                .user(user)
+                .theme(theme)
+                .build();
+        comment = Comment.builder().id(1L).content("Spring Boot microservices.").user(user).article(article).build();
+        summary = new ArticleSummaryDTO(1L, article.getTitle(), article.getContent(), article.getCreated_at(),
+                user.getId(), user.getUsername(), theme.getId(), theme.getTitle());
+        articleDTO = ArticleDTO.builder()
+                .title(article.getTitle())
+                .content(article.getContent())
+                .userId(user.getId())
+                .themeId(theme.getId())
+                .commentIds(List.of(1L, 2L, 3L))
+                .build();
+
+        UserRepository userRepository = RepositoryStubs.stub(UserRepository.class,
+                Map.of("findById", args -> Optional.of(user)));
+        ThemeRepository themeRepository = RepositoryStubs.stub(ThemeRepository.class,
+                Map.of("findById", args -> Optional.of(theme)));
+        CommentRepository commentRepository = RepositoryStubs.stub(CommentRepository.class,
+                Map.of("findById", args -> Optional.of(comment)));
+        articleMapper = new ArticleMapper(userRepository, themeRepository, commentRepository);
+        commentMapper = new CommentMapper();
+        userMapper = new UserMapper();
+    }
+
+    @Benchmark
+    public ArticleDTO articleToDTO() {
+        return articleMapper.toDTO(article);
+    }
+
+    @Benchmark
+    public ArticleDTO articleSummaryToDTO() {
+        return articleMapper.toDTO(summary);
+    }
+
+    @Benchmark
+    public Article articleToEntity() {
+        return articleMapper.toEntity(articleDTO);
+    }
+
+    @Benchmark
+    public CommentDTO commentToDTO() {
+        return commentMapper.toDTO(comment);
+    }
+
+    @Benchmark
+    public UserDTO userToDTO() {
+        return userMapper.toDTO(user);
+    }
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * In-memory stand-ins for Spring Data repositories, so that mappers and services can be measured
+ * without a database. Only the stubbed methods may be called.
+ */
+final class RepositoryStubs {
+
+    private RepositoryStubs() {
+    }
+
+    /**
+     * Creates a repository answering the given methods by name.
+     *
+     * @param type the repository interface
+     * @param answers the answer of each stubbed method, given the call arguments
+     * @param <R> the repository type
+     * @return the stub repository
+     */
+    static <R> R stub(Class<R> type, Map<String, Function<Object[], Object>> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            Function<Object[], Object> answer = answers.get(method.getName());
+            if (answer == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName() + " is not stubbed");
+            }
+            return answer.apply(args);
+        }));
+    }
+}
@@ -0,0 +1,153 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drives many concurrent {@code GET /articles} and {@code GET /articles/{id}/comments} calls
+ * against a running back-end and prints throughput and latency percentiles per endpoint.
+ * Run it once against a server started with {@code VIRTUAL_THREADS=false} and once with
+ * {@code VIRTUAL_THREADS=true} to compare the Tomcat thread pool with virtual threads.
+ *
+ * <p>Options, given as {@code --name=value}: {@code base-url} (default {@code http://localhost:8080}),
+ * {@code token} (required bearer token), {@code article-id} (default 1), {@code concurrency}
+ * (default 400), {@code duration} in seconds (default 30) and {@code warmup} in seconds (default 10).
+ */
+public class ThreadingModeComparison {
+
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        String baseUrl = options.getOrDefault("base-url", "http://localhost:8080");
+        String token = options.get("token");
+        if (token == null) {
+            System.err.println("Missing --token=<bearer token>, obtain one from POST /auth/login");
+            System.exit(1);
+        }
+        long articleId = Long.parseLong(options.getOrDefault("article-id", "1"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "400"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        Duration warmup = Duration.ofSeconds(Long.parseLong(options.getOrDefault("warmup", "10")));
+
+        HttpClient client = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        List<HttpRequest> requests = List.of(
+                get(baseUrl + "/articles", token),
+                get(baseUrl + "/articles/" + articleId + "/comments", token));
+
+        System.out.printf("Warming up for %ds with %d concurrent clients%n", warmup.toSeconds(), concurrency);
+        run(client, requests, concurrency, warmup);
+        System.out.printf("Measuring for %ds with %d concurrent clients%n", duration.toSeconds(), concurrency);
+        List<Result> results = run(client, requests, concurrency, duration);
+        for (Result result : results) {
+            result.print(duration);
+        }
+    }
+
+    /**
+     * Sends the requests in a loop from the given number of virtual threads until the duration elapses.
+     */
+    private static List<Result> run(HttpClient client, List<HttpRequest> requests, int concurrency, Duration duration) throws InterruptedException {
+        List<Result> results = new ArrayList<>();
+        for (HttpRequest request : requests) {
+            results.add(new Result(request.uri().getPath()));
+        }
+        long deadline = System.nanoTime() + duration.toNanos();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                int offset = i;
+                clients.submit(() -> {
+                    int next = offset;
+                    while (System.nanoTime() < deadline) {
+                        int index = next++ % requests.size();
+                        HttpRequest request = requests.get(index);
+                        Result result = results.get(index);
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            result.record(System.nanoTime() - start, response.statusCode() < 400);
+                        } catch (Exception e) {
+                            result.record(System.nanoTime() - start, false);
+                        }
+                    }
+                });
+            }
+        }
+        return results;
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+        return options;
+    }
+
+    /**
+     * Latencies and error count collected for one endpoint.
+     */
+    private static final class Result {
+
+        private final String path;
+        private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        private final AtomicLong errors = new AtomicLong();
+
+        private Result(String path) {
+            this.path = path;
+        }
+
+        private void record(long nanos, boolean success) {
+            if (success) {
+                latencies.add(nanos);
+            } else {
+                errors.incrementAndGet();
+            }
+        }
+
+        private void print(Duration duration) {
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+            Arrays.sort(sorted);
+            StringBuilder line = new StringBuilder(String.format("%-40s %8.1f req/s  errors=%d",
+                    path, sorted.length / (double) duration.toSeconds(), errors.get()));
+            for (double percentile : PERCENTILES) {
+                line.append(String.format("  p%s=%.1fms", percentile == Math.rint(percentile) ? String.valueOf((int) percentile) : String.valueOf(percentile),
+                        percentile(sorted, percentile) / 1_000_000.0));
+            }
+            System.out.println(line);
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
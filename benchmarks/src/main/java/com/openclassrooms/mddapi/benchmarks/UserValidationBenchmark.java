@@ -0,0 +1,60 @@
+package com.openclassrooms.mddapi.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.openclassrooms.mddapi.models.User;
+import com.openclassrooms.mddapi.services.UserService;
+
+/**
+ * Measures the checks run by {@code UserService.saveUser} before a registration reaches the database.
+ * Both methods are private, so they are called through method handles; the service is built without
+ * collaborators since neither check uses them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserValidationBenchmark {
+
+    private MethodHandle validatePasswordComplexity;
+    private MethodHandle validateUser;
+    private UserService userService;
+    private User user;
+
+    @Setup
+    public void setUp() throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(UserService.class, MethodHandles.lookup());
+        validatePasswordComplexity = lookup.findVirtual(UserService.class, "validatePasswordComplexity",
+                MethodType.methodType(void.class, String.class));
+        validateUser = lookup.findVirtual(UserService.class, "validateUser",
+                MethodType.methodType(void.class, User.class));
+        userService = new UserService(null, null, null, null, null, null, null, null, null);
+        user = User.builder().username("john").email("john@test.com").password("Password1!").build();
+    }
+
+    @Benchmark
+    public void validatePasswordComplexity() throws Throwable {
+        validatePasswordComplexity.invoke(userService, user.getPassword());
+    }
+
+    @Benchmark
+    public void validateUser() throws Throwable {
+        validateUser.invoke(userService, user);
+    }
+}
@@ -18,6 +18,8 @@ import { ArticleService } from '../../services/article.service';
 export class DetailComponent implements OnInit, OnDestroy {
   article: Article | undefined;
   comments: Comment[] = [];
+  nextCommentsCursor: string | null = null;
+  loadingComments = false;
   formControls: { [key: string]: FormControl } = {
     content: new FormControl('', [Validators.required])
   };
@@ -51,13 +53,34 @@ export class DetailComponent implements OnInit, OnDestroy {
       const id = +params['id'];
       this.articleSubscription = this.articleService.getArticle(id).subscribe(article => {
         this.article = article;
-        this.articleService.getComments(id).subscribe(comments => {
-          this.comments = comments;
+        this.articleService.getComments(id).subscribe(page => {
+          this.comments = page.items;
+          this.nextCommentsCursor = page.nextCursor;
         });
       });
     });
   }
 
+  /**
+   * Loads the next page of comments, which is appended to the comments already shown.
+   * Comments posted from this page and already shown are not added twice.
+   */
+  onLoadMoreComments(): void {
+    if (!this.article?.id || !this.nextCommentsCursor || this.loadingComments) {
+      return;
+    }
+    this.loadingComments = true;
+    this.articleService.getComments(this.article.id, this.nextCommentsCursor).subscribe({
+      next: page => {
+        const shownIds = new Set(this.comments.map(comment => comment.id));
+        this.comments = [...this.comments, ...page.items.filter(comment => !shownIds.has(comment.id))];
+        this.nextCommentsCursor = page.nextCursor;
+        this.loadingComments = false;
+      },
+      error: () => this.loadingComments = false,
+    });
+  }
+
   /**
    * Handles the blur event of a form control.
    * @param controlName - The name of the form control.
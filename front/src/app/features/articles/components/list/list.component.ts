@@ -19,12 +19,15 @@ export class ListComponent implements OnInit, OnDestroy {
   sortBy: string | null = null;
   sortDirection: string | null = null;
   articles: Article[] = [];
+  hasMoreArticles = false;
+  loadingMore = false;
   sortDirections: { [key: string]: string } = {
     date: 'asc',
     title: 'asc',
   };
 
   private articleSubscription: Subscription | null = null;
+  private hasMoreSubscription: Subscription | null = null;
 
   constructor(
     private articleService: ArticleService,
@@ -51,6 +54,24 @@ export class ListComponent implements OnInit, OnDestroy {
       this.articles = articles;
       this.changeSortOrder(this.sortBy || 'date', this.sortDirection || 'desc');
     });
+
+    this.hasMoreSubscription = this.articleService.hasMoreArticles$.subscribe(hasMore => {
+      this.hasMoreArticles = hasMore;
+    });
+  }
+
+  /**
+   * Loads the next page of the feed, which is appended to the articles already shown.
+   */
+  onLoadMore(): void {
+    if (this.loadingMore) {
+      return;
+    }
+    this.loadingMore = true;
+    this.articleService.loadMoreArticles().subscribe({
+      complete: () => this.loadingMore = false,
+      error: () => this.loadingMore = false,
+    });
   }
 
   /**
@@ -84,11 +105,15 @@ export class ListComponent implements OnInit, OnDestroy {
 
   /**
    * Cleans up the component.
-   * Unsubscribes from the articleSubscription if it exists.
+   * Unsubscribes from the articleSubscription and the hasMoreSubscription if they exist.
    */
   ngOnDestroy(): void {
     if (this.articleSubscription) {
       this.articleSubscription.unsubscribe();
     }
+
+    if (this.hasMoreSubscription) {
+      this.hasMoreSubscription.unsubscribe();
+    }
   }
 }
@@ -6,7 +6,8 @@ export interface Article {
   userId: number;
   themeTitle: string;
   themeId: number;
-  commentIds: number[];
+  commentCount: number;
+  commentIds?: number[];
   created_at: Date;
   updated_at: Date;
 }
@@ -0,0 +1,8 @@
+/**
+ * One page of a list paged by the back-end.
+ * The cursor of the next page comes from the X-Next-Cursor header, and is null on the last page.
+ */
+export interface Page<T> {
+  items: T[];
+  nextCursor: string | null;
+}
@@ -1,9 +1,10 @@
 import { Injectable } from '@angular/core';
-import { HttpClient } from '@angular/common/http';
+import { HttpClient, HttpParams } from '@angular/common/http';
 import { BehaviorSubject, mergeMap, Observable, of, take } from 'rxjs';
 import { Article } from "../interfaces/article";
 import { Comment } from "../interfaces/comment";
-import { tap, switchMap } from 'rxjs/operators';
+import { Page } from "../interfaces/page";
+import { map, tap, switchMap } from 'rxjs/operators';
 import { environment } from 'src/environments/environment';
 import { SessionService } from '../../auth/services/session.service';
 
@@ -15,9 +16,19 @@ import { SessionService } from '../../auth/services/session.service';
 })
 export class ArticleService {
 
+  /**
+   * Response header carrying the cursor of the next page of a paged list.
+   */
+  private static readonly NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
   private apiUrl: string = environment.backEndUrl + '/articles';
   private _articles = new BehaviorSubject<Article[]>([]);
   public articles$ = this._articles.asObservable();
+  private _nextArticlesCursor = new BehaviorSubject<string | null>(null);
+  /**
+   * Whether the feed has more pages than the ones loaded so far.
+   */
+  public hasMoreArticles$ = this._nextArticlesCursor.pipe(map(cursor => cursor !== null));
 
   constructor(private http: HttpClient, private sessionService: SessionService) {
     this.sessionService.subscribedThemes$.pipe(
@@ -29,16 +40,35 @@ export class ArticleService {
   }
 
   /**
-   * Retrieves articles for the specified theme IDs.
+   * Retrieves the first page of the feed for the specified theme IDs.
+   * The following pages are only read when {@link loadMoreArticles} is called.
    * @param themeIds - An array of theme IDs.
-   * @returns An observable that emits the articles.
+   * @returns An observable that emits the articles of the first page.
    */
   getArticlesForThemes(themeIds: number[]): Observable<Article[]> {
-    return this.http.get<Article[]>(this.apiUrl).pipe(
-      tap(articles => {
-        const filteredArticles = articles.filter(article => themeIds.includes(article.themeId));
-        this._articles.next(filteredArticles);
-      })
+    return this.getPage<Article>(this.apiUrl, 'cursor', null).pipe(
+      tap(page => this._nextArticlesCursor.next(page.nextCursor)),
+      map(page => page.items.filter(article => themeIds.includes(article.themeId))),
+      tap(articles => this._articles.next(articles))
+    );
+  }
+
+  /**
+   * Reads the next page of the feed and appends its articles to the ones already loaded.
+   * Nothing is read when the last page is already loaded.
+   * @returns An observable that emits the articles of the new page.
+   */
+  loadMoreArticles(): Observable<Article[]> {
+    const cursor = this._nextArticlesCursor.value;
+    if (!cursor) {
+      return of([]);
+    }
+    return this.getPage<Article>(this.apiUrl, 'cursor', cursor).pipe(
+      tap(page => {
+        this._nextArticlesCursor.next(page.nextCursor);
+        this._articles.next([...this._articles.value, ...page.items]);
+      }),
+      map(page => page.items)
     );
   }
 
@@ -95,7 +125,7 @@ export class ArticleService {
           throw new Error('Il n\'y a pas d\'utilisateur connecté actuellement');
         }
 
-        const completeArticleData: Omit<Article, 'id' | 'themeTitle' | 'commentIds'> = {
+        const completeArticleData: Omit<Article, 'id' | 'themeTitle' | 'commentCount' | 'commentIds'> = {
           title: article.title,
           content: article.content,
           username: currentUser.username,
@@ -111,12 +141,13 @@ export class ArticleService {
   }
 
   /**
-   * Retrieves the comments for the specified article.
+   * Retrieves one page of the comments of the specified article.
    * @param articleId - The ID of the article.
-   * @returns An observable that emits the comments.
+   * @param after - The cursor returned with the previous page, or null for the first page.
+   * @returns An observable that emits the comments of the page and the cursor of the next one.
    */
-  getComments(articleId: number): Observable<Comment[]> {
-    return this.http.get<Comment[]>(`${this.apiUrl}/${articleId}/comments`);
+  getComments(articleId: number, after: string | null = null): Observable<Page<Comment>> {
+    return this.getPage<Comment>(`${this.apiUrl}/${articleId}/comments`, 'after', after);
   }
 
   /**
@@ -145,4 +176,21 @@ export class ArticleService {
       })
     );
   }
-}
\ No newline at end of file
+
+  /**
+   * Retrieves one page of a paged list, with the cursor of the next page returned in the X-Next-Cursor header.
+   * @param url - The URL of the list.
+   * @param cursorParam - The name of the query parameter carrying the cursor.
+   * @param cursor - The cursor of the page, or null for the first page.
+   * @returns An observable that emits the page.
+   */
+  private getPage<T>(url: string, cursorParam: string, cursor: string | null): Observable<Page<T>> {
+    const params = cursor ? new HttpParams().set(cursorParam, cursor) : undefined;
+    return this.http.get<T[]>(url, { params, observe: 'response' }).pipe(
+      map(response => ({
+        items: response.body ?? [],
+        nextCursor: response.headers.get(ArticleService.NEXT_CURSOR_HEADER),
+      }))
+    );
+  }
+}
@@ -1,16 +1,23 @@
-import { HttpErrorResponse, HttpHandler, HttpInterceptor, HttpRequest } from "@angular/common/http";
+import { HttpErrorResponse, HttpHandler, HttpInterceptor, HttpRequest, HttpResponse } from "@angular/common/http";
 import { Injectable } from "@angular/core";
-import { throwError } from "rxjs";
+import { tap, throwError } from "rxjs";
+
+/**
+ * The response header carrying a re-issued token after the user's profile changed.
+ */
+const REFRESHED_TOKEN_HEADER = 'X-Refreshed-Token';
 
 @Injectable()
 /**
- * Interceptor for adding authentication token to outgoing HTTP requests.
+ * Interceptor for adding authentication token to outgoing HTTP requests
+ * and storing the token re-issued by the server when the previous one became stale.
  */
 export class AuthInterceptor implements HttpInterceptor {
   constructor() {}
 
   /**
    * Intercepts the outgoing HTTP requests and adds the authentication token if available.
+   * A token received in the X-Refreshed-Token response header replaces the stored one.
    * @param request - The outgoing HTTP request.
    * @param next - The next interceptor in the chain.
    * @returns An Observable of the HTTP response.
@@ -33,7 +40,14 @@ export class AuthInterceptor implements HttpInterceptor {
           Authorization: `Bearer ${token}`,
         },
       });
-      return next.handle(request);
+      return next.handle(request).pipe(
+        tap(event => {
+          const refreshedToken = event instanceof HttpResponse ? event.headers.get(REFRESHED_TOKEN_HEADER) : null;
+          if (refreshedToken) {
+            localStorage.setItem('token', refreshedToken);
+          }
+        })
+      );
     } else {
       return throwError(() => new HttpErrorResponse({ status: 401, statusText: 'Veuillez vous connecter' }));
     }